@@ -5,8 +5,11 @@ import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.filter.CharacterEncodingFilter;
 import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import ru.Artem.web.HtmlCompressionFilter;
 
 import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.EnumSet;
 
 public class ApplicationInitializer implements WebApplicationInitializer {
@@ -15,11 +18,28 @@ public class ApplicationInitializer implements WebApplicationInitializer {
     @Override
     public void onStartup(ServletContext servletContext) {
         
-        CharacterEncodingFilter encodingFilter = new CharacterEncodingFilter();
+        // Static files are served as stored, so requests for them are not wrapped at all
+        CharacterEncodingFilter encodingFilter = new CharacterEncodingFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return request.getRequestURI().startsWith(request.getContextPath() + "/resources/");
+            }
+        };
         encodingFilter.setEncoding("UTF-8");
         encodingFilter.setForceEncoding(true);
         FilterRegistration.Dynamic fr = servletContext.addFilter("encodingFilter", encodingFilter);
-        fr.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD), false, "/*");
+        fr.setAsyncSupported(true);
+        fr.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD, DispatcherType.ASYNC), false, "/*");
+
+        // Rewrites <c:url> links to /resources/** into their content-hashed form
+        FilterRegistration.Dynamic resourceUrls =
+                servletContext.addFilter("resourceUrlEncodingFilter", new ResourceUrlEncodingFilter());
+        resourceUrls.setAsyncSupported(true);
+        resourceUrls.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD, DispatcherType.ASYNC), false, "/*");
+
+        FilterRegistration.Dynamic compression = servletContext.addFilter("htmlCompressionFilter", new HtmlCompressionFilter());
+        compression.setAsyncSupported(true);
+        compression.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD, DispatcherType.ASYNC), false, "/*");
 
         
         AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
@@ -30,6 +50,8 @@ public class ApplicationInitializer implements WebApplicationInitializer {
         ServletRegistration.Dynamic servlet =
                 servletContext.addServlet(DISPATCHER, new DispatcherServlet(context));
         servlet.setLoadOnStartup(1);
+        // Streamed responses (the NDJSON export) are written after the request thread is released
+        servlet.setAsyncSupported(true);
         servlet.addMapping("/");
     }
 }
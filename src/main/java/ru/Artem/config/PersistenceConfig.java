@@ -1,20 +1,44 @@
 package ru.Artem.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cache.spi.RegionFactory;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import ru.Artem.datasource.ReplicaDataSource;
+import ru.Artem.datasource.SqlTimingDataSource;
+import ru.Artem.entity.Record;
+import ru.Artem.metrics.ConnectionPoolMetrics;
+import ru.Artem.metrics.HibernateCacheMetrics;
+import ru.Artem.metrics.SqlStatementMetrics;
+import ru.Artem.migration.SchemaMigrator;
+import ru.Artem.search.RecordSearchIndex;
+import ru.Artem.store.InMemoryRecordStore;
+import ru.Artem.writebehind.RecordWriteQueue;
 
 import jakarta.annotation.Resource;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableTransactionManagement
@@ -24,35 +48,154 @@ public class PersistenceConfig {
     @Resource
     private Environment env;
 
+    /**
+     * Writes and read-write transactions use the primary. Read-only transactions are sent to
+     * {@code db.replica.urls} when configured: the lazy proxy defers fetching a physical connection
+     * until {@code setReadOnly(true)} from the transaction manager has told it which pool to use.
+     * A transaction that never runs a statement, e.g. one answered from a cache or the in-memory
+     * store, never borrows a connection at all.
+     */
     @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource ds = new DriverManagerDataSource();
-        ds.setDriverClassName("org.postgresql.Driver");
-        ds.setUrl(env.getProperty("db.url"));
-        ds.setUsername(env.getProperty("db.username"));
-        ds.setPassword(env.getProperty("db.password"));
-        return ds;
+        LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(primaryDataSource());
+        if (!replicaUrls().isEmpty()) {
+            lazyDataSource.setReadOnlyDataSource(replicaDataSource());
+        }
+        DataSource dataSource = lazyDataSource;
+        if (env.getProperty("sql.metrics.enabled", Boolean.class, true)) {
+            dataSource = new SqlTimingDataSource(dataSource, sqlStatementMetrics());
+        }
+        return dataSource;
     }
 
     @Bean
+    public SqlStatementMetrics sqlStatementMetrics() {
+        return new SqlStatementMetrics(
+                env.getProperty("sql.metrics.sample-rate", Double.class, 1.0),
+                env.getProperty("sql.metrics.slow-threshold-ms", Long.class, 200L),
+                env.getProperty("sql.metrics.max-statements", Integer.class, 200),
+                env.getProperty("sql.metrics.slow-log-size", Integer.class, 50));
+    }
+
+    @Bean
+    public HikariDataSource primaryDataSource() {
+        return createPool("todo-primary", env.getProperty("db.url"),
+                env.getProperty("db.username"), env.getProperty("db.password"), false);
+    }
+
+    @Bean
+    @Conditional(ReplicaDataSource.EnabledCondition.class)
+    public ReplicaDataSource replicaDataSource() {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> urls = replicaUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(createPool("todo-replica-" + (i + 1), urls.get(i),
+                    env.getProperty("db.replica.username", env.getProperty("db.username")),
+                    env.getProperty("db.replica.password", env.getProperty("db.password")), true));
+        }
+        return new ReplicaDataSource(primaryDataSource(), replicas,
+                ReplicaDataSource.LoadBalancing.fromProperty(env.getProperty("db.replica.load-balancing")));
+    }
+
+    @Bean
+    @Conditional(InMemoryRecordStore.EnabledCondition.class)
+    public InMemoryRecordStore inMemoryRecordStore() {
+        return new InMemoryRecordStore();
+    }
+
+    @Bean
+    @Conditional(RecordSearchIndex.EnabledCondition.class)
+    public RecordSearchIndex recordSearchIndex() {
+        return new RecordSearchIndex();
+    }
+
+    /**
+     * Closed by {@code RecordService} before the DAO goes away; closing it again here is a no-op.
+     */
+    @Bean(destroyMethod = "close")
+    @Conditional(RecordWriteQueue.EnabledCondition.class)
+    public RecordWriteQueue recordWriteQueue() {
+        return new RecordWriteQueue(
+                env.getProperty("db.write-behind.capacity", Integer.class, 10_000),
+                env.getProperty("db.write-behind.batch-size", Integer.class, 500),
+                env.getProperty("db.write-behind.max-delay-ms", Long.class, 5L),
+                env.getProperty("db.write-behind.offer-timeout-ms", Long.class, 1_000L),
+                env.getProperty("db.write-behind.shutdown-timeout-ms", Long.class, 30_000L));
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Brings the schema up to date from {@code db/migration} before Hibernate starts; Hibernate
+     * itself no longer changes the schema unless {@code hibernate.hbm2ddl.auto} is set explicitly.
+     */
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator() {
+        return new SchemaMigrator(primaryDataSource(),
+                env.getProperty("db.migration.location", "classpath*:db/migration/"),
+                SchemaMigrator.Mode.fromProperty(env.getProperty("db.migration.mode")));
+    }
+
+    @Bean
+    @DependsOn("schemaMigrator")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
         emf.setDataSource(dataSource());
         emf.setPackagesToScan("ru.Artem.entity");
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
-        vendorAdapter.setGenerateDdl(true);
+        vendorAdapter.setGenerateDdl(false);
         emf.setJpaVendorAdapter(vendorAdapter);
 
         Properties jpaProps = new Properties();
-        jpaProps.put("hibernate.hbm2ddl.auto", "update");
+        jpaProps.put("hibernate.hbm2ddl.auto", env.getProperty("hibernate.hbm2ddl.auto", "none"));
         jpaProps.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
-        jpaProps.put("hibernate.show_sql", "true");
-        jpaProps.put("hibernate.format_sql", "true");
+        // Statement timings come from SqlTimingDataSource; echoing SQL to stdout is for local debugging only.
+        jpaProps.put("hibernate.show_sql", env.getProperty("hibernate.show_sql", "false"));
+        jpaProps.put("hibernate.format_sql", env.getProperty("hibernate.format_sql", "false"));
+        jpaProps.put("hibernate.jdbc.batch_size", env.getProperty("db.batch-size", String.valueOf(Record.ID_ALLOCATION_SIZE)));
+        jpaProps.put("hibernate.order_inserts", "true");
+        jpaProps.put("hibernate.order_updates", "true");
+
+        boolean cacheEnabled = env.getProperty("cache.enabled", Boolean.class, true);
+        jpaProps.put("hibernate.cache.use_second_level_cache", String.valueOf(cacheEnabled));
+        // A query cache entry is looked up before the routing proxy picks a pool, so a listing read from a
+        // lagging replica would be served, even to requests pinned to the primary, until the cache expires.
+        // Cacheable hints are ignored while the query cache is off.
+        boolean queryCacheEnabled = cacheEnabled && replicaUrls().isEmpty();
+        jpaProps.put("hibernate.cache.use_query_cache", String.valueOf(queryCacheEnabled));
+        jpaProps.put("hibernate.generate_statistics", env.getProperty("cache.statistics", "true"));
         emf.setJpaProperties(jpaProps);
+        if (cacheEnabled) {
+            emf.getJpaPropertyMap().put("hibernate.cache.region.factory_class", "jcache");
+            emf.getJpaPropertyMap().put("hibernate.javax.cache.cache_manager", recordCacheManager());
+        }
 
         return emf;
     }
 
+    @Bean(destroyMethod = "close")
+    public CacheManager recordCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createCache(cacheManager, Record.class.getName(),
+                env.getProperty("cache.entity.max-size", Long.class, 10000L),
+                env.getProperty("cache.entity.ttl-seconds", Long.class, 600L));
+        createCache(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                env.getProperty("cache.query.max-size", Long.class, 1000L),
+                env.getProperty("cache.query.ttl-seconds", Long.class, 60L));
+        // Update timestamps must outlive every cached query result, so this region is never evicted.
+        createCache(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, null, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernateCacheMetrics hibernateCacheMetrics() {
+        return new HibernateCacheMetrics(entityManagerFactory().getObject());
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager() {
         JpaTransactionManager tx = new JpaTransactionManager();
@@ -64,4 +207,60 @@ public class PersistenceConfig {
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
+
+    private static void createCache(CacheManager cacheManager, String name, Long maxSize, Long ttlSeconds) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStatisticsEnabled(true);
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttlSeconds != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+
+    private List<String> replicaUrls() {
+        List<String> urls = new ArrayList<>();
+        for (String url : env.getProperty("db.replica.urls", "").split(",")) {
+            if (!url.trim().isEmpty()) {
+                urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+
+    private HikariDataSource createPool(String poolName, String url, String username, String password, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(env.getProperty("db.driver", "org.postgresql.Driver"));
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setReadOnly(readOnly);
+
+        config.setMinimumIdle(env.getProperty("db.pool.min-idle", Integer.class, 2));
+        config.setMaximumPoolSize(env.getProperty("db.pool.max-size", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.connection-timeout-ms", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idle-timeout-ms", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.max-lifetime-ms", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leak-detection-threshold-ms", Long.class, 0L));
+
+        // PgJDBC switches to server-side prepared statements after prepareThreshold executions
+        // and keeps them per connection, so pooled connections reuse parsed plans.
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            config.addDataSourceProperty("prepareThreshold", env.getProperty("db.pool.prepare-threshold", "5"));
+            config.addDataSourceProperty("preparedStatementCacheQueries", env.getProperty("db.pool.statement-cache-size", "256"));
+            config.addDataSourceProperty("preparedStatementCacheSizeMiB", env.getProperty("db.pool.statement-cache-size-mib", "5"));
+            // Sends a JDBC batch of inserts as multi-row INSERT statements
+            config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        }
+
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(connectionPoolMetrics());
+        return new HikariDataSource(config);
+    }
 }
@@ -1,19 +1,46 @@
 package ru.Artem.config;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.CacheControl;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
+import ru.Artem.events.RecordEventBroadcaster;
+import ru.Artem.web.AdmissionControlInterceptor;
+import ru.Artem.web.InlineCallableReturnValueHandler;
+import ru.Artem.web.ReadYourWritesInterceptor;
+import ru.Artem.web.ReplicaRoutingPropagation;
+
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("ru.Artem")
 public class WebConfig  implements WebMvcConfigurer {
 
+    @Resource
+    private Environment env;
+
 
     @Bean(name = "viewResolver")
     public ViewResolver getViewResolver() {
@@ -24,11 +51,99 @@ public class WebConfig  implements WebMvcConfigurer {
     }
 
 
+    @Bean(destroyMethod = "close")
+    public RecordEventBroadcaster recordEventBroadcaster() {
+        return new RecordEventBroadcaster(
+                env.getProperty("events.sse.buffer-size", Integer.class, 64),
+                env.getProperty("events.sse.write-timeout-ms", Long.class, 10_000L),
+                env.getProperty("events.sse.heartbeat-ms", Long.class, 25_000L),
+                env.getProperty("events.sse.timeout-ms", Long.class, 1_800_000L),
+                env.getProperty("events.sse.max-subscribers", Integer.class, 10_000));
+    }
+
+    /**
+     * Static files are addressed by content hash ({@code main-page-<md5>.css}, see
+     * {@code ResourceUrlEncodingFilter}), so they can be cached as immutable for a year: a changed
+     * file gets a new URL. Pre-compressed {@code .br}/{@code .gz} siblings built by Maven are served
+     * when the client accepts them; the version is computed from the uncompressed file.
+     */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry)
     {
         registry.addResourceHandler("/resources/**")
-                .addResourceLocations("/resources/");
+                .addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(env.getProperty("http.resources.cache-resolved", Boolean.class, true))
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Container defaults (30 s on Tomcat) would cut off a large export halfway through
+        configurer.setDefaultTimeout(env.getProperty("http.async.timeout-ms", Long.class, 600_000L));
+        configurer.setTaskExecutor(asyncTaskExecutor());
+        configurer.registerCallableInterceptors(new ReplicaRoutingPropagation());
+    }
+
+    /**
+     * Runs async handlers (the {@code Callable}s returned by controllers and streamed responses).
+     * With {@code http.virtual-threads.enabled} every one gets its own virtual thread, so a request
+     * blocked on JDBC no longer holds a container thread; otherwise streamed responses run inline
+     * on the container thread and controller {@code Callable}s never get here, see
+     * {@link #inlineCallables}.
+     */
+    private AsyncTaskExecutor asyncTaskExecutor() {
+        if (virtualThreadsEnabled(env)) {
+            return new VirtualThreadTaskExecutor("mvc-virtual-");
+        }
+        return new TaskExecutorAdapter(new SyncTaskExecutor());
+    }
+
+    /**
+     * Without virtual threads an async {@code Callable} would only add {@code startAsync} and a second
+     * dispatch on the same thread, so controller {@code Callable}s are then called synchronously.
+     */
+    @Bean
+    public static BeanPostProcessor inlineCallables(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter adapter && !virtualThreadsEnabled(env)) {
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+                    handlers.add(0, new InlineCallableReturnValueHandler(adapter.getReturnValueHandlers()));
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean virtualThreadsEnabled(Environment env) {
+        return env.getProperty("http.virtual-threads.enabled", Boolean.class, false);
+    }
+
+    /**
+     * Limits concurrency, queueing and per-client rate of requests before they reach a controller,
+     * see {@link AdmissionControlInterceptor}. Also a bean so its counters show up in /metrics.
+     */
+    @Bean
+    @Conditional(AdmissionControlInterceptor.EnabledCondition.class)
+    public AdmissionControlInterceptor admissionControlInterceptor() {
+        return AdmissionControlInterceptor.fromProperties(env);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // First, so a rejected request costs nothing beyond the check itself
+        if (env.getProperty("http.admission.enabled", Boolean.class, false)) {
+            registry.addInterceptor(admissionControlInterceptor())
+                    .excludePathPatterns("/resources/**", "/events", "/metrics", "/metrics/**");
+        }
+        if (!env.getProperty("db.replica.urls", "").trim().isEmpty()) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(
+                    env.getProperty("db.replica.read-your-writes-window-ms", Long.class, 5000L)));
+        }
     }
 
 }
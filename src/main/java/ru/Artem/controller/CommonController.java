@@ -1,26 +1,62 @@
 package ru.Artem.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
-import ru.Artem.entity.Record;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordChangeDto;
+import ru.Artem.entity.dto.RecordView;
 import ru.Artem.entity.dto.RecordsContainerDto;
 import ru.Artem.service.RecordService;
+import ru.Artem.service.TodoListService;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
+/**
+ * Handlers that touch the database return a {@link Callable}. With virtual threads enabled in
+ * {@code WebConfig} the JDBC work runs on one of them and the view is rendered after the request is
+ * dispatched back to the container; otherwise the {@code Callable} is simply called on the request
+ * thread.
+ * <p>
+ * Every page and action exists once for the default list ({@code /home}, {@code /add-record}, ...)
+ * and once per list under {@code /lists/{listId}}; both are served by the same handler, which gets
+ * a {@code null} list id for the former.
+ */
 @Controller
 
 public class CommonController {
+    /**
+     * {@code /home?view=all}: the whole filtered list on one page, read and rendered by main-page.jsp
+     * in flushed chunks of {@link RecordService#MAX_PAGE_SIZE} instead of one page at a time.
+     */
+    static final String ALL_RECORDS_VIEW = "all";
+
     private final RecordService recordService;
+    private final TodoListService todoListService;
+
+    @Value("${http.conditional-get.enabled:true}")
+    private boolean conditionalGetEnabled = true;
 
     @Autowired
-    public CommonController(RecordService recordService) {
+    public CommonController(RecordService recordService, TodoListService todoListService) {
         this.recordService = recordService;
+        this.todoListService = todoListService;
     }
 
     @RequestMapping("/")
@@ -28,32 +64,209 @@ public class CommonController {
         return "redirect:/home";
     }
 
-    @RequestMapping("/home")
-    public String getMainPage(Model model, @RequestParam(name = "filter", required = false) String filterMode) {
-        RecordsContainerDto container = recordService.findAllRecords(filterMode);
-        model.addAttribute("numberOfDoneRecords", container.getNumberOfDoneRecords());
-        model.addAttribute("numberOfActiveRecords", container.getNumberOfActiveRecords());
-        model.addAttribute("records", container.getRecords());
-        return "main-page";
+    @RequestMapping({"/home", "/lists/{listId}"})
+    public Callable<String> getMainPage(@PathVariable(name = "listId", required = false) Integer listId,
+                              Model model,
+                              @RequestParam(name = "filter", required = false) String filterMode,
+                              @RequestParam(name = "after", required = false) Integer afterId,
+                              @RequestParam(name = "before", required = false) Integer beforeId,
+                              @RequestParam(name = "limit", required = false) Integer limit,
+                              @RequestParam(name = "view", required = false) String view,
+                              @RequestParam(name = "q", required = false) String query,
+                              ServletWebRequest webRequest) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        boolean allRecords = ALL_RECORDS_VIEW.equalsIgnoreCase(view);
+        boolean search = query != null && !query.isBlank();
+        if (conditionalGetEnabled) {
+            // The version is read before the data, so an ETag never claims a newer state than the page it is sent with
+            String etag = search
+                    ? pageETag(recordService.getDataVersion(list), list, filterMode, null, null, limit, query)
+                    : allRecords
+                    ? pageETag(recordService.getDataVersion(list), list, filterMode, null, null, Integer.MAX_VALUE, null)
+                    : pageETag(recordService.getDataVersion(list), list, filterMode, afterId, beforeId, limit, null);
+            webRequest.getResponse().setHeader("Cache-Control", "no-cache");
+            // Checked on the request thread: a 304 needs no data and must not go through an async dispatch
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+        }
+        return () -> {
+            // The default list has no row to read on every /home; other lists must exist
+            String listName = list == TodoList.DEFAULT_ID ? null : todoListService.requireList(list).getName();
+            model.addAttribute("listId", list);
+            model.addAttribute("listName", listName);
+            model.addAttribute("listPath", listPath(list));
+            model.addAttribute("actionPath", actionPath(list));
+            if (allRecords && !search) {
+                // Counted first, then read chunk by chunk while main-page.jsp renders and flushes the rows
+                Map<RecordStatus, Long> counters = recordService.countRecordsByStatus(list);
+                model.addAttribute("numberOfDoneRecords", counters.getOrDefault(RecordStatus.DONE, 0L).intValue());
+                model.addAttribute("numberOfActiveRecords", counters.getOrDefault(RecordStatus.ACTIVE, 0L).intValue());
+                model.addAttribute("records", recordService.findAllRecords(list, filterMode));
+                return "main-page";
+            }
+            RecordsContainerDto container = search
+                    ? recordService.searchRecords(list, query, filterMode, limit)
+                    : recordService.findRecordsPage(list, filterMode, afterId, beforeId, limit);
+            model.addAttribute("numberOfDoneRecords", container.getNumberOfDoneRecords());
+            model.addAttribute("numberOfActiveRecords", container.getNumberOfActiveRecords());
+            model.addAttribute("records", container.getRecords());
+            model.addAttribute("previousCursor", container.getPreviousCursor());
+            model.addAttribute("nextCursor", container.getNextCursor());
+            return "main-page";
+        };
     }
 
-    @RequestMapping(value = "/add-record", method = RequestMethod.POST)
-    public String addRecord(@RequestParam String title) {
-        recordService.saveRecord(title);
-        return "redirect:/home";
+    /**
+     * Weak ETag for one rendering of the main page: the list's data version plus the normalized list,
+     * filter and paging parameters themselves, so two pages never share a tag. Free text is URL-encoded
+     * to keep quotes and spaces out of the header. Weak because {@code HtmlCompressionFilter} sends the same page
+     * gzipped or not, and a strong validator would have to differ between the two encodings.
+     */
+    static String pageETag(long dataVersion, int listId, String filterMode, Integer afterId, Integer beforeId,
+                           Integer limit, String query) {
+        String filter = filterMode == null ? "" : filterMode.trim().toLowerCase();
+        String page = (listId == TodoList.DEFAULT_ID ? "" : "list=" + listId + "|")
+                + URLEncoder.encode(filter, StandardCharsets.UTF_8) + "|" + afterId + "|" + beforeId + "|" + limit
+                + (query == null || query.isBlank() ? "" : "|q=" + URLEncoder.encode(query.trim().toLowerCase(), StandardCharsets.UTF_8));
+        return "W/\"" + Long.toHexString(dataVersion) + "-" + page + "\"";
+    }
+
+    @RequestMapping(value = {"/add-record", "/lists/{listId}/add-record"}, method = RequestMethod.POST)
+    public Callable<String> addRecord(@PathVariable(name = "listId", required = false) Integer listId,
+                                      @RequestParam String title) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> {
+            todoListService.requireList(list);
+            recordService.saveRecord(list, title);
+            return "redirect:" + listPath(list);
+        };
+    }
+
+    @RequestMapping(value = {"/make-record-done", "/lists/{listId}/make-record-done"}, method = RequestMethod.POST)
+    public Callable<String> makeRecordDone(@PathVariable(name = "listId", required = false) Integer listId,
+                                           @RequestParam int id,
+                                           @RequestParam(name = "filter", required = false) String filterMode) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> {
+            recordService.updateRecordStatus(list, id, RecordStatus.DONE);
+            return "redirect:" + listPath(list) + (filterMode != null && !filterMode.trim().isEmpty() ? "?filter=" + filterMode : "");
+        };
+    }
+
+    @RequestMapping(value = {"/delete-record", "/lists/{listId}/delete-record"}, method = RequestMethod.POST)
+    public Callable<String> deleteRecord(@PathVariable(name = "listId", required = false) Integer listId,
+                                         @RequestParam int id,
+                                         @RequestParam(name = "filter", required = false) String filterMode) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> {
+            recordService.deleteRecordStatus(list, id);
+            return "redirect:" + listPath(list) + (filterMode != null && !filterMode.trim().isEmpty() ? "?filter=" + filterMode : "");
+        };
+    }
+
+    /**
+     * The add, done and delete actions for fetch() calls from the main page (Accept:
+     * application/json): one request answered with the affected record and the counters, instead of
+     * POST, 302 and a full reload of the list. Plain form posts still get the redirects above.
+     */
+    @RequestMapping(value = {"/add-record", "/lists/{listId}/add-record"}, method = RequestMethod.POST,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Callable<ResponseEntity<RecordChangeDto>> addRecordInPlace(
+            @PathVariable(name = "listId", required = false) Integer listId, @RequestParam String title) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> {
+            todoListService.requireList(list);
+            RecordView record = recordService.saveRecord(list, title);
+            if (record == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(change(list, record.getId(), record));
+        };
+    }
+
+    @RequestMapping(value = {"/make-record-done", "/lists/{listId}/make-record-done"}, method = RequestMethod.POST,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Callable<ResponseEntity<RecordChangeDto>> makeRecordDoneInPlace(
+            @PathVariable(name = "listId", required = false) Integer listId, @RequestParam int id) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> {
+            recordService.updateRecordStatus(list, id, RecordStatus.DONE);
+            RecordView record = recordService.findRecord(list, id);
+            return record == null
+                    ? ResponseEntity.notFound().build()
+                    : ResponseEntity.ok(change(list, id, record));
+        };
+    }
+
+    @RequestMapping(value = {"/delete-record", "/lists/{listId}/delete-record"}, method = RequestMethod.POST,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Callable<ResponseEntity<RecordChangeDto>> deleteRecordInPlace(
+            @PathVariable(name = "listId", required = false) Integer listId, @RequestParam int id) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> recordService.deleteRecordStatus(list, id)
+                ? ResponseEntity.ok(change(list, id, null))
+                : ResponseEntity.notFound().build();
+    }
+
+    private RecordChangeDto change(int listId, int id, RecordView record) {
+        Map<RecordStatus, Long> counters = recordService.countRecordsByStatus(listId);
+        return new RecordChangeDto(id, record,
+                counters.getOrDefault(RecordStatus.DONE, 0L), counters.getOrDefault(RecordStatus.ACTIVE, 0L));
+    }
+
+    @RequestMapping(value = {"/make-records-done", "/lists/{listId}/make-records-done"}, method = RequestMethod.POST,
+            produces = "text/plain")
+    @ResponseBody
+    public Callable<String> makeRecordsDone(@PathVariable(name = "listId", required = false) Integer listId,
+                                            @RequestParam(name = "id") Set<Integer> ids) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> String.valueOf(recordService.updateRecordsStatus(list, ids, RecordStatus.DONE));
+    }
+
+    @RequestMapping(value = {"/delete-records", "/lists/{listId}/delete-records"}, method = RequestMethod.POST,
+            produces = "text/plain")
+    @ResponseBody
+    public Callable<String> deleteRecords(@PathVariable(name = "listId", required = false) Integer listId,
+                                          @RequestParam(name = "id") Set<Integer> ids) {
+        int list = listId == null ? TodoList.DEFAULT_ID : listId;
+        return () -> String.valueOf(recordService.deleteRecords(list, ids));
+    }
+
+    /**
+     * The lists, all or only those of {@code owner}, with links to their pages.
+     */
+    @RequestMapping(value = "/lists", method = RequestMethod.GET)
+    public Callable<String> getListsPage(Model model, @RequestParam(name = "owner", required = false) String owner) {
+        return () -> {
+            List<TodoList> lists = todoListService.findLists(owner);
+            model.addAttribute("lists", lists);
+            // The default list is linked as the home page, not among the others
+            model.addAttribute("defaultListId", TodoList.DEFAULT_ID);
+            return "lists-page";
+        };
+    }
+
+    @RequestMapping(value = "/lists", method = RequestMethod.POST)
+    public Callable<String> addList(@RequestParam String name,
+                                    @RequestParam(name = "owner", required = false) String owner) {
+        return () -> {
+            TodoList list = todoListService.createList(name, owner);
+            return "redirect:" + (list == null ? "/lists" : listPath(list.getId()));
+        };
     }
 
-    @RequestMapping(value = "/make-record-done", method = RequestMethod.POST)
-    public String makeRecordDone(@RequestParam int id,
-                                 @RequestParam(name = "filter", required = false) String filterMode) {
-        recordService.updateRecordStatus(id, RecordStatus.DONE);
-        return "redirect:/home" + (filterMode != null && !filterMode.trim().isEmpty() ? "?filter=" + filterMode : ""); 
+    static String listPath(int listId) {
+        return listId == TodoList.DEFAULT_ID ? "/home" : "/lists/" + listId;
     }
 
-    @RequestMapping(value = "/delete-record", method = RequestMethod.POST)
-    public String deleteRecord(@RequestParam int id
-            , @RequestParam(name = "filter", required = false) String filterMode) {
-        recordService.deleteRecordStatus(id);
-        return "redirect:/home" + (filterMode != null && !filterMode.trim().isEmpty() ? "?filter=" + filterMode : ""); 
+    /**
+     * Prefix of the add, done and delete actions of a list.
+     */
+    static String actionPath(int listId) {
+        return listId == TodoList.DEFAULT_ID ? "" : "/lists/" + listId;
     }
 }
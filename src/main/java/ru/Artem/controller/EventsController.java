@@ -0,0 +1,42 @@
+package ru.Artem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.Artem.entity.TodoList;
+import ru.Artem.events.RecordEventBroadcaster;
+import ru.Artem.service.TodoListService;
+
+@RestController
+public class EventsController {
+    private final RecordEventBroadcaster broadcaster;
+    private final TodoListService todoListService;
+
+    @Autowired
+    public EventsController(RecordEventBroadcaster broadcaster, TodoListService todoListService) {
+        this.broadcaster = broadcaster;
+        this.todoListService = todoListService;
+    }
+
+    /**
+     * Streams the changes of the list given as {@code ?list=}, the default list otherwise.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId) {
+        todoListService.requireList(listId);
+        SseEmitter emitter = broadcaster.subscribe(listId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                // Keeps nginx-style reverse proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+}
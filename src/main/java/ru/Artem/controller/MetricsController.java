@@ -0,0 +1,31 @@
+package ru.Artem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import ru.Artem.metrics.MetricsSource;
+import ru.Artem.metrics.MetricsWriter;
+
+import java.util.List;
+
+@Controller
+public class MetricsController {
+    private final List<MetricsSource> metricsSources;
+
+    @Autowired
+    public MetricsController(List<MetricsSource> metricsSources) {
+        this.metricsSources = metricsSources;
+    }
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET, produces = "text/plain; version=0.0.4; charset=UTF-8")
+    @ResponseBody
+    public String getMetrics() {
+        MetricsWriter writer = new MetricsWriter();
+        for (MetricsSource source : metricsSources) {
+            source.writeMetrics(writer);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package ru.Artem.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Work turned away because a bounded queue is full, e.g. a record creation while the write queue
+ * is saturated, is answered with 503 and a hint to retry instead of a 500.
+ */
+@ControllerAdvice
+public class OverloadExceptionHandler {
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+}
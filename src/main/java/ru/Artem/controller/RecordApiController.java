@@ -0,0 +1,215 @@
+package ru.Artem.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordRequest;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.entity.dto.RecordsContainerDto;
+import ru.Artem.service.RecordService;
+import ru.Artem.service.TodoListService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JSON API over the same records as the JSP pages. Listings are paged by id cursor like
+ * {@code /home}; {@code /api/records/export} writes every matching record as NDJSON while it is
+ * read, so neither the records nor the response body are ever held in memory as a whole.
+ * <p>
+ * Every request works on the list given as {@code ?list=}, the default list otherwise, and a single
+ * record is addressed by its list and id: a record of another list is not found. Listing, exporting
+ * or adding to a list that does not exist answers {@code 404}.
+ */
+@RestController
+@RequestMapping("/api/records")
+public class RecordApiController {
+    static final String NDJSON = "application/x-ndjson";
+
+    // One record per line; flushing after each one would send a network packet per record
+    private static final ObjectWriter EXPORT_WRITER = Jackson2ObjectMapperBuilder.json().build()
+            .writerFor(RecordView.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final RecordService recordService;
+    private final TodoListService todoListService;
+
+    @Value("${http.conditional-get.enabled:true}")
+    private boolean conditionalGetEnabled = true;
+
+    @Autowired
+    public RecordApiController(RecordService recordService, TodoListService todoListService) {
+        this.recordService = recordService;
+        this.todoListService = todoListService;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public RecordsContainerDto getRecords(@RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+                                          @RequestParam(name = "filter", required = false) String filterMode,
+                                          @RequestParam(name = "after", required = false) Integer afterId,
+                                          @RequestParam(name = "before", required = false) Integer beforeId,
+                                          @RequestParam(name = "limit", required = false) Integer limit,
+                                          @RequestParam(name = "q", required = false) String query,
+                                          ServletWebRequest webRequest) {
+        boolean search = query != null && !query.isBlank();
+        if (conditionalGetEnabled) {
+            String etag = search
+                    ? CommonController.pageETag(recordService.getDataVersion(listId), listId, filterMode, null, null, limit, query)
+                    : CommonController.pageETag(recordService.getDataVersion(listId), listId, filterMode, afterId, beforeId, limit, null);
+            webRequest.getResponse().setHeader("Cache-Control", "no-cache");
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+        }
+        todoListService.requireList(listId);
+        return search
+                ? recordService.searchRecords(listId, query, filterMode, limit)
+                : recordService.findRecordsPage(listId, filterMode, afterId, beforeId, limit);
+    }
+
+    /**
+     * The ETag is the record's version; sending it back in {@code If-Match} makes a PATCH conditional.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RecordView> getRecord(@RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+                                                @PathVariable int id) {
+        RecordView record = recordService.findRecord(listId, id);
+        return record == null
+                ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok().eTag(recordETag(record.getVersion())).body(record);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRecords(
+            @RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+            @RequestParam(name = "filter", required = false) String filterMode) {
+        todoListService.requireList(listId);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = EXPORT_WRITER.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                recordService.exportRecords(listId, filterMode, record -> {
+                    try {
+                        EXPORT_WRITER.writeValue(generator, record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeRaw('\n');
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("Cache-Control", "no-store")
+                .body(body);
+    }
+
+    /**
+     * Answers once the record is committed; with the write queue the request thread is released
+     * while the record waits for its group commit.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<RecordView>> createRecord(
+            @RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+            @RequestBody RecordRequest request) {
+        todoListService.requireList(listId);
+        return recordService.saveRecordAsync(listId, request.getTitle()).thenApply(record -> record == null
+                ? ResponseEntity.badRequest().build()
+                : ResponseEntity.created(recordUri(listId, record.getId()))
+                        .eTag(recordETag(record.getVersion())).body(record));
+    }
+
+    /**
+     * Idempotent: setting the status a record already has answers 204 as well. With an expected
+     * version, as {@code "version"} in the body or as the record's ETag in {@code If-Match}, the
+     * change is applied only if nobody changed the record since; otherwise the answer is 409 and the
+     * client re-reads the record before retrying.
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> updateRecordStatus(@RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+                                                   @PathVariable int id, @RequestBody RecordRequest request,
+                                                   @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (request.getStatus() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long expectedVersion = request.getVersion();
+        if (expectedVersion == null && ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseRecordETag(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        }
+        if (expectedVersion != null) {
+            Long version = recordService.updateRecordStatus(listId, id, request.getStatus(), expectedVersion);
+            return version == null ? ResponseEntity.notFound().build() : ResponseEntity.noContent().eTag(recordETag(version)).build();
+        }
+        if (!recordService.updateRecordStatus(listId, id, request.getStatus()) && recordService.findRecord(listId, id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleConflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    static URI recordUri(int listId, int id) {
+        return URI.create("/api/records/" + id + (listId == TodoList.DEFAULT_ID ? "" : "?list=" + listId));
+    }
+
+    static String recordETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * The version in an ETag written by {@link #recordETag}, or {@code null} for anything else.
+     */
+    static Long parseRecordETag(String etag) {
+        String value = etag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecord(@RequestParam(name = "list", defaultValue = "" + TodoList.DEFAULT_ID) int listId,
+                                             @PathVariable int id) {
+        return new ResponseEntity<>(recordService.deleteRecordStatus(listId, id) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+    }
+}
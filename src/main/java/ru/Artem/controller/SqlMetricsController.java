@@ -0,0 +1,48 @@
+package ru.Artem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import ru.Artem.metrics.LatencyHistogram;
+import ru.Artem.metrics.SqlStatementMetrics;
+
+import java.time.Instant;
+import java.util.Locale;
+
+@Controller
+public class SqlMetricsController {
+    private final SqlStatementMetrics sqlStatementMetrics;
+
+    @Autowired
+    public SqlMetricsController(SqlStatementMetrics sqlStatementMetrics) {
+        this.sqlStatementMetrics = sqlStatementMetrics;
+    }
+
+    /**
+     * Human-readable view of the statement timings: the most expensive shapes first, then the
+     * latest statements over the slow threshold.
+     */
+    @RequestMapping(value = "/metrics/sql", method = RequestMethod.GET, produces = "text/plain; charset=UTF-8")
+    @ResponseBody
+    public String getSqlMetrics() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "sample rate %.2f, slow threshold %d ms%n%n",
+                sqlStatementMetrics.getSampleRate(), sqlStatementMetrics.getSlowThresholdMillis()));
+        out.append(String.format(Locale.ROOT, "%10s %12s %10s %10s %10s %10s  %s%n",
+                "count", "total ms", "mean ms", "p95 ms", "max ms", "rows", "statement"));
+        for (SqlStatementMetrics.ShapeStats shape : sqlStatementMetrics.getShapes()) {
+            LatencyHistogram time = shape.getTime();
+            out.append(String.format(Locale.ROOT, "%10d %12.1f %10.2f %10.2f %10.2f %10d  %s%n",
+                    time.getCount(), time.getSumMillis(), time.getSumMillis() / Math.max(1, time.getCount()),
+                    time.getQuantileMillis(0.95), time.getMaxMillis(), shape.getRows(), shape.getShape()));
+        }
+        out.append(String.format("%nslow statements%n"));
+        for (SqlStatementMetrics.SlowStatement slow : sqlStatementMetrics.getSlowStatements()) {
+            out.append(String.format(Locale.ROOT, "%s %10.1f ms %8d rows  %s%n",
+                    Instant.ofEpochMilli(slow.timestamp()), slow.elapsedMillis(), slow.rows(), slow.shape()));
+        }
+        return out.toString();
+    }
+}
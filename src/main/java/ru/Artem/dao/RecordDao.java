@@ -1,33 +1,141 @@
 package ru.Artem.dao;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.Artem.entity.Record;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.search.RecordSearchIndex;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Repository
 public class RecordDao {
+    // Keeps IN lists well below driver bind-parameter limits and plan-cache blowup
+    static final int BULK_CHUNK_SIZE = 1000;
+    // Rows per round trip for listings; without it PgJDBC buffers the whole result in one go
+    static final int LISTING_FETCH_SIZE = 256;
+    // Exports read every row once, so fewer, larger round trips pay off while memory stays bounded
+    static final int EXPORT_FETCH_SIZE = 1000;
+    // Listings select only what the page shows, straight into immutable views instead of managed entities
+    private static final String VIEW = "new ru.Artem.entity.dto.RecordView(r.id, r.listId, r.title, r.status, r.version)";
+    // Must match the indexed expression of idx_records_title_fts for the planner to use it
+    private static final String TITLE_VECTOR = "to_tsvector('simple', r.title)";
 
     @PersistenceContext
     private EntityManager em;
 
-    public List<Record> getRecords() {
-        return em.createQuery("select r from Record r order by r.id", Record.class)
-                 .getResultList();
+    /**
+     * Every record of every list; for warming up the in-memory store and search index.
+     */
+    public List<RecordView> getRecords() {
+        return listingQuery("select " + VIEW + " from Record r order by r.id").getResultList();
     }
 
-    public List<Record> findAllRecords() {
+    public List<RecordView> findAllRecords() {
         return getRecords();
     }
 
-    public List<Record> getRecordsByStatus(RecordStatus status) {
-        return em.createQuery("select r from Record r where r.status = :st order by r.id", Record.class)
-                 .setParameter("st", status)
-                 .getResultList();
+    public RecordView findRecord(int listId, int id) {
+        return em.createQuery("select " + VIEW + " from Record r where r.listId = :list and r.id = :id", RecordView.class)
+                 .setParameter("list", listId)
+                 .setParameter("id", id)
+                 .getResultStream()
+                 .findFirst()
+                 .orElse(null);
+    }
+
+    /**
+     * Streams records in id order from a forward-only cursor instead of collecting them. The
+     * stream must be consumed and closed inside a transaction: outside one PgJDBC ignores the
+     * fetch size and reads the whole result into memory. Not query-cached for the same reason.
+     */
+    public Stream<RecordView> streamRecords(int listId, RecordStatus status) {
+        TypedQuery<RecordView> query = em.createQuery("select " + VIEW + " from Record r where r.listId = :list"
+                + (status != null ? " and r.status = :st" : "")
+                + " order by r.id", RecordView.class)
+                .setParameter("list", listId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (status != null) {
+            query.setParameter("st", status);
+        }
+        return query.getResultStream();
+    }
+
+    public Map<RecordStatus, Long> countRecordsByStatus(int listId) {
+        List<Object[]> rows = em.createQuery("select r.status, count(r) from Record r where r.listId = :list group by r.status",
+                        Object[].class)
+                .setParameter("list", listId)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList();
+        Map<RecordStatus, Long> counters = new EnumMap<>(RecordStatus.class);
+        for (RecordStatus status : RecordStatus.values()) {
+            counters.put(status, 0L);
+        }
+        for (Object[] row : rows) {
+            counters.put((RecordStatus) row[0], (Long) row[1]);
+        }
+        return counters;
+    }
+
+    public List<RecordView> getRecordsAfter(int listId, RecordStatus status, int afterId, int limit) {
+        return recordsAfterQuery(listingQuery(recordsAfter(status)), listId, status, afterId, limit).getResultList();
+    }
+
+    /**
+     * {@link #getRecordsAfter} for walking a whole list chunk by chunk: not query-cached, so a long
+     * list does not fill the query cache, and in a read-only transaction of its own per chunk.
+     */
+    @Transactional(readOnly = true)
+    public List<RecordView> scanRecordsAfter(int listId, RecordStatus status, int afterId, int limit) {
+        TypedQuery<RecordView> query = em.createQuery(recordsAfter(status), RecordView.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, LISTING_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        return recordsAfterQuery(query, listId, status, afterId, limit).getResultList();
+    }
+
+    private static String recordsAfter(RecordStatus status) {
+        return "select " + VIEW + " from Record r where r.listId = :list and r.id > :after"
+                + (status != null ? " and r.status = :st" : "")
+                + " order by r.id";
+    }
+
+    private static TypedQuery<RecordView> recordsAfterQuery(TypedQuery<RecordView> query, int listId, RecordStatus status,
+                                                            int afterId, int limit) {
+        query.setParameter("list", listId)
+             .setParameter("after", afterId)
+             .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("st", status);
+        }
+        return query;
+    }
+
+    public List<RecordView> getRecordsBefore(int listId, RecordStatus status, int beforeId, int limit) {
+        TypedQuery<RecordView> query = listingQuery("select " + VIEW + " from Record r where r.listId = :list and r.id < :before"
+                + (status != null ? " and r.status = :st" : "")
+                + " order by r.id desc")
+                .setParameter("list", listId)
+                .setParameter("before", beforeId)
+                .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("st", status);
+        }
+        List<RecordView> records = new ArrayList<>(query.getResultList());
+        Collections.reverse(records);
+        return records;
     }
 
     @Transactional
@@ -35,19 +143,151 @@ public class RecordDao {
         em.persist(record);
     }
 
+    /**
+     * Persists records in one transaction, flushing every {@link Record#ID_ALLOCATION_SIZE} rows so
+     * the inserts go out as JDBC batches and the persistence context stays small.
+     */
+    @Transactional
+    public void saveRecords(List<Record> records) {
+        for (int i = 0; i < records.size(); i++) {
+            em.persist(records.get(i));
+            if ((i + 1) % Record.ID_ALLOCATION_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+    }
+
+    /**
+     * Returns {@code false} when the list has no such record or it already has the requested
+     * status, in which case no row is written.
+     */
     @Transactional
-    public void updateRecordStatus(int id, RecordStatus newStatus){
-        Record r = em.find(Record.class, id);
-        if (r != null) {
-            r.setStatus(newStatus);
+    public boolean updateRecordStatus(int listId, int id, RecordStatus newStatus){
+        return em.createQuery("update Record r set r.status = :st, r.version = r.version + 1"
+                         + " where r.listId = :list and r.id = :id and r.status <> :st")
+                 .setParameter("st", newStatus)
+                 .setParameter("list", listId)
+                 .setParameter("id", id)
+                 .executeUpdate() > 0;
+    }
+
+    /**
+     * Compare-and-set on the version: the row is written only if it still has
+     * {@code expectedVersion}, in the same single statement, so no lock is held between reading a
+     * record and writing it. Returns {@code false} when there is no such record, its version has
+     * moved on, or it already has the requested status; the caller tells these apart.
+     */
+    @Transactional
+    public boolean updateRecordStatus(int listId, int id, RecordStatus newStatus, long expectedVersion) {
+        return em.createQuery("update Record r set r.status = :st, r.version = r.version + 1"
+                         + " where r.listId = :list and r.id = :id and r.version = :version and r.status <> :st")
+                 .setParameter("st", newStatus)
+                 .setParameter("list", listId)
+                 .setParameter("id", id)
+                 .setParameter("version", expectedVersion)
+                 .executeUpdate() > 0;
+    }
+
+    @Transactional
+    public boolean deleteRecord(int listId, int id){
+        return em.createQuery("delete from Record r where r.listId = :list and r.id = :id")
+                 .setParameter("list", listId)
+                 .setParameter("id", id)
+                 .executeUpdate() > 0;
+    }
+
+    @Transactional
+    public int updateRecordsStatus(int listId, Collection<Integer> ids, RecordStatus newStatus) {
+        int affected = 0;
+        for (List<Integer> chunk : chunks(ids)) {
+            affected += em.createQuery("update Record r set r.status = :st, r.version = r.version + 1"
+                            + " where r.listId = :list and r.id in :ids and r.status <> :st")
+                    .setParameter("st", newStatus)
+                    .setParameter("list", listId)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
         }
+        return affected;
     }
 
     @Transactional
-    public void deleteRecord(int id){
-        Record r = em.find(Record.class, id);
-        if (r != null) {
-            em.remove(r);
+    public int deleteRecords(int listId, Collection<Integer> ids) {
+        int affected = 0;
+        for (List<Integer> chunk : chunks(ids)) {
+            affected += em.createQuery("delete from Record r where r.listId = :list and r.id in :ids")
+                    .setParameter("list", listId)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        return affected;
+    }
+
+    /**
+     * PostgreSQL search over titles, ranked like {@code RecordSearchIndex}: records containing every
+     * query word as a whole word first, then as a word prefix, then as a substring (words of at
+     * least three characters), each group in id order. Word and prefix matches are answered by
+     * the {@code to_tsvector('simple', title)} GIN index, substrings by the {@code pg_trgm} one;
+     * both come from migration V4 (rebuilt on the partitioned table by V6).
+     */
+    public List<RecordView> searchRecords(int listId, String text, RecordStatus status, int limit) {
+        List<String> words = RecordSearchIndex.words(text);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean substrings = words.stream().allMatch(word -> word.length() >= RecordSearchIndex.MIN_INFIX_LENGTH);
+        StringBuilder sql = new StringBuilder("select r.id, r.list_id, r.title, r.status, r.version from records r where r.list_id = :list and (")
+                .append(TITLE_VECTOR).append(" @@ to_tsquery('simple', :prefixes)");
+        if (substrings) {
+            sql.append(" or (");
+            for (int i = 0; i < words.size(); i++) {
+                sql.append(i > 0 ? " and " : "").append("r.title ilike :substring").append(i);
+            }
+            sql.append(")");
+        }
+        sql.append(")");
+        if (status != null) {
+            sql.append(" and r.status = :st");
+        }
+        sql.append(" order by case when ").append(TITLE_VECTOR).append(" @@ to_tsquery('simple', :words) then 0 when ")
+           .append(TITLE_VECTOR).append(" @@ to_tsquery('simple', :prefixes) then 1 else 2 end, r.id");
+
+        // Words are runs of letters and digits, so they carry no tsquery or LIKE syntax of their own
+        Query query = em.createNativeQuery(sql.toString())
+                .setParameter("list", listId)
+                .setParameter("words", String.join(" & ", words))
+                .setParameter("prefixes", String.join(":* & ", words) + ":*")
+                .setMaxResults(limit);
+        if (substrings) {
+            for (int i = 0; i < words.size(); i++) {
+                query.setParameter("substring" + i, "%" + words.get(i) + "%");
+            }
+        }
+        if (status != null) {
+            query.setParameter("st", status.name());
+        }
+        List<RecordView> records = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            records.add(new RecordView(((Number) columns[0]).intValue(), ((Number) columns[1]).intValue(),
+                    (String) columns[2], RecordStatus.valueOf((String) columns[3]), ((Number) columns[4]).longValue()));
+        }
+        return records;
+    }
+
+    private TypedQuery<RecordView> listingQuery(String jpql) {
+        return em.createQuery(jpql, RecordView.class)
+                 .setHint(HibernateHints.HINT_FETCH_SIZE, LISTING_FETCH_SIZE)
+                 .setHint(HibernateHints.HINT_CACHEABLE, true);
+    }
+
+    private static List<List<Integer>> chunks(Collection<Integer> ids) {
+        List<Integer> source = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < source.size(); from += BULK_CHUNK_SIZE) {
+            chunks.add(source.subList(from, Math.min(from + BULK_CHUNK_SIZE, source.size())));
         }
+        return chunks;
     }
 }
@@ -0,0 +1,41 @@
+package ru.Artem.dao;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.Artem.entity.TodoList;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+
+@Repository
+public class TodoListDao {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public TodoList findList(int id) {
+        return em.find(TodoList.class, id);
+    }
+
+    /**
+     * Lists in id order, only those of {@code owner} unless it is {@code null}.
+     */
+    public List<TodoList> findLists(String owner) {
+        TypedQuery<TodoList> query = em.createQuery("select l from TodoList l"
+                + (owner != null ? " where l.owner = :owner" : "")
+                + " order by l.id", TodoList.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (owner != null) {
+            query.setParameter("owner", owner);
+        }
+        return query.getResultList();
+    }
+
+    @Transactional
+    public void saveList(TodoList list) {
+        em.persist(list);
+    }
+}
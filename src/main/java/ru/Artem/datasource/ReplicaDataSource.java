@@ -0,0 +1,122 @@
+package ru.Artem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to read replicas. Used as the read-only target of a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so only
+ * {@code @Transactional(readOnly = true)} work ends up here.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum LoadBalancing {
+        ROUND_ROBIN,
+        LEAST_LOADED;
+
+        public static LoadBalancing fromProperty(String value) {
+            return value == null ? ROUND_ROBIN : valueOf(value.trim().replace('-', '_').toUpperCase());
+        }
+    }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final LoadBalancing loadBalancing;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, LoadBalancing loadBalancing) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.loadBalancing = loadBalancing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReplicaRouting.isPrimaryPinned() || replicas.isEmpty()) {
+            return primary.getConnection();
+        }
+        int first = selectReplica();
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            DataSource replica = replicas.get((first + attempt) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                logger.warn("Replica unavailable, trying the next one: " + e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Not supported: replica pools, like the primary one, hold connections of the configured user.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close replica pool", e);
+                }
+            }
+        }
+    }
+
+    private int selectReplica() {
+        int roundRobin = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        if (loadBalancing != LoadBalancing.LEAST_LOADED) {
+            return roundRobin;
+        }
+        // Scanning from the round-robin position spreads ties instead of always favouring the first replica
+        int best = roundRobin;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (roundRobin + i) % replicas.size();
+            int load = load(replicas.get(candidate));
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private static int load(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                return pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Creates the replica pools only when {@code db.replica.urls} names at least one replica.
+     */
+    public static class EnabledCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String urls = context.getEnvironment().getProperty("db.replica.urls", "");
+            return !urls.replace(",", "").isBlank();
+        }
+    }
+}
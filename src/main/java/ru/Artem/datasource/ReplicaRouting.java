@@ -0,0 +1,24 @@
+package ru.Artem.datasource;
+
+/**
+ * Per-thread switch that sends reads to the primary, e.g. right after the client changed data
+ * and must not observe a replica that has not caught up yet.
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static void pinToPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryPinned() {
+        return PRIMARY_PINNED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_PINNED.remove();
+    }
+}
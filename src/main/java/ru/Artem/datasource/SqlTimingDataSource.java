@@ -0,0 +1,213 @@
+package ru.Artem.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.Artem.metrics.SqlStatementMetrics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times statements executed through the target data source and reports them to
+ * {@link SqlStatementMetrics}. For queries the time includes fetching rows with
+ * {@link ResultSet#next()}, but not the caller's work between fetches; the sample is recorded when
+ * the result set or its statement is closed. A statement that is not sampled costs a proxy call
+ * and one random draw.
+ */
+public class SqlTimingDataSource extends DelegatingDataSource {
+    private final SqlStatementMetrics metrics;
+
+    public SqlTimingDataSource(DataSource targetDataSource, SqlStatementMetrics metrics) {
+        super(targetDataSource);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    /**
+     * Identity is the proxy's own: Hibernate keeps statements and result sets in hash-based
+     * registries and must find the same proxy it was handed.
+     */
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTimingDataSource.invoke(proxy, target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+        private QueryTiming openQuery;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                finishQuery();
+                return SqlTimingDataSource.invoke(proxy, target, method, args);
+            }
+            if (name.equals("addBatch") && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                return SqlTimingDataSource.invoke(proxy, target, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                    : preparedSql != null ? preparedSql : batchSql;
+            if (sql == null || !metrics.shouldSample()) {
+                return SqlTimingDataSource.invoke(proxy, target, method, args);
+            }
+            finishQuery();
+            long started = System.nanoTime();
+            Object result = SqlTimingDataSource.invoke(proxy, target, method, args);
+            long elapsed = System.nanoTime() - started;
+
+            if (result instanceof ResultSet resultSet) {
+                openQuery = new QueryTiming(sql, elapsed);
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler(resultSet, openQuery));
+            }
+            metrics.record(sql, elapsed, affectedRows(result));
+            return result;
+        }
+
+        private long affectedRows(Object result) throws SQLException {
+            if (result instanceof Number count) {
+                return count.longValue();
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (result instanceof long[] counts) {
+                long total = 0;
+                for (long count : counts) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (Boolean.FALSE.equals(result)) {
+                return Math.max(0, target.getUpdateCount());
+            }
+            return 0;
+        }
+
+        private void finishQuery() {
+            if (openQuery != null) {
+                openQuery.finish();
+                openQuery = null;
+            }
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final QueryTiming timing;
+
+        ResultSetHandler(ResultSet target, QueryTiming timing) {
+            this.target = target;
+            this.timing = timing;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    long started = System.nanoTime();
+                    Object result = SqlTimingDataSource.invoke(proxy, target, method, args);
+                    timing.elapsedNanos += System.nanoTime() - started;
+                    if (Boolean.TRUE.equals(result)) {
+                        timing.rows++;
+                    }
+                    return result;
+                }
+                case "close" -> {
+                    timing.finish();
+                    return SqlTimingDataSource.invoke(proxy, target, method, args);
+                }
+                default -> {
+                    return SqlTimingDataSource.invoke(proxy, target, method, args);
+                }
+            }
+        }
+    }
+
+    private class QueryTiming {
+        private final String sql;
+        private long elapsedNanos;
+        private long rows;
+        private boolean finished;
+
+        QueryTiming(String sql, long elapsedNanos) {
+            this.sql = sql;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                metrics.record(sql, elapsedNanos, rows);
+            }
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package ru.Artem.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "records")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "records", indexes = {
+        // Serves "where list_id = ? and status = ? and id > ? order by id" as a single index range scan
+        @Index(name = "idx_records_list_status_id", columnList = "list_id, status, id")
+})
 public class Record {
+    public static final int ID_ALLOCATION_SIZE = 50;
 
+    // A pooled sequence hands out ids in blocks, so inserts no longer have to run one by one
+    // to read back a generated key and Hibernate can batch them
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "records_seq")
+    @SequenceGenerator(name = "records_seq", sequenceName = "records_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
 
+    // The partition key of the records table (see V6), so every list-scoped query names it
+    @Column(name="list_id", nullable=false)
+    private int listId = TodoList.DEFAULT_ID;
+
     @Column(name="title", nullable=false)
     private String title;
 
@@ -17,11 +32,21 @@ public class Record {
     @Column(nullable=false)
     private RecordStatus status = RecordStatus.ACTIVE;
 
+    // Bumped by every change, so a write based on a stale read can be detected instead of applied
+    @Version
+    @Column(nullable=false)
+    private long version;
+
     // Default constructor for JPA
     public Record() {
     }
     
     public Record(String title) {
+        this(TodoList.DEFAULT_ID, title);
+    }
+
+    public Record(int listId, String title) {
+        this.listId = listId;
         this.title = title;
         this.status = RecordStatus.ACTIVE;
     }
@@ -31,6 +56,10 @@ public class Record {
         return id == null ? 0 : id;
     }
 
+    public int getListId() {
+        return listId;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -42,4 +71,8 @@ public class Record {
     public void setStatus(RecordStatus status) {
         this.status = status;
     }
+
+    public long getVersion() {
+        return version;
+    }
 }
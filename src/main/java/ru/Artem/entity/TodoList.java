@@ -0,0 +1,51 @@
+package ru.Artem.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A named list of records. Records reference their list by id only ({@link Record#getListId()}),
+ * so listing a list's records never joins this table.
+ */
+@Entity
+@Table(name = "lists", indexes = {
+        @Index(name = "idx_lists_owner", columnList = "owner")
+})
+public class TodoList {
+    /**
+     * The list every record belonged to before there were lists; {@code /home} shows it.
+     */
+    public static final int DEFAULT_ID = 1;
+
+    // Starts after the default list, which migration V6 creates with a fixed id
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lists_seq")
+    @SequenceGenerator(name = "lists_seq", sequenceName = "lists_seq", initialValue = 2, allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "owner")
+    private String owner;
+
+    // Default constructor for JPA
+    public TodoList() {
+    }
+
+    public TodoList(String name, String owner) {
+        this.name = name;
+        this.owner = owner;
+    }
+
+    public int getId() {
+        return id == null ? 0 : id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+}
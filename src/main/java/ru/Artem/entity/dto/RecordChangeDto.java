@@ -0,0 +1,35 @@
+package ru.Artem.entity.dto;
+
+/**
+ * Answer to an in-place mutation from the main page: the affected record, or only its id when it
+ * was deleted, and the counters after the change.
+ */
+public class RecordChangeDto {
+    private final int id;
+    private final RecordView record;
+    private final long numberOfDoneRecords;
+    private final long numberOfActiveRecords;
+
+    public RecordChangeDto(int id, RecordView record, long numberOfDoneRecords, long numberOfActiveRecords) {
+        this.id = id;
+        this.record = record;
+        this.numberOfDoneRecords = numberOfDoneRecords;
+        this.numberOfActiveRecords = numberOfActiveRecords;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public RecordView getRecord() {
+        return record;
+    }
+
+    public long getNumberOfDoneRecords() {
+        return numberOfDoneRecords;
+    }
+
+    public long getNumberOfActiveRecords() {
+        return numberOfActiveRecords;
+    }
+}
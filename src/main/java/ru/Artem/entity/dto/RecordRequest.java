@@ -0,0 +1,45 @@
+package ru.Artem.entity.dto;
+
+import ru.Artem.entity.RecordStatus;
+
+/**
+ * JSON body of the records API: {@code title} when creating a record, {@code status} when
+ * changing one, optionally with the {@code version} the change was based on.
+ */
+public class RecordRequest {
+    private String title;
+    private RecordStatus status;
+    private Long version;
+
+    public RecordRequest() {
+    }
+
+    public RecordRequest(String title, RecordStatus status) {
+        this.title = title;
+        this.status = status;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public RecordStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RecordStatus status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.Artem.entity.dto;
+
+import ru.Artem.entity.Record;
+import ru.Artem.entity.RecordStatus;
+
+/**
+ * Immutable row of the records listing. Listing queries build it with a JPQL constructor
+ * expression, so no managed entity, dirty-checking snapshot or persistence-context entry is created.
+ */
+public final class RecordView {
+    private final int id;
+    private final int listId;
+    private final String title;
+    private final RecordStatus status;
+    private final long version;
+
+    public RecordView(int id, int listId, String title, RecordStatus status, long version) {
+        this.id = id;
+        this.listId = listId;
+        this.title = title;
+        this.status = status;
+        this.version = version;
+    }
+
+    public static RecordView of(Record record) {
+        return new RecordView(record.getId(), record.getListId(), record.getTitle(), record.getStatus(), record.getVersion());
+    }
+
+    /**
+     * The database bumps the version only when the status actually changes, and so does this.
+     */
+    public RecordView withStatus(RecordStatus newStatus) {
+        return newStatus == status ? this : new RecordView(id, listId, title, newStatus, version + 1);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getListId() {
+        return listId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public RecordStatus getStatus() {
+        return status;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
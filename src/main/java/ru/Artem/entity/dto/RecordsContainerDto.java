@@ -1,21 +1,28 @@
 package ru.Artem.entity.dto;
 
-import ru.Artem.entity.Record;
-
 import java.util.List;
 
 public class RecordsContainerDto {
-    private final List<Record> records;
+    private final List<RecordView> records;
     private final int numberOfDoneRecords;
     private final int numberOfActiveRecords;
+    private final Integer previousCursor;
+    private final Integer nextCursor;
+
+    public RecordsContainerDto(List<RecordView> records, int numberOfDoneRecords, int numberOfActiveRecords) {
+        this(records, numberOfDoneRecords, numberOfActiveRecords, null, null);
+    }
 
-    public RecordsContainerDto(List<Record> records, int numberOfDoneRecords, int numberOfActiveRecords) {
+    public RecordsContainerDto(List<RecordView> records, int numberOfDoneRecords, int numberOfActiveRecords,
+                               Integer previousCursor, Integer nextCursor) {
         this.records = records;
         this.numberOfDoneRecords = numberOfDoneRecords;
         this.numberOfActiveRecords = numberOfActiveRecords;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
     }
 
-    public List<Record> getRecords() {
+    public List<RecordView> getRecords() {
         return records;
     }
 
@@ -26,4 +33,18 @@ public class RecordsContainerDto {
     public int getNumberOfActiveRecords() {
         return numberOfActiveRecords;
     }
+
+    /**
+     * Id to pass as {@code before} to get the preceding page, or {@code null} on the first page.
+     */
+    public Integer getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * Id to pass as {@code after} to get the following page, or {@code null} on the last page.
+     */
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
 }
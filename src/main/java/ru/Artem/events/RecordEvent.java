@@ -0,0 +1,39 @@
+package ru.Artem.events;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One committed change, as pushed to {@code /events} subscribers: the list it happened in, the
+ * records created, or the ids whose status changed or that were deleted, plus the list's counters
+ * and the data version after the change. Bulk operations produce a single event.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RecordEvent(Type type, int listId, List<RecordView> records, Collection<Integer> ids, RecordStatus status,
+                          long done, long active, long version) {
+
+    public enum Type {
+        CREATED, STATUS_CHANGED, DELETED
+    }
+
+    public static RecordEvent created(int listId, List<RecordView> records, Map<RecordStatus, Long> counters, long version) {
+        return new RecordEvent(Type.CREATED, listId, records, null, null,
+                counters.getOrDefault(RecordStatus.DONE, 0L), counters.getOrDefault(RecordStatus.ACTIVE, 0L), version);
+    }
+
+    public static RecordEvent statusChanged(int listId, Collection<Integer> ids, RecordStatus status,
+                                            Map<RecordStatus, Long> counters, long version) {
+        return new RecordEvent(Type.STATUS_CHANGED, listId, null, ids, status,
+                counters.getOrDefault(RecordStatus.DONE, 0L), counters.getOrDefault(RecordStatus.ACTIVE, 0L), version);
+    }
+
+    public static RecordEvent deleted(int listId, Collection<Integer> ids, Map<RecordStatus, Long> counters, long version) {
+        return new RecordEvent(Type.DELETED, listId, null, ids, null,
+                counters.getOrDefault(RecordStatus.DONE, 0L), counters.getOrDefault(RecordStatus.ACTIVE, 0L), version);
+    }
+}
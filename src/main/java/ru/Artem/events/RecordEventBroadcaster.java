@@ -0,0 +1,252 @@
+package ru.Artem.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.Artem.metrics.MetricsSource;
+import ru.Artem.metrics.MetricsWriter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fans {@link RecordEvent}s out to {@code /events} subscribers. An idle subscriber is only an open
+ * async response, so thousands of them hold no threads; pending events are written by a virtual
+ * thread per busy subscriber, so a client stalled on a TCP write holds up nobody else.
+ * <p>
+ * Subscribers are kept per list and an event only reaches those of the list it happened in, so a
+ * change costs nothing for the subscribers of other lists. The subscriber limit is shared.
+ * <p>
+ * Each event is serialized once and queued per subscriber in a bounded buffer. A subscriber whose
+ * buffer is full, or whose write has been blocked for longer than the write timeout, is
+ * disconnected instead of slowing down publishers or other subscribers; the browser reconnects and
+ * reloads the page to catch up.
+ */
+public class RecordEventBroadcaster implements MetricsSource, AutoCloseable {
+    static final String EVENT_NAME = "records";
+    // Identity-compared marker for the keep-alive comment, also the first message of each stream
+    private static final String HEARTBEAT = new String("heartbeat");
+    private static final ObjectWriter JSON = Jackson2ObjectMapperBuilder.json().build().writerFor(RecordEvent.class);
+
+    // A list's entry exists only while it has subscribers
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Reserved before a subscriber is added, so concurrent subscribes cannot overshoot the limit
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService timers;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public RecordEventBroadcaster(int bufferSize, long writeTimeoutMillis, long heartbeatMillis, long timeoutMillis,
+                                  int maxSubscribers) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-sender-", 1).factory());
+        this.timers = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-timer-"));
+        timers.scheduleAtFixedRate(() -> forEachSubscriber(subscriber -> offer(subscriber, HEARTBEAT)),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(writeTimeoutMillis / 2, 1);
+        timers.scheduleAtFixedRate(this::dropStalledSubscribers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribes to the changes of one list. Returns {@code null} when {@code maxSubscribers} streams
+     * are already open.
+     */
+    public SseEmitter subscribe(int listId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        return register(listId, emitter) ? emitter : null;
+    }
+
+    boolean register(int listId, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return false;
+        }
+        Subscriber subscriber = new Subscriber(listId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        // Added and removed under the entry's lock, so a list's set is never dropped while one is added to it
+        subscribers.compute(listId, (id, listSubscribers) -> {
+            Set<Subscriber> set = listSubscribers != null ? listSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        offer(subscriber, HEARTBEAT);
+        return true;
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.listId, (id, listSubscribers) -> {
+            removed[0] = listSubscribers.remove(subscriber);
+            return listSubscribers.isEmpty() ? null : listSubscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Lets publishers skip building events of a list, e.g. counting its records, while nobody listens to it.
+     */
+    public boolean hasSubscribers(int listId) {
+        return subscribers.containsKey(listId);
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public void publish(RecordEvent event) {
+        Set<Subscriber> listSubscribers = subscribers.get(event.listId());
+        if (listSubscribers == null) {
+            return;
+        }
+        String data;
+        try {
+            data = JSON.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.type() + " event", e);
+        }
+        published.incrementAndGet();
+        listSubscribers.forEach(subscriber -> offer(subscriber, data));
+    }
+
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        subscribers.values().forEach(listSubscribers -> listSubscribers.forEach(action));
+    }
+
+    private void offer(Subscriber subscriber, String message) {
+        if (!subscriber.queue.offer(message)) {
+            // Too slow to keep up: completing it from a sender thread never blocks the publisher
+            if (remove(subscriber)) {
+                dropped.incrementAndGet();
+                subscriber.closed = true;
+            }
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        subscriber.sender = Thread.currentThread();
+        try {
+            String message;
+            while (!subscriber.closed && (message = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedNanos = System.nanoTime();
+                subscriber.emitter.send(message == HEARTBEAT
+                        ? SseEmitter.event().comment("")
+                        : SseEmitter.event().name(EVENT_NAME).data(message));
+                subscriber.sendStartedNanos = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, the stream already completed or the write timed out
+            remove(subscriber);
+            subscriber.closed = true;
+        } finally {
+            subscriber.sendStartedNanos = 0;
+            subscriber.sender = null;
+            subscriber.draining.set(false);
+        }
+        if (subscriber.closed) {
+            subscriber.queue.clear();
+            if (subscriber.completed.compareAndSet(false, true)) {
+                subscriber.emitter.complete();
+            }
+        } else if (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * A client that stops reading blocks its sender in a socket write; it is dropped like a full
+     * buffer, and the blocked write is interrupted (the container's own write timeout still applies
+     * to a write that ignores the interrupt).
+     */
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        forEachSubscriber(subscriber -> {
+            long started = subscriber.sendStartedNanos;
+            if (started != 0 && now - started > writeTimeoutNanos && remove(subscriber)) {
+                dropped.incrementAndGet();
+                subscriber.closed = true;
+                Thread sender = subscriber.sender;
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.gauge("sse_subscribers", "Open /events streams", subscriberCount.get())
+              .counter("sse_events_published_total", "Change events published to at least one subscriber", published.get())
+              .counter("sse_subscribers_dropped_total",
+                      "Subscribers disconnected because their buffer was full or a write timed out", dropped.get());
+    }
+
+    @Override
+    public void close() {
+        timers.shutdownNow();
+        senders.shutdownNow();
+        forEachSubscriber(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        subscriberCount.set(0);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        final int listId;
+        final SseEmitter emitter;
+        final BlockingQueue<String> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile boolean closed;
+        // Non-zero while a send is in progress, for the write timeout
+        volatile long sendStartedNanos;
+        volatile Thread sender;
+
+        Subscriber(int listId, SseEmitter emitter, BlockingQueue<String> queue) {
+            this.listId = listId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.Artem.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, MetricsSource {
+    private final Map<String, PoolTracker> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    public PoolTracker getPool(String poolName) {
+        return pools.get(poolName);
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        if (pools.isEmpty()) {
+            return;
+        }
+        writer.header("db_pool_connections_active", "Connections currently in use", "gauge");
+        pools.forEach((name, pool) -> writer.sample("db_pool_connections_active", MetricsWriter.label("pool", name), pool.stats.getActiveConnections()));
+        writer.header("db_pool_connections_idle", "Connections idle in the pool", "gauge");
+        pools.forEach((name, pool) -> writer.sample("db_pool_connections_idle", MetricsWriter.label("pool", name), pool.stats.getIdleConnections()));
+        writer.header("db_pool_connections_pending", "Threads waiting to acquire a connection", "gauge");
+        pools.forEach((name, pool) -> writer.sample("db_pool_connections_pending", MetricsWriter.label("pool", name), pool.stats.getPendingThreads()));
+        writer.header("db_pool_connections_max", "Maximum pool size", "gauge");
+        pools.forEach((name, pool) -> writer.sample("db_pool_connections_max", MetricsWriter.label("pool", name), pool.stats.getMaxConnections()));
+        writer.header("db_pool_acquire_timeouts_total", "Acquire attempts that timed out", "counter");
+        pools.forEach((name, pool) -> writer.sample("db_pool_acquire_timeouts_total", MetricsWriter.label("pool", name), pool.timeouts.sum()));
+        writer.header("db_pool_acquire_seconds", "Time spent waiting for a connection", "histogram");
+        pools.forEach((name, pool) -> writer.histogramSamples("db_pool_acquire_seconds", MetricsWriter.label("pool", name), pool.acquireTime));
+        writer.header("db_pool_usage_seconds", "Time a connection was held before being returned", "histogram");
+        pools.forEach((name, pool) -> writer.histogramSamples("db_pool_usage_seconds", MetricsWriter.label("pool", name), pool.usageTime));
+        writer.header("db_pool_creation_seconds", "Time to open a new physical connection", "histogram");
+        pools.forEach((name, pool) -> writer.histogramSamples("db_pool_creation_seconds", MetricsWriter.label("pool", name), pool.creationTime));
+    }
+
+    public static class PoolTracker implements IMetricsTracker {
+        private final PoolStats stats;
+        private final LatencyHistogram acquireTime = new LatencyHistogram();
+        private final LatencyHistogram usageTime = new LatencyHistogram();
+        private final LatencyHistogram creationTime = new LatencyHistogram();
+        private final LongAdder timeouts = new LongAdder();
+
+        PoolTracker(PoolStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            creationTime.record(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireTime.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageTime.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        public PoolStats getStats() {
+            return stats;
+        }
+
+        public LatencyHistogram getAcquireTime() {
+            return acquireTime;
+        }
+
+        public LatencyHistogram getUsageTime() {
+            return usageTime;
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.Artem.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+public class HibernateCacheMetrics implements MetricsSource {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+
+        writer.header("hibernate_cache_hits_total", "Second-level cache hits per region", "counter");
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                writer.sample("hibernate_cache_hits_total", MetricsWriter.label("region", region), regionStatistics.getHitCount());
+            }
+        }
+        writer.header("hibernate_cache_misses_total", "Second-level cache misses per region", "counter");
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                writer.sample("hibernate_cache_misses_total", MetricsWriter.label("region", region), regionStatistics.getMissCount());
+            }
+        }
+        writer.header("hibernate_cache_puts_total", "Second-level cache puts per region", "counter");
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics != null) {
+                writer.sample("hibernate_cache_puts_total", MetricsWriter.label("region", region), regionStatistics.getPutCount());
+            }
+        }
+        writer.counter("hibernate_query_cache_hits_total", "Query cache hits", statistics.getQueryCacheHitCount());
+        writer.counter("hibernate_query_cache_misses_total", "Query cache misses", statistics.getQueryCacheMissCount());
+        writer.counter("hibernate_query_executions_total", "Queries executed against the database", statistics.getQueryExecutionCount());
+    }
+}
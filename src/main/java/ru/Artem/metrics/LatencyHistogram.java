@@ -0,0 +1,98 @@
+package ru.Artem.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    private static final double[] DEFAULT_BOUNDS_MILLIS = {
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+    };
+
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_MILLIS);
+    }
+
+    public LatencyHistogram(double[] boundsMillis) {
+        this.boundsNanos = new long[boundsMillis.length];
+        for (int i = 0; i < boundsMillis.length; i++) {
+            boundsNanos[i] = (long) (boundsMillis[i] * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        this.buckets = new LongAdder[boundsMillis.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int i = 0;
+        while (i < boundsNanos.length && value > boundsNanos[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumMillis() {
+        return toMillis(sumNanos.sum());
+    }
+
+    public double getMaxMillis() {
+        return toMillis(maxNanos.get());
+    }
+
+    public int getBucketCount() {
+        return boundsNanos.length;
+    }
+
+    public double getBucketBoundMillis(int bucket) {
+        return toMillis(boundsNanos[bucket]);
+    }
+
+    /**
+     * Number of recorded values less than or equal to the bound of the given bucket.
+     */
+    public long getCumulativeCount(int bucket) {
+        long total = 0;
+        for (int i = 0; i <= bucket; i++) {
+            total += buckets[i].sum();
+        }
+        return total;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile; the max value for the overflow bucket.
+     */
+    public double getQuantileMillis(double quantile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < boundsNanos.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return toMillis(boundsNanos[i]);
+            }
+        }
+        return getMaxMillis();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
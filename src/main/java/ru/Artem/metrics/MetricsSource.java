@@ -0,0 +1,6 @@
+package ru.Artem.metrics;
+
+public interface MetricsSource {
+
+    void writeMetrics(MetricsWriter writer);
+}
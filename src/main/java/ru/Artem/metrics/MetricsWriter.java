@@ -0,0 +1,72 @@
+package ru.Artem.metrics;
+
+import java.util.Locale;
+
+/**
+ * Renders metrics in the Prometheus text exposition format.
+ */
+public class MetricsWriter {
+    private final StringBuilder out = new StringBuilder();
+
+    public MetricsWriter gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        sample(name, "", value);
+        return this;
+    }
+
+    public MetricsWriter counter(String name, String help, double value) {
+        header(name, help, "counter");
+        sample(name, "", value);
+        return this;
+    }
+
+    public MetricsWriter histogram(String name, String help, LatencyHistogram histogram) {
+        header(name, help, "histogram");
+        histogramSamples(name, "", histogram);
+        return this;
+    }
+
+    public MetricsWriter header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public MetricsWriter sample(String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    public MetricsWriter histogramSamples(String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            sample(name + "_bucket", prefix + "le=\"" + format(histogram.getBucketBoundMillis(i) / 1000) + "\"",
+                    histogram.getCumulativeCount(i));
+        }
+        sample(name + "_bucket", prefix + "le=\"+Inf\"", histogram.getCount());
+        sample(name + "_sum", labels, histogram.getSumMillis() / 1000);
+        sample(name + "_count", labels, histogram.getCount());
+        return this;
+    }
+
+    public static String label(String name, String value) {
+        String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return name + "=\"" + escaped + "\"";
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%s", value);
+    }
+}
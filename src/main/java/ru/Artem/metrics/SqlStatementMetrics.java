@@ -0,0 +1,158 @@
+package ru.Artem.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Execution time and row count per statement shape, plus the most recent statements slower than a
+ * threshold. Only a configurable fraction of executions is timed; shapes are capped so that SQL
+ * built with literals cannot grow the map without bound.
+ */
+public class SqlStatementMetrics implements MetricsSource {
+    static final String OTHER_SHAPE = "other";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Deque<SlowStatement> slowStatements = new ArrayDeque<>();
+    private final int maxShapes;
+    private final int slowStatementCapacity;
+    private volatile double sampleRate;
+    private volatile long slowThresholdNanos;
+
+    public SqlStatementMetrics(double sampleRate, long slowThresholdMillis, int maxShapes, int slowStatementCapacity) {
+        this.maxShapes = maxShapes;
+        this.slowStatementCapacity = slowStatementCapacity;
+        setSampleRate(sampleRate);
+        setSlowThresholdMillis(slowThresholdMillis);
+    }
+
+    public boolean shouldSample() {
+        double rate = sampleRate;
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public void record(String sql, long elapsedNanos, long rows) {
+        String shape = shape(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            stats = shapes.size() < maxShapes
+                    ? shapes.computeIfAbsent(shape, ShapeStats::new)
+                    : shapes.computeIfAbsent(OTHER_SHAPE, ShapeStats::new);
+        }
+        stats.time.record(elapsedNanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            synchronized (slowStatements) {
+                if (slowStatements.size() == slowStatementCapacity) {
+                    slowStatements.removeFirst();
+                }
+                slowStatements.addLast(new SlowStatement(shape, elapsedNanos / 1e6, rows, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Normalizes SQL so executions that differ only in literals, whitespace or the length of an
+     * {@code IN (?, ?, ...)} list count as one statement.
+     */
+    public static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * Shapes ordered by total time spent, most expensive first.
+     */
+    public List<ShapeStats> getShapes() {
+        List<ShapeStats> result = new ArrayList<>(shapes.values());
+        result.sort(Comparator.comparingDouble((ShapeStats stats) -> stats.time.getSumMillis()).reversed());
+        return result;
+    }
+
+    /**
+     * Recent slow statements, newest first.
+     */
+    public List<SlowStatement> getSlowStatements() {
+        synchronized (slowStatements) {
+            List<SlowStatement> result = new ArrayList<>(slowStatements);
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        List<ShapeStats> stats = getShapes();
+        if (stats.isEmpty()) {
+            return;
+        }
+        writer.header("db_statement_seconds", "Sampled statement execution time per statement shape", "histogram");
+        for (ShapeStats shape : stats) {
+            writer.histogramSamples("db_statement_seconds", MetricsWriter.label("statement", shape.shape), shape.time);
+        }
+        writer.header("db_statement_rows_total", "Rows read or written by sampled statements", "counter");
+        for (ShapeStats shape : stats) {
+            writer.sample("db_statement_rows_total", MetricsWriter.label("statement", shape.shape), shape.rows.sum());
+        }
+        writer.gauge("db_statement_sample_rate", "Fraction of statements that are timed", sampleRate);
+    }
+
+    public static class ShapeStats {
+        private final String shape;
+        private final LatencyHistogram time = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+
+        ShapeStats(String shape) {
+            this.shape = shape;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public LatencyHistogram getTime() {
+            return time;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+    }
+
+    public record SlowStatement(String shape, double elapsedMillis, long rows, long timestamp) {
+    }
+}
@@ -0,0 +1,224 @@
+package ru.Artem.migration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies ordered {@code V<version>__<description>.sql} scripts once each and records them, with
+ * a checksum, in {@value #HISTORY_TABLE}. Editing a script after it was applied fails startup.
+ * <p>
+ * A script starting with {@value #NO_TRANSACTION_DIRECTIVE} runs in auto-commit mode, which
+ * statements such as {@code CREATE INDEX CONCURRENTLY} require. Every other script runs in its own
+ * transaction together with its history row.
+ */
+public class SchemaMigrator {
+    static final String HISTORY_TABLE = "schema_version";
+    static final String NO_TRANSACTION_DIRECTIVE = "-- migration:no-transaction";
+
+    private static final Log logger = LogFactory.getLog(SchemaMigrator.class);
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final long POSTGRES_LOCK_KEY = 0x746f646f6c697374L;
+
+    public enum Mode {
+        /** Apply pending scripts. */
+        MIGRATE,
+        /** Only check that every script is applied and unchanged; never touch the schema. */
+        VALIDATE,
+        NONE;
+
+        public static Mode fromProperty(String value) {
+            return value == null ? MIGRATE : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private final DataSource dataSource;
+    private final String location;
+    private final Mode mode;
+
+    public SchemaMigrator(DataSource dataSource, String location, Mode mode) {
+        this.dataSource = dataSource;
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.mode = mode;
+    }
+
+    public void migrate() {
+        if (mode == Mode.NONE) {
+            return;
+        }
+        List<Migration> migrations = loadMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = isPostgres(connection);
+            if (postgres) {
+                execute(connection, "select pg_advisory_lock(" + POSTGRES_LOCK_KEY + ")");
+            }
+            try {
+                run(connection, migrations);
+            } finally {
+                if (postgres) {
+                    execute(connection, "select pg_advisory_unlock(" + POSTGRES_LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed", e);
+        }
+    }
+
+    List<Migration> loadMigrations() {
+        Map<Integer, Migration> byVersion = new TreeMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location + "V*__*.sql")) {
+                Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Unexpected migration script name: " + resource.getFilename());
+                }
+                String script = resource.getContentAsString(StandardCharsets.UTF_8);
+                Migration migration = new Migration(Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '), resource, checksum(script),
+                        script.startsWith(NO_TRANSACTION_DIRECTIVE));
+                Migration duplicate = byVersion.put(migration.version(), migration);
+                if (duplicate != null) {
+                    throw new IllegalStateException("Duplicate migration version " + migration.version());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read migration scripts from " + location, e);
+        }
+        return new ArrayList<>(byVersion.values());
+    }
+
+    private void run(Connection connection, List<Migration> migrations) throws SQLException {
+        if (!historyTableExists(connection)) {
+            if (mode == Mode.VALIDATE) {
+                throw new IllegalStateException("Schema is not versioned yet: table " + HISTORY_TABLE + " is missing");
+            }
+            execute(connection, "create table " + HISTORY_TABLE + " (version integer primary key, "
+                    + "description varchar(200) not null, checksum varchar(64) not null, "
+                    + "applied_at timestamp not null, execution_ms bigint not null)");
+        }
+
+        Map<Integer, String> unknown = appliedChecksums(connection);
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            String checksum = unknown.remove(migration.version());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (!checksum.equals(migration.checksum())) {
+                throw new IllegalStateException("Migration V" + migration.version() + " (" + migration.description()
+                        + ") was changed after it had been applied");
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalStateException("Database has migrations " + unknown.keySet() + " that are unknown to this build");
+        }
+
+        if (mode == Mode.VALIDATE) {
+            if (!pending.isEmpty()) {
+                throw new IllegalStateException("Pending migrations in validate mode: V" + pending.get(0).version()
+                        + (pending.size() > 1 ? " and " + (pending.size() - 1) + " more" : ""));
+            }
+            return;
+        }
+        for (Migration migration : pending) {
+            apply(connection, migration);
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("Applying migration V" + migration.version() + " (" + migration.description() + ")");
+        long started = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(migration.noTransaction());
+        try {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+            try (PreparedStatement insert = connection.prepareStatement("insert into " + HISTORY_TABLE
+                    + " (version, description, checksum, applied_at, execution_ms) values (?, ?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setString(3, migration.checksum());
+                insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                insert.setLong(5, (System.nanoTime() - started) / 1_000_000);
+                insert.executeUpdate();
+            }
+            if (!migration.noTransaction()) {
+                connection.commit();
+            }
+        } catch (RuntimeException | SQLException e) {
+            if (!migration.noTransaction()) {
+                connection.rollback();
+            }
+            throw new IllegalStateException("Migration V" + migration.version() + " (" + migration.description() + ") failed", e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean historyTableExists(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{HISTORY_TABLE, HISTORY_TABLE.toUpperCase()}) {
+            try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select version, checksum from " + HISTORY_TABLE)) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String checksum(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Migration(int version, String description, Resource script, String checksum, boolean noTransaction) {
+    }
+}
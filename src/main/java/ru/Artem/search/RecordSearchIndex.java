@@ -0,0 +1,391 @@
+package ru.Artem.search;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over record titles, for deployments without PostgreSQL full-text search (the
+ * embedded H2 profile) or that want searches to never reach the database. Each list has its own
+ * words, every word mapping to the ascending ids of the list's records containing it, so a search
+ * never looks at another list's records.
+ * <p>
+ * A query matches records that contain every query word, and results are ranked by how they
+ * match: whole words first, then word prefixes, then substrings of words (query words of at least
+ * {@value #MIN_INFIX_LENGTH} characters), each group in id order. Each group walks the posting
+ * lists of its rarest query word in id order and stops as soon as the limit is reached, so the cost
+ * depends on the limit and on the records of another status it skips, rather than on the number
+ * of titles. Substring matches find their words through an index of the three-character pieces
+ * of every word rather than by scanning the list's words.
+ * <p>
+ * Only writes made through this instance are seen, as with the in-memory record store.
+ */
+public class RecordSearchIndex {
+    public static final int MIN_INFIX_LENGTH = 3;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private enum Match {
+        WORD, PREFIX, INFIX
+    }
+
+    private final Map<Integer, RecordView> records = new HashMap<>();
+    // A list's entry exists only while one of its titles has a word
+    private final Map<Integer, ListIndex> lists = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the whole content; meant for warming up before requests are served.
+     */
+    public void load(Collection<RecordView> source) {
+        lock.writeLock().lock();
+        try {
+            records.clear();
+            lists.clear();
+            source.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(RecordView record) {
+        lock.writeLock().lock();
+        try {
+            removeWords(records.get(record.getId()));
+            add(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Titles do not change with the status, so only the stored view is replaced. Records of other
+     * lists than {@code listId} are left alone.
+     */
+    public void updateStatus(int listId, int id, RecordStatus newStatus) {
+        lock.writeLock().lock();
+        try {
+            records.computeIfPresent(id, (key, record) -> record.getListId() == listId ? record.withStatus(newStatus) : record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int listId, int id) {
+        lock.writeLock().lock();
+        try {
+            RecordView record = records.get(id);
+            if (record == null || record.getListId() != listId) {
+                return;
+            }
+            removeWords(records.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return records.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} records of the list with the given status (any status for {@code null})
+     * whose titles contain every word of {@code query}, best matches first.
+     */
+    public List<RecordView> search(int listId, String query, RecordStatus status, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        List<RecordView> result = new ArrayList<>(Math.min(limit, 64));
+        if (words.isEmpty() || limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            ListIndex list = lists.get(listId);
+            if (list == null) {
+                return result;
+            }
+            Set<Integer> found = new HashSet<>();
+            for (Match match : Match.values()) {
+                if (match == Match.INFIX && words.stream().anyMatch(word -> word.length() < MIN_INFIX_LENGTH)) {
+                    break;
+                }
+                collect(list, words, match, status, limit, found, result);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(ListIndex list, List<String> words, Match match, RecordStatus status, int limit,
+                         Set<Integer> found, List<RecordView> result) {
+        // The query word with the fewest candidate records drives the walk, the others are checked per record
+        List<Postings> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        for (String word : words) {
+            List<Postings> candidates = postingsFor(list, word, match);
+            long size = candidates.stream().mapToLong(postings -> postings.size).sum();
+            if (size == 0) {
+                return;
+            }
+            if (size < driverSize) {
+                driver = candidates;
+                driverSize = size;
+            }
+        }
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(driver.size());
+        for (Postings postings : driver) {
+            cursors.add(new Cursor(postings));
+        }
+        int previous = -1;
+        while (!cursors.isEmpty() && result.size() < limit) {
+            Cursor cursor = cursors.poll();
+            int id = cursor.id();
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+            if (id == previous) {
+                continue;
+            }
+            previous = id;
+            RecordView record = records.get(id);
+            if ((status == null || record.getStatus() == status) && !found.contains(id)
+                    && matchesAll(record.getTitle(), words, match)) {
+                found.add(id);
+                result.add(record);
+            }
+        }
+    }
+
+    private static List<Postings> postingsFor(ListIndex list, String word, Match match) {
+        switch (match) {
+            case WORD:
+                Postings exact = list.words.get(word);
+                return exact == null ? List.of() : List.of(exact);
+            case PREFIX:
+                return new ArrayList<>(list.words.subMap(word, true, word + Character.MAX_VALUE, false).values());
+            default:
+                List<Postings> candidates = new ArrayList<>();
+                if (word.length() < MIN_INFIX_LENGTH) {
+                    list.words.forEach((indexed, postings) -> {
+                        if (indexed.contains(word)) {
+                            candidates.add(postings);
+                        }
+                    });
+                    return candidates;
+                }
+                // Every word containing the query word contains its rarest trigram
+                Set<String> rarest = null;
+                for (int i = 0; i + MIN_INFIX_LENGTH <= word.length(); i++) {
+                    Set<String> containing = list.trigrams.get(word.substring(i, i + MIN_INFIX_LENGTH));
+                    if (containing == null) {
+                        return candidates;
+                    }
+                    if (rarest == null || containing.size() < rarest.size()) {
+                        rarest = containing;
+                    }
+                }
+                for (String indexed : rarest) {
+                    if (indexed.contains(word)) {
+                        candidates.add(list.words.get(indexed));
+                    }
+                }
+                return candidates;
+        }
+    }
+
+    /**
+     * Query words are runs of letters and digits, so an occurrence in the lower-cased title always
+     * lies inside one title word; only its boundaries need checking, without splitting the title.
+     */
+    private static boolean matchesAll(String title, List<String> words, Match match) {
+        String text = title.toLowerCase(Locale.ROOT);
+        for (String word : words) {
+            if (!matches(text, word, match)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String text, String word, Match match) {
+        if (match == Match.INFIX) {
+            return text.contains(word);
+        }
+        for (int from = text.indexOf(word); from >= 0; from = text.indexOf(word, from + 1)) {
+            int end = from + word.length();
+            if ((from == 0 || !isWordChar(text.charAt(from - 1)))
+                    && (match == Match.PREFIX || end == text.length() || !isWordChar(text.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Lower-cased runs of letters and digits; the same rule splits titles and queries.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private void add(RecordView record) {
+        records.put(record.getId(), record);
+        Set<String> titleWords = new HashSet<>(words(record.getTitle()));
+        if (titleWords.isEmpty()) {
+            return;
+        }
+        ListIndex list = lists.computeIfAbsent(record.getListId(), key -> new ListIndex());
+        for (String word : titleWords) {
+            Postings postings = list.words.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                list.words.put(word, postings);
+                for (int i = 0; i + MIN_INFIX_LENGTH <= word.length(); i++) {
+                    list.trigrams.computeIfAbsent(word.substring(i, i + MIN_INFIX_LENGTH), key -> new HashSet<>()).add(word);
+                }
+            }
+            postings.add(record.getId());
+        }
+    }
+
+    private void removeWords(RecordView record) {
+        if (record == null) {
+            return;
+        }
+        ListIndex list = lists.get(record.getListId());
+        if (list == null) {
+            return;
+        }
+        for (String word : new HashSet<>(words(record.getTitle()))) {
+            Postings postings = list.words.get(word);
+            if (postings != null && postings.remove(record.getId()) && postings.size == 0) {
+                list.words.remove(word);
+                for (int i = 0; i + MIN_INFIX_LENGTH <= word.length(); i++) {
+                    String trigram = word.substring(i, i + MIN_INFIX_LENGTH);
+                    Set<String> containing = list.trigrams.get(trigram);
+                    if (containing != null && containing.remove(word) && containing.isEmpty()) {
+                        list.trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+        // Safe to drop under the write lock, unlike the lock-free store's list indexes
+        if (list.words.isEmpty()) {
+            lists.remove(record.getListId());
+        }
+    }
+
+    /**
+     * The words of one list's titles, each with the ids of the list's records containing it, and the
+     * words of at least {@value #MIN_INFIX_LENGTH} characters by each trigram they contain.
+     */
+    private static final class ListIndex {
+        final TreeMap<String, Postings> words = new TreeMap<>();
+        final Map<String, Set<String>> trigrams = new HashMap<>();
+    }
+
+    /**
+     * Ascending record ids in a growable array. Ids are handed out in increasing order, so adding
+     * is almost always an append.
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0 && position < size) {
+                return;
+            }
+            int insertion = position < 0 ? -position - 1 : position;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Postings postings;
+        private int position;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        int id() {
+            return postings.ids[position];
+        }
+
+        boolean advance() {
+            return ++position < postings.size;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Integer.compare(id(), other.id());
+        }
+    }
+
+    /**
+     * Creates the index only when {@code search.in-memory.enabled=true}.
+     */
+    public static class EnabledCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("search.in-memory.enabled", Boolean.class, false);
+        }
+    }
+}
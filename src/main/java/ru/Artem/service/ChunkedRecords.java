@@ -0,0 +1,87 @@
+package ru.Artem.service;
+
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Records of one list in id order, read while they are iterated: {@code chunkSize} at a time, each
+ * chunk starting after the last id of the previous one. Only one chunk is held in memory, so a page
+ * rendering the collection can flush its first rows before the last ones are read. Chunks are read
+ * independently, so an iteration sees every record that exists throughout it exactly once, and a
+ * record changed meanwhile in whichever state its chunk found.
+ */
+final class ChunkedRecords extends AbstractCollection<RecordView> {
+
+    interface ChunkReader {
+        List<RecordView> read(int afterId, int limit);
+    }
+
+    private final ChunkReader reader;
+    private final int chunkSize;
+    private List<RecordView> firstChunk;
+
+    ChunkedRecords(ChunkReader reader, int chunkSize) {
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Iterator<RecordView> iterator() {
+        return new Iterator<>() {
+            private List<RecordView> chunk = firstChunk();
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position < chunk.size()) {
+                    return true;
+                }
+                if (chunk.size() < chunkSize) {
+                    return false;
+                }
+                chunk = reader.read(chunk.get(chunk.size() - 1).getId(), chunkSize);
+                position = 0;
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public RecordView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(position++);
+            }
+        };
+    }
+
+    /**
+     * Reads the first chunk only; it is kept for the iteration that usually follows.
+     */
+    @Override
+    public boolean isEmpty() {
+        return firstChunk().isEmpty();
+    }
+
+    /**
+     * Reads every chunk.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<RecordView> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    private List<RecordView> firstChunk() {
+        if (firstChunk == null) {
+            firstChunk = reader.read(0, chunkSize);
+        }
+        return firstChunk;
+    }
+}
@@ -1,61 +1,428 @@
 package ru.Artem.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.Artem.dao.RecordDao;
 import ru.Artem.entity.Record;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.dto.RecordView;
 import ru.Artem.entity.dto.RecordsContainerDto;
+import ru.Artem.events.RecordEvent;
+import ru.Artem.events.RecordEventBroadcaster;
+import ru.Artem.search.RecordSearchIndex;
+import ru.Artem.store.InMemoryRecordStore;
+import ru.Artem.writebehind.RecordWriteQueue;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 @Service
 public class RecordService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final RecordDao recordDao;
+    private final InMemoryRecordStore recordStore;
+    private final RecordEventBroadcaster events;
+    private final RecordSearchIndex searchIndex;
+    private final RecordWriteQueue writeQueue;
+    // The start second is the high word and writes count up in the low one, so versions, and the ETags
+    // built from them, never overlap those of an earlier run
+    private final long initialDataVersion = (System.currentTimeMillis() / 1000) << 32;
+    // Only lists changed since the start have an entry; the others are still at initialDataVersion
+    private final ConcurrentHashMap<Integer, AtomicLong> dataVersions = new ConcurrentHashMap<>();
 
+    /**
+     * With a {@code recordStore} all reads are served from memory and every write goes to the
+     * database first and then to the store. Committed changes are published to {@code events}.
+     * Searches use {@code searchIndex} when there is one, and PostgreSQL full-text search otherwise.
+     * With a {@code writeQueue} single record creations are group-committed by its flusher.
+     */
     @Autowired
-    public RecordService(RecordDao recordDao) {
+    public RecordService(RecordDao recordDao, @Nullable InMemoryRecordStore recordStore,
+                         @Nullable RecordEventBroadcaster events, @Nullable RecordSearchIndex searchIndex,
+                         @Nullable RecordWriteQueue writeQueue) {
         this.recordDao = recordDao;
+        this.recordStore = recordStore;
+        this.events = events;
+        this.searchIndex = searchIndex;
+        this.writeQueue = writeQueue;
+        if (writeQueue != null) {
+            // Only titles submitted through this service reach the flusher, and only after construction
+            writeQueue.start(this::storeRecords, this::recordsCreated);
+        }
+    }
+
+    /**
+     * Grows with every committed change to the list made through this service, and only with those,
+     * so a change in one list leaves the versions of the others alone. It does not see writes made
+     * by other application instances or directly in the database.
+     */
+    public long getDataVersion(int listId) {
+        AtomicLong version = dataVersions.get(listId);
+        return version != null ? version.get() : initialDataVersion;
     }
 
-    public RecordsContainerDto findAllRecords(String filterMode) {
-        List<Record> records = recordDao.findAllRecords();
-        int numberOfDoneRecords = (int) records.stream().filter(record -> record.getStatus() == RecordStatus.DONE).count();
-        int numberOfActiveRecords = (int) records.stream().filter(record -> record.getStatus() == RecordStatus.ACTIVE).count();
+    @PostConstruct
+    public void warmUp() {
+        if (recordStore != null) {
+            recordStore.load(recordDao.findAllRecords());
+        }
+        if (searchIndex != null) {
+            searchIndex.load(recordStore != null ? recordStore.getRecords() : recordDao.findAllRecords());
+        }
+    }
 
-        if (filterMode == null || filterMode.isEmpty()) {
-            return new RecordsContainerDto(records,numberOfDoneRecords, numberOfActiveRecords);
+    /**
+     * Writes the creations still queued while the DAO and the database are still available: this
+     * bean is destroyed before the beans it depends on.
+     */
+    @PreDestroy
+    public void drainWrites() {
+        if (writeQueue != null) {
+            writeQueue.close();
         }
+    }
 
-        String filterModeInUpperCase = filterMode.toUpperCase();
-        List<String> allowedFilterModes = Arrays.stream(RecordStatus.values())
-                .map(status -> status.name())
-                .collect(Collectors.toList());
-        if (allowedFilterModes.contains(filterModeInUpperCase)) {
-            List<Record> filterRecords =  records.stream()
-                    .filter(record -> record.getStatus() == RecordStatus.valueOf(filterModeInUpperCase))
-                    .collect(Collectors.toList());
-            return new RecordsContainerDto(filterRecords,numberOfDoneRecords, numberOfActiveRecords);
+    /**
+     * Every record of the list matching the filter, for {@code view=all}. Nothing is read here: the
+     * records are read while the collection is iterated, {@link #MAX_PAGE_SIZE} at a time, each
+     * chunk from the store or in a short read-only transaction of its own and never query-cached,
+     * so rendering a long list holds neither the whole list nor a connection between chunks.
+     */
+    public Collection<RecordView> findAllRecords(int listId, String filterMode) {
+        RecordStatus status = parseFilterMode(filterMode);
+        return new ChunkedRecords(recordStore != null
+                ? (afterId, limit) -> recordStore.getRecordsAfter(listId, status, afterId, limit)
+                : (afterId, limit) -> recordDao.scanRecordsAfter(listId, status, afterId, limit), MAX_PAGE_SIZE);
+    }
+
+    @Transactional(readOnly = true)
+    public RecordsContainerDto findRecordsPage(int listId, String filterMode, Integer afterId, Integer beforeId,
+                                               Integer limit) {
+        RecordStatus status = parseFilterMode(filterMode);
+        int pageSize = pageSize(limit);
+
+        List<RecordView> page;
+        Integer previousCursor = null;
+        Integer nextCursor = null;
+        if (beforeId != null) {
+            page = recordStore != null
+                    ? recordStore.getRecordsBefore(listId, status, beforeId, pageSize + 1)
+                    : recordDao.getRecordsBefore(listId, status, beforeId, pageSize + 1);
+            if (page.size() > pageSize) {
+                page = page.subList(1, page.size());
+                previousCursor = page.get(0).getId();
+            }
+            nextCursor = page.isEmpty() ? beforeId - 1 : page.get(page.size() - 1).getId();
         } else {
-            return new RecordsContainerDto(records,numberOfDoneRecords, numberOfActiveRecords);
+            int after = afterId == null ? 0 : afterId;
+            page = recordStore != null
+                    ? recordStore.getRecordsAfter(listId, status, after, pageSize + 1)
+                    : recordDao.getRecordsAfter(listId, status, after, pageSize + 1);
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                nextCursor = page.get(pageSize - 1).getId();
+            }
+            if (after > 0) {
+                previousCursor = page.isEmpty() ? after + 1 : page.get(0).getId();
+            }
+        }
+
+        Map<RecordStatus, Long> counters = countRecordsByStatus(listId);
+        return new RecordsContainerDto(page,
+                counters.getOrDefault(RecordStatus.DONE, 0L).intValue(),
+                counters.getOrDefault(RecordStatus.ACTIVE, 0L).intValue(),
+                previousCursor, nextCursor);
+    }
+
+    /**
+     * One page of the records whose titles contain every word of {@code query}, best matches first,
+     * with the usual counters. There are no cursors: a search shows its first page only.
+     */
+    @Transactional(readOnly = true)
+    public RecordsContainerDto searchRecords(int listId, String query, String filterMode, Integer limit) {
+        RecordStatus status = parseFilterMode(filterMode);
+        List<RecordView> found = searchIndex != null
+                ? searchIndex.search(listId, query, status, pageSize(limit))
+                : recordDao.searchRecords(listId, query, status, pageSize(limit));
+        Map<RecordStatus, Long> counters = countRecordsByStatus(listId);
+        return new RecordsContainerDto(found,
+                counters.getOrDefault(RecordStatus.DONE, 0L).intValue(),
+                counters.getOrDefault(RecordStatus.ACTIVE, 0L).intValue());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<RecordStatus, Long> countRecordsByStatus(int listId) {
+        return recordStore != null ? recordStore.countRecordsByStatus(listId) : recordDao.countRecordsByStatus(listId);
+    }
+
+    @Transactional(readOnly = true)
+    public RecordView findRecord(int listId, int id) {
+        return recordStore != null ? recordStore.getRecord(listId, id) : recordDao.findRecord(listId, id);
+    }
+
+    /**
+     * Hands every record matching the filter to {@code sink} in id order without collecting them.
+     * From the database the rows come through a cursor that stays open until the last one is
+     * consumed, together with the read-only transaction around this call.
+     */
+    @Transactional(readOnly = true)
+    public void exportRecords(int listId, String filterMode, Consumer<RecordView> sink) {
+        RecordStatus status = parseFilterMode(filterMode);
+        if (recordStore != null) {
+            recordStore.forEach(listId, status, sink);
+            return;
+        }
+        try (Stream<RecordView> records = recordDao.streamRecords(listId, status)) {
+            records.forEach(sink);
+        }
+    }
+
+    /**
+     * Returns the stored record, or {@code null} when the title is blank and nothing was saved. With
+     * the write queue the caller waits for the group commit that includes its record; a full queue
+     * is reported as a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public RecordView saveRecord(int listId, String title) {
+        if (title == null || title.trim().isEmpty()) {
+            return null;
+        }
+        if (writeQueue != null) {
+            try {
+                return writeQueue.submit(listId, title).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        Record record = new Record(listId, title);
+        recordDao.saveRecord(record);
+        RecordView saved = RecordView.of(record);
+        if (recordStore != null) {
+            recordStore.put(saved);
+        }
+        if (searchIndex != null) {
+            searchIndex.put(saved);
         }
+        dataChanged(listId, true, (counters, version) -> RecordEvent.created(listId, List.of(saved), counters, version));
+        return saved;
+    }
 
+    /**
+     * Like {@link #saveRecord(int, String)}, but without holding the calling thread while the record
+     * waits in the write queue. Completes with {@code null} for a blank title.
+     */
+    public CompletableFuture<RecordView> saveRecordAsync(int listId, String title) {
+        if (writeQueue == null || title == null || title.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(saveRecord(listId, title));
+        }
+        return writeQueue.submit(listId, title);
     }
 
-    public void saveRecord(String title) {
-        if (title != null && !title.trim().isEmpty()) {
-            recordDao.saveRecord(new Record(title));
+    public int saveRecords(int listId, Collection<String> titles) {
+        List<Record> accepted = new ArrayList<>();
+        if (titles != null) {
+            for (String title : titles) {
+                if (title != null && !title.trim().isEmpty()) {
+                    accepted.add(new Record(listId, title));
+                }
+            }
         }
+        return insertRecords(accepted).size();
+    }
 
+    private List<RecordView> insertRecords(List<Record> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        List<RecordView> saved = storeRecords(records);
+        recordsCreated(saved);
+        return saved;
     }
 
-    public void updateRecordStatus(int id, RecordStatus newStatus) {
-        recordDao.updateRecordStatus(id, newStatus);
+    /**
+     * Inserts the records in one transaction, in order. Nothing else, so the write queue can retry
+     * it without side effects.
+     */
+    private List<RecordView> storeRecords(List<Record> records) {
+        recordDao.saveRecords(records);
+        return records.stream().map(RecordView::of).toList();
     }
 
-    public void deleteRecordStatus(int id) {
-        recordDao.deleteRecord(id);
+    /**
+     * Applies committed records to the store, the search index and the subscribers. Batches of the
+     * write queue may mix lists: subscribers get one event per list.
+     */
+    private void recordsCreated(List<RecordView> saved) {
+        if (recordStore != null) {
+            saved.forEach(recordStore::put);
+        }
+        if (searchIndex != null) {
+            saved.forEach(searchIndex::put);
+        }
+        Map<Integer, List<RecordView>> byList = new LinkedHashMap<>();
+        saved.forEach(record -> byList.computeIfAbsent(record.getListId(), key -> new ArrayList<>()).add(record));
+        byList.forEach((listId, created) ->
+                dataChanged(listId, true, (counters, version) -> RecordEvent.created(listId, created, counters, version)));
+    }
+
+    /**
+     * Changes nothing when the record belongs to another list.
+     */
+    public boolean updateRecordStatus(int listId, int id, RecordStatus newStatus) {
+        boolean updated = recordStore == null
+                ? recordDao.updateRecordStatus(listId, id, newStatus)
+                : recordStore.withLocks(Set.of(id), () -> {
+                    boolean changed = recordDao.updateRecordStatus(listId, id, newStatus);
+                    recordStore.updateStatus(listId, id, newStatus);
+                    return changed;
+                });
+        if (updated && searchIndex != null) {
+            searchIndex.updateStatus(listId, id, newStatus);
+        }
+        return dataChanged(listId, updated,
+                (counters, version) -> RecordEvent.statusChanged(listId, List.of(id), newStatus, counters, version));
+    }
+
+    /**
+     * Sets the status only if the record still has {@code expectedVersion} and returns the version
+     * it has afterwards, or {@code null} when the list has no such record. A record changed since
+     * {@code expectedVersion} is left as it is and reported with an
+     * {@link OptimisticLockingFailureException}; nothing is locked while the caller decides.
+     */
+    public Long updateRecordStatus(int listId, int id, RecordStatus newStatus, long expectedVersion) {
+        boolean updated = recordStore == null
+                ? recordDao.updateRecordStatus(listId, id, newStatus, expectedVersion)
+                : recordStore.withLocks(Set.of(id), () -> {
+                    boolean changed = recordDao.updateRecordStatus(listId, id, newStatus, expectedVersion);
+                    if (changed) {
+                        recordStore.updateStatus(listId, id, newStatus);
+                    }
+                    return changed;
+                });
+        if (updated) {
+            if (searchIndex != null) {
+                searchIndex.updateStatus(listId, id, newStatus);
+            }
+            dataChanged(listId, true,
+                    (counters, version) -> RecordEvent.statusChanged(listId, List.of(id), newStatus, counters, version));
+            return expectedVersion + 1;
+        }
+        // Not written: either gone, changed by someone else, or already in the requested status
+        RecordView current = recordDao.findRecord(listId, id);
+        if (current == null) {
+            return null;
+        }
+        if (current.getVersion() != expectedVersion) {
+            throw new OptimisticLockingFailureException("Record " + id + " has version " + current.getVersion()
+                    + ", not " + expectedVersion);
+        }
+        return expectedVersion;
+    }
+
+    /**
+     * Deletes nothing when the record belongs to another list.
+     */
+    public boolean deleteRecordStatus(int listId, int id) {
+        boolean deleted = recordStore == null
+                ? recordDao.deleteRecord(listId, id)
+                : recordStore.withLocks(Set.of(id), () -> {
+                    boolean removed = recordDao.deleteRecord(listId, id);
+                    recordStore.remove(listId, id);
+                    return removed;
+                });
+        if (deleted && searchIndex != null) {
+            searchIndex.remove(listId, id);
+        }
+        return dataChanged(listId, deleted, (counters, version) -> RecordEvent.deleted(listId, List.of(id), counters, version));
+    }
+
+    public int updateRecordsStatus(int listId, Collection<Integer> ids, RecordStatus newStatus) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        int updated = recordStore == null
+                ? recordDao.updateRecordsStatus(listId, uniqueIds, newStatus)
+                : recordStore.withLocks(uniqueIds, () -> {
+                    int changed = recordDao.updateRecordsStatus(listId, uniqueIds, newStatus);
+                    uniqueIds.forEach(id -> recordStore.updateStatus(listId, id, newStatus));
+                    return changed;
+                });
+        if (updated > 0 && searchIndex != null) {
+            uniqueIds.forEach(id -> searchIndex.updateStatus(listId, id, newStatus));
+        }
+        dataChanged(listId, updated > 0,
+                (counters, version) -> RecordEvent.statusChanged(listId, uniqueIds, newStatus, counters, version));
+        return updated;
+    }
+
+    public int deleteRecords(int listId, Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        int deleted = recordStore == null
+                ? recordDao.deleteRecords(listId, uniqueIds)
+                : recordStore.withLocks(uniqueIds, () -> {
+                    int removed = recordDao.deleteRecords(listId, uniqueIds);
+                    uniqueIds.forEach(id -> recordStore.remove(listId, id));
+                    return removed;
+                });
+        if (deleted > 0 && searchIndex != null) {
+            uniqueIds.forEach(id -> searchIndex.remove(listId, id));
+        }
+        dataChanged(listId, deleted > 0, (counters, version) -> RecordEvent.deleted(listId, uniqueIds, counters, version));
+        return deleted;
+    }
+
+    /**
+     * If anything changed, bumps the data version of the list and publishes the event built for it with the
+     * counters of the list that changed.
+     */
+    private boolean dataChanged(int listId, boolean changed, BiFunction<Map<RecordStatus, Long>, Long, RecordEvent> event) {
+        if (!changed) {
+            return false;
+        }
+        long version = dataVersions.computeIfAbsent(listId, key -> new AtomicLong(initialDataVersion)).incrementAndGet();
+        // Counting costs a query without the store, so it is only done while someone follows this list
+        if (events != null && events.hasSubscribers(listId)) {
+            events.publish(event.apply(countRecordsByStatus(listId), version));
+        }
+        return true;
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private RecordStatus parseFilterMode(String filterMode) {
+        if (filterMode == null || filterMode.trim().isEmpty()) {
+            return null;
+        }
+        String filterModeInUpperCase = filterMode.trim().toUpperCase();
+        for (RecordStatus status : RecordStatus.values()) {
+            if (status.name().equals(filterModeInUpperCase)) {
+                return status;
+            }
+        }
+        return null;
     }
 }
@@ -0,0 +1,62 @@
+package ru.Artem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import ru.Artem.dao.TodoListDao;
+import ru.Artem.entity.TodoList;
+
+import java.util.List;
+
+@Service
+public class TodoListService {
+    private final TodoListDao todoListDao;
+
+    @Autowired
+    public TodoListService(TodoListDao todoListDao) {
+        this.todoListDao = todoListDao;
+    }
+
+    @Transactional(readOnly = true)
+    public TodoList findList(int id) {
+        return todoListDao.findList(id);
+    }
+
+    /**
+     * Lists other than the default one have to exist: answers 404 otherwise. The default list is
+     * never looked up and {@code null} is returned for it.
+     */
+    @Transactional(readOnly = true)
+    public TodoList requireList(int id) {
+        if (id == TodoList.DEFAULT_ID) {
+            return null;
+        }
+        TodoList list = todoListDao.findList(id);
+        if (list == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No list " + id);
+        }
+        return list;
+    }
+
+    /**
+     * All lists, or only those of {@code owner} when it is not blank.
+     */
+    @Transactional(readOnly = true)
+    public List<TodoList> findLists(String owner) {
+        return todoListDao.findLists(owner == null || owner.isBlank() ? null : owner.trim());
+    }
+
+    /**
+     * Returns the new list, or {@code null} when the name is blank and nothing was saved.
+     */
+    public TodoList createList(String name, String owner) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        TodoList list = new TodoList(name.trim(), owner == null || owner.isBlank() ? null : owner.trim());
+        todoListDao.saveList(list);
+        return list;
+    }
+}
@@ -0,0 +1,235 @@
+package ru.Artem.store;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Copy of the records table kept in memory: an id-keyed map and, for every list, an id-ordered
+ * index overall and per status and a counter per status, so a list's reads never look at another
+ * list's records. Reads never lock; each one sees a weakly consistent view while writers are
+ * running, e.g. a record moving between statuses may briefly appear in both indexes.
+ * <p>
+ * Records are held as immutable {@link RecordView}s, a status change replaces the view. Writes to
+ * one id are applied atomically to the map, the indexes and the counters. The store only knows
+ * about writes made through this instance, so it is meant for single-node deployments.
+ */
+public class InMemoryRecordStore {
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<Integer, RecordView> records = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ListIndex> lists = new ConcurrentHashMap<>();
+    // Answers reads of lists that have no records; never written to
+    private final ListIndex emptyList = new ListIndex();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public InMemoryRecordStore() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Replaces the whole content; meant for warming up before requests are served.
+     */
+    public void load(Collection<RecordView> source) {
+        for (RecordView record : records.values()) {
+            remove(record.getListId(), record.getId());
+        }
+        putAll(source);
+    }
+
+    public void put(RecordView record) {
+        records.compute(record.getId(), (id, previous) -> {
+            index(record);
+            unindex(previous);
+            return record;
+        });
+    }
+
+    public void putAll(Collection<RecordView> source) {
+        for (RecordView record : source) {
+            put(record);
+        }
+    }
+
+    /**
+     * Changes the record only if it belongs to {@code listId}, as the database update does.
+     */
+    public boolean updateStatus(int listId, int id, RecordStatus newStatus) {
+        boolean[] changed = new boolean[1];
+        records.computeIfPresent(id, (key, previous) -> {
+            if (previous.getListId() != listId || previous.getStatus() == newStatus) {
+                return previous;
+            }
+            RecordView updated = previous.withStatus(newStatus);
+            index(updated);
+            unindex(previous);
+            changed[0] = true;
+            return updated;
+        });
+        return changed[0];
+    }
+
+    public boolean remove(int listId, int id) {
+        boolean[] removed = new boolean[1];
+        records.computeIfPresent(id, (key, previous) -> {
+            if (previous.getListId() != listId) {
+                return previous;
+            }
+            unindex(previous);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * The record, or {@code null} when the list has no such record.
+     */
+    public RecordView getRecord(int listId, int id) {
+        RecordView record = records.get(id);
+        return record != null && record.getListId() == listId ? record : null;
+    }
+
+    /**
+     * Every record of every list, in id order of each list.
+     */
+    public List<RecordView> getRecords() {
+        List<RecordView> result = new ArrayList<>(records.size());
+        lists.values().forEach(list -> result.addAll(list.ordered.values()));
+        return result;
+    }
+
+    /**
+     * Walks the index in id order without copying it, for exports that should not hold a second
+     * list of every record.
+     */
+    public void forEach(int listId, RecordStatus status, Consumer<RecordView> action) {
+        index(listId, status).values().forEach(action);
+    }
+
+    public List<RecordView> getRecordsAfter(int listId, RecordStatus status, int afterId, int limit) {
+        return first(index(listId, status).tailMap(afterId, false), limit);
+    }
+
+    /**
+     * Up to {@code limit} records directly before {@code beforeId}, in ascending id order.
+     */
+    public List<RecordView> getRecordsBefore(int listId, RecordStatus status, int beforeId, int limit) {
+        List<RecordView> page = first(index(listId, status).headMap(beforeId, false).descendingMap(), limit);
+        Collections.reverse(page);
+        return page;
+    }
+
+    public Map<RecordStatus, Long> countRecordsByStatus(int listId) {
+        Map<RecordStatus, Long> result = new EnumMap<>(RecordStatus.class);
+        lists.getOrDefault(listId, emptyList).counters.forEach((status, counter) -> result.put(status, counter.get()));
+        return result;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Runs a database write and its store update while holding the locks for the given ids, so two
+     * concurrent writes to the same record reach the store in the order they reached the database.
+     */
+    public <T> T withLocks(Collection<Integer> ids, Supplier<T> write) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Integer id : ids) {
+            stripes.add(Math.floorMod(id.hashCode(), LOCK_STRIPES));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                held.add(locks[stripe]);
+            }
+            return write.get();
+        } finally {
+            for (ReentrantLock lock : held) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private NavigableMap<Integer, RecordView> index(int listId, RecordStatus status) {
+        ListIndex list = lists.getOrDefault(listId, emptyList);
+        return status == null ? list.ordered : list.byStatus.get(status);
+    }
+
+    private void index(RecordView record) {
+        ListIndex list = lists.computeIfAbsent(record.getListId(), key -> new ListIndex());
+        list.ordered.put(record.getId(), record);
+        list.byStatus.get(record.getStatus()).put(record.getId(), record);
+        list.counters.get(record.getStatus()).incrementAndGet();
+    }
+
+    /**
+     * Removes only entries still pointing at this exact record; called after {@link #index} has put
+     * its replacement, so a record being replaced never goes missing from an index it stays in.
+     */
+    private void unindex(RecordView record) {
+        if (record == null) {
+            return;
+        }
+        // Indexes of a list stay once created, even empty: dropping them could race with an index() for the same list
+        ListIndex list = lists.get(record.getListId());
+        list.byStatus.get(record.getStatus()).remove(record.getId(), record);
+        list.counters.get(record.getStatus()).decrementAndGet();
+        list.ordered.remove(record.getId(), record);
+    }
+
+    private static List<RecordView> first(NavigableMap<Integer, RecordView> records, int limit) {
+        List<RecordView> result = new ArrayList<>(Math.min(limit, 64));
+        for (RecordView record : records.values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    private static final class ListIndex {
+        final ConcurrentSkipListMap<Integer, RecordView> ordered = new ConcurrentSkipListMap<>();
+        final Map<RecordStatus, ConcurrentSkipListMap<Integer, RecordView>> byStatus = new EnumMap<>(RecordStatus.class);
+        final Map<RecordStatus, AtomicLong> counters = new EnumMap<>(RecordStatus.class);
+
+        ListIndex() {
+            for (RecordStatus status : RecordStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListMap<>());
+                counters.put(status, new AtomicLong());
+            }
+        }
+    }
+
+    /**
+     * Creates the store only when {@code store.in-memory.enabled=true}.
+     */
+    public static class EnabledCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("store.in-memory.enabled", Boolean.class, false);
+        }
+    }
+}
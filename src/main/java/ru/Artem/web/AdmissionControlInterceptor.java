@@ -0,0 +1,334 @@
+package ru.Artem.web;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.Artem.metrics.MetricsSource;
+import ru.Artem.metrics.MetricsWriter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control in front of the controllers. Requests are split into reads (GET, HEAD) and
+ * writes (everything else), and each class has its own {@link Policy}: a per-client token bucket,
+ * a limit on requests being handled at once and a bounded queue of requests waiting for a slot.
+ * <p>
+ * A client over its rate gets 429, a request finding the queue full or not getting a slot in time
+ * gets 503, both with {@code Retry-After}. A queued request holds no container thread: it is put in
+ * async mode and dispatched again once a slot is handed to it, or answered 503 when its async
+ * timeout of {@code queueTimeoutMillis} fires first. So a burst of writes waits or is turned away
+ * without holding the threads and database connections that {@code /home} readers need. A slot is
+ * held until the response is complete, including the async dispatch that follows a controller's
+ * {@code Callable}.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor, MetricsSource {
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".PERMIT";
+
+    public enum EndpointClass {
+        READ, WRITE;
+
+        static EndpointClass of(HttpServletRequest request) {
+            String method = request.getMethod();
+            return "GET".equals(method) || "HEAD".equals(method) ? READ : WRITE;
+        }
+    }
+
+    /**
+     * Limits of one endpoint class; {@code maxConcurrent} or {@code ratePerSecond} of 0 turns that
+     * limit off.
+     */
+    public record Policy(int maxConcurrent, int maxQueued, long queueTimeoutMillis, double ratePerSecond, int burst) {
+
+        static Policy fromProperties(Environment env, String prefix, Policy defaults) {
+            return new Policy(
+                    env.getProperty(prefix + "max-concurrent", Integer.class, defaults.maxConcurrent()),
+                    env.getProperty(prefix + "max-queued", Integer.class, defaults.maxQueued()),
+                    env.getProperty(prefix + "queue-timeout-ms", Long.class, defaults.queueTimeoutMillis()),
+                    env.getProperty(prefix + "rate-per-second", Double.class, defaults.ratePerSecond()),
+                    env.getProperty(prefix + "burst", Integer.class, defaults.burst()));
+        }
+    }
+
+    private final Map<EndpointClass, Limiter> limiters = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlInterceptor(Policy readPolicy, Policy writePolicy) {
+        this(readPolicy, writePolicy, System::nanoTime);
+    }
+
+    AdmissionControlInterceptor(Policy readPolicy, Policy writePolicy, LongSupplier nanoClock) {
+        limiters.put(EndpointClass.READ, new Limiter(readPolicy, nanoClock));
+        limiters.put(EndpointClass.WRITE, new Limiter(writePolicy, nanoClock));
+    }
+
+    /**
+     * Reads {@code http.admission.read.*} and {@code http.admission.write.*}. By default only
+     * writes are limited.
+     */
+    public static AdmissionControlInterceptor fromProperties(Environment env) {
+        return new AdmissionControlInterceptor(
+                Policy.fromProperties(env, "http.admission.read.", new Policy(0, 0, 0, 0, 0)),
+                Policy.fromProperties(env, "http.admission.write.", new Policy(16, 64, 200, 20, 40)));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch of a queued request already holds its slot, as does the one rendering
+        // a Callable's result
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Limiter limiter = limiters.get(EndpointClass.of(request));
+        long waitNanos = limiter.rateLimiter == null ? 0 : limiter.rateLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            limiter.rateLimited.incrementAndGet();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, (waitNanos + 999_999_999) / 1_000_000_000);
+            return false;
+        }
+        if (limiter.slots != null && !limiter.tryAcquireSlot()) {
+            if (!limiter.enqueue(request, response)) {
+                limiter.shed.incrementAndGet();
+                reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            }
+            return false;
+        }
+        limiter.admit(request);
+        return true;
+    }
+
+    /**
+     * The handler returned a {@code Callable}: the slot stays taken until the async request completes.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.getAsyncContext().addListener(permit);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null && !request.isAsyncStarted()) {
+            permit.release();
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    int getInFlight(EndpointClass endpointClass) {
+        Limiter limiter = limiters.get(endpointClass);
+        return limiter.slots == null ? 0 : limiter.policy.maxConcurrent() - limiter.slots.availablePermits();
+    }
+
+    int getQueued(EndpointClass endpointClass) {
+        return limiters.get(endpointClass).waiting.get();
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        limiters.forEach((endpointClass, limiter) -> {
+            String prefix = "admission_" + endpointClass.name().toLowerCase() + "_";
+            writer.gauge(prefix + "in_flight", "Admitted requests not completed yet", getInFlight(endpointClass))
+                  .gauge(prefix + "queued", "Requests waiting for a slot", getQueued(endpointClass))
+                  .counter(prefix + "admitted_total", "Requests let through", limiter.admitted.get())
+                  .counter(prefix + "rate_limited_total", "Requests answered 429 because the client was over its rate", limiter.rateLimited.get())
+                  .counter(prefix + "shed_total", "Requests answered 503 because no slot was free in time", limiter.shed.get());
+        });
+    }
+
+    private static final class Limiter {
+        final Policy policy;
+        final ClientRateLimiter rateLimiter;
+        final Semaphore slots;
+        final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        final AtomicInteger waiting = new AtomicInteger();
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rateLimited = new AtomicLong();
+        final AtomicLong shed = new AtomicLong();
+
+        Limiter(Policy policy, LongSupplier nanoClock) {
+            this.policy = policy;
+            this.rateLimiter = policy.ratePerSecond() > 0
+                    ? new ClientRateLimiter(policy.ratePerSecond(), policy.burst(), nanoClock)
+                    : null;
+            this.slots = policy.maxConcurrent() > 0 ? new Semaphore(policy.maxConcurrent()) : null;
+        }
+
+        /**
+         * Takes a free slot unless requests are queued for one, so they get slots in arrival order.
+         */
+        boolean tryAcquireSlot() {
+            return waiters.isEmpty() && slots.tryAcquire();
+        }
+
+        void admit(HttpServletRequest request) {
+            if (slots != null) {
+                request.setAttribute(PERMIT_ATTRIBUTE, new Permit(this));
+            }
+            admitted.incrementAndGet();
+        }
+
+        /**
+         * Parks the request in async mode until {@link #release()} hands it a slot; returns
+         * {@code false} if it cannot wait, leaving the response untouched.
+         */
+        boolean enqueue(HttpServletRequest request, HttpServletResponse response) {
+            if (policy.queueTimeoutMillis() <= 0 || !request.isAsyncSupported()) {
+                return false;
+            }
+            if (waiting.incrementAndGet() > policy.maxQueued()) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            AsyncContext asyncContext = request.startAsync(request, response);
+            asyncContext.setTimeout(policy.queueTimeoutMillis());
+            Waiter waiter = new Waiter(this, asyncContext);
+            asyncContext.addListener(waiter);
+            waiters.add(waiter);
+            // A slot released before the waiter was queued would otherwise wait for the next release
+            grantSlots();
+            return true;
+        }
+
+        void release() {
+            slots.release();
+            grantSlots();
+        }
+
+        private void grantSlots() {
+            while (!waiters.isEmpty() && slots.tryAcquire()) {
+                Waiter waiter = waiters.poll();
+                if (waiter == null || !waiter.leaveQueue()) {
+                    slots.release();
+                    continue;
+                }
+                admit((HttpServletRequest) waiter.asyncContext.getRequest());
+                waiter.asyncContext.dispatch();
+            }
+        }
+    }
+
+    /**
+     * A request waiting for a slot without a thread. It leaves the queue exactly once: when it is
+     * handed a slot, or when its async timeout or an error comes first.
+     */
+    private static final class Waiter implements AsyncListener {
+        private final Limiter limiter;
+        private final AsyncContext asyncContext;
+        private final AtomicBoolean left = new AtomicBoolean();
+
+        Waiter(Limiter limiter, AsyncContext asyncContext) {
+            this.limiter = limiter;
+            this.asyncContext = asyncContext;
+        }
+
+        boolean leaveQueue() {
+            if (!left.compareAndSet(false, true)) {
+                return false;
+            }
+            limiter.waiting.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (leaveQueue()) {
+                limiter.waiters.remove(this);
+                limiter.shed.incrementAndGet();
+                reject((HttpServletResponse) asyncContext.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, 1);
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (leaveQueue()) {
+                limiter.waiters.remove(this);
+            }
+        }
+
+        /**
+         * The dispatched request is done; its slot is normally released by {@link #afterCompletion} already.
+         */
+        @Override
+        public void onComplete(AsyncEvent event) {
+            Permit permit = (Permit) asyncContext.getRequest().getAttribute(PERMIT_ATTRIBUTE);
+            if (permit != null) {
+                permit.release();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * A taken slot, released exactly once: by {@link #afterCompletion} for plain requests, or
+     * when the async request completes, times out or fails.
+     */
+    private static final class Permit implements AsyncListener {
+        private final Limiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Limiter limiter) {
+            this.limiter = limiter;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Installs admission control only when {@code http.admission.enabled=true}.
+     */
+    public static class EnabledCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("http.admission.enabled", Boolean.class, false);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ru.Artem.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per client: {@code burst} requests at once, refilled at {@code ratePerSecond}.
+ * Buckets of clients that have been idle long enough to be full again carry no state worth
+ * keeping, so they are dropped once there are many clients. That sweep visits every bucket, so it
+ * runs at most once per refill period (the time an emptied bucket takes to fill up), on whichever
+ * request finds it due, and requests in between only look up their own bucket.
+ * <p>
+ * When even that leaves more than {@value #HARD_MAX_CLIENTS} buckets, as with a flood of new
+ * addresses, the oldest buckets are evicted so the map stays bounded. An evicted client that
+ * comes back starts with a full bucket, which is no more than any new address gets.
+ */
+class ClientRateLimiter {
+    static final int MAX_CLIENTS = 10_000;
+    static final int HARD_MAX_CLIENTS = 4 * MAX_CLIENTS;
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final long refillNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // The buckets in creation order, oldest first; a sweep drops the ones it removed from the map
+    private final ConcurrentLinkedQueue<Bucket> order = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextSweepAt;
+
+    ClientRateLimiter(double ratePerSecond, int burst, LongSupplier nanoClock) {
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.refillNanos = (long) Math.ceil(this.burst / tokensPerNano);
+        this.nanoClock = nanoClock;
+        this.nextSweepAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes a token for {@code client}; returns 0 if there was one, otherwise the nanoseconds
+     * until the next one is available.
+     */
+    long tryAcquire(String client) {
+        long now = nanoClock.getAsLong();
+        if (buckets.size() >= MAX_CLIENTS) {
+            long sweepAt = nextSweepAt.get();
+            if (now - sweepAt >= 0 && nextSweepAt.compareAndSet(sweepAt, now + refillNanos)) {
+                buckets.values().removeIf(bucket -> bucket.isFull(now));
+                order.removeIf(bucket -> buckets.get(bucket.client) != bucket);
+            }
+        }
+        Bucket bucket = buckets.get(client);
+        if (bucket == null) {
+            Bucket created = new Bucket(client, burst, now);
+            bucket = buckets.putIfAbsent(client, created);
+            if (bucket == null) {
+                bucket = created;
+                order.add(created);
+                evictOverLimit();
+            }
+        }
+        return bucket.tryTake(now);
+    }
+
+    private void evictOverLimit() {
+        while (buckets.size() > HARD_MAX_CLIENTS) {
+            Bucket oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            buckets.remove(oldest.client, oldest);
+        }
+    }
+
+    int getClientCount() {
+        return buckets.size();
+    }
+
+    private final class Bucket {
+        private final String client;
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(String client, double tokens, long now) {
+            this.client = client;
+            this.tokens = tokens;
+            this.updatedAt = now;
+        }
+
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - updatedAt) * tokensPerNano);
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package ru.Artem.web;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.GenericFilterBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips rendered HTML pages for clients that accept it. The decision is made when the body is first
+ * written, so only {@code text/html} responses are compressed: JSON, the NDJSON export, the SSE
+ * stream, redirects, 304s and static files (served pre-compressed) pass through untouched.
+ * <p>
+ * Pages are rendered in the async dispatch that follows a controller's {@code Callable}; the
+ * response wrapper travels with the request into that dispatch. The filter is also mapped to
+ * FORWARD dispatches: the container closes the response as soon as the forward to a JSP returns,
+ * so the gzip trailer has to be written there rather than when the outer dispatch unwinds.
+ */
+public class HtmlCompressionFilter extends GenericFilterBean {
+    private static final String WRAPPER_ATTRIBUTE = HtmlCompressionFilter.class.getName() + ".WRAPPER";
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/resources/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        GzipResponse wrapper = (GzipResponse) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper == null) {
+            if (request.getDispatcherType() != DispatcherType.REQUEST || !acceptsGzip(request)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            wrapper = new GzipResponse(response);
+            request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+            response.addHeader("Vary", "Accept-Encoding");
+            chain.doFilter(request, wrapper);
+        } else {
+            chain.doFilter(request, response);
+        }
+        if (request.getDispatcherType() == DispatcherType.FORWARD || !request.isAsyncStarted()) {
+            wrapper.finish();
+        }
+    }
+
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+
+    private static final class GzipResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream stream;
+        private GzipStream gzip;
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                ServletOutputStream target = stream();
+                if (gzip == null) {
+                    writer = super.getWriter();
+                } else {
+                    Charset charset = getCharacterEncoding() != null
+                            ? Charset.forName(getCharacterEncoding()) : StandardCharsets.ISO_8859_1;
+                    writer = new PrintWriter(new OutputStreamWriter(target, charset));
+                }
+            }
+            return writer;
+        }
+
+        private ServletOutputStream stream() throws IOException {
+            if (stream == null) {
+                String contentType = getContentType();
+                if (contentType != null && contentType.startsWith("text/html") && !isCommitted()
+                        && getHeader("Content-Encoding") == null) {
+                    setHeader("Content-Encoding", "gzip");
+                    setHeader("Content-Length", null);
+                    gzip = new GzipStream(super.getOutputStream());
+                    stream = gzip;
+                } else {
+                    stream = super.getOutputStream();
+                }
+            }
+            return stream;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            if (gzip == null) {
+                super.setContentLength(length);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (gzip == null) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (gzip != null) {
+                gzip.flush();
+            }
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (gzip != null) {
+                if (writer != null) {
+                    writer.flush();
+                }
+                gzip.finish();
+            }
+        }
+    }
+
+    /**
+     * Sync-flushing gzip stream, so an explicit flush (e.g. an early flush of the page head) reaches
+     * the client instead of waiting in the deflater.
+     */
+    private static final class GzipStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final GZIPOutputStream gzip;
+        private boolean finished;
+
+        GzipStream(ServletOutputStream target) throws IOException {
+            this.target = target;
+            this.gzip = new GZIPOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+            }, 8192, true);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!finished) {
+                gzip.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            target.close();
+        }
+
+        void finish() throws IOException {
+            if (!finished) {
+                finished = true;
+                gzip.finish();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
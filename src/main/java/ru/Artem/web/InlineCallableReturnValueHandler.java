@@ -0,0 +1,78 @@
+package ru.Artem.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Calls a handler's {@link Callable} right away on the request thread and hands its result to the
+ * regular return value handlers, as if the handler had returned it directly. Installed ahead of
+ * Spring's own {@code Callable} handling when async execution brings nothing (no virtual threads),
+ * so requests skip {@code startAsync} and the second dispatch. Exceptions reach the usual resolvers.
+ */
+public class InlineCallableReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandlerComposite delegates = new HandlerMethodReturnValueHandlerComposite();
+
+    public InlineCallableReturnValueHandler(List<HandlerMethodReturnValueHandler> delegates) {
+        this.delegates.addHandlers(delegates);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return Callable.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        if (returnValue == null) {
+            mavContainer.setRequestHandled(true);
+            return;
+        }
+        Object result = ((Callable<?>) returnValue).call();
+        delegates.handleReturnValue(result, new ResultParameter(returnType, result), mavContainer, webRequest);
+    }
+
+    /**
+     * The handler's return type with {@code Callable<T>} unwrapped to {@code T}.
+     */
+    private static final class ResultParameter extends MethodParameter {
+        private final Class<?> parameterType;
+        private final Type genericParameterType;
+
+        ResultParameter(MethodParameter callableType, Object result) {
+            super(callableType);
+            ResolvableType resultType = ResolvableType.forMethodParameter(callableType).getGeneric();
+            this.parameterType = result != null ? result.getClass() : resultType.toClass();
+            this.genericParameterType = resultType.getType();
+        }
+
+        private ResultParameter(ResultParameter original) {
+            super(original);
+            this.parameterType = original.parameterType;
+            this.genericParameterType = original.genericParameterType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return parameterType;
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return genericParameterType;
+        }
+
+        @Override
+        public ResultParameter clone() {
+            return new ResultParameter(this);
+        }
+    }
+}
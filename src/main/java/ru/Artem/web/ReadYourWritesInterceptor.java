@@ -0,0 +1,73 @@
+package ru.Artem.web;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.Artem.datasource.ReplicaRouting;
+
+/**
+ * Keeps a client on the primary database for a short window after it changed data, so the
+ * page it is redirected to never shows a replica that has not replayed the change yet.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    static final String COOKIE_NAME = "rw-primary-until";
+
+    private final long windowMillis;
+
+    public ReadYourWritesInterceptor(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.currentTimeMillis();
+        if (isMutation(request)) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(now + windowMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+            ReplicaRouting.pinToPrimary();
+        } else if (primaryUntil(request) > now) {
+            ReplicaRouting.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRouting.clear();
+    }
+
+    /**
+     * Async requests skip {@link #afterCompletion} on the thread that started them, which would
+     * otherwise hand its pin to whatever request the container runs on it next.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRouting.clear();
+    }
+
+    private static boolean isMutation(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.Artem.web;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import ru.Artem.datasource.ReplicaRouting;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Carries the {@link ReplicaRouting} pin from the request thread to the thread running an async
+ * handler, so read-your-writes still holds when controller work moves off the container thread.
+ */
+public class ReplicaRoutingPropagation implements CallableProcessingInterceptor {
+    static final String PINNED_ATTRIBUTE = ReplicaRoutingPropagation.class.getName() + ".PINNED";
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (ReplicaRouting.isPrimaryPinned()) {
+            request.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        if (request.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            ReplicaRouting.pinToPrimary();
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        ReplicaRouting.clear();
+    }
+}
@@ -0,0 +1,288 @@
+package ru.Artem.writebehind;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import ru.Artem.entity.Record;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.metrics.MetricsSource;
+import ru.Artem.metrics.MetricsWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Group commit for record creation. New records are queued and a single flusher thread inserts them
+ * in batches of up to {@code maxBatchSize}, one transaction per batch, whatever lists they belong to. A batch is written as soon as
+ * it is full or {@code maxDelayMillis} after its first title arrived, whichever comes first.
+ * <p>
+ * Every title gets a future that completes once its batch has committed. A failed batch is
+ * retried in halves down to single records, so a future fails only with the error of its own
+ * record. Only the insert is retried: what follows a commit runs once, and its failure is logged
+ * without failing the futures, since the records are already stored. The queue is bounded: when it is full, producers wait up to {@code offerTimeoutMillis} and
+ * are then rejected with a {@link RejectedExecutionException}. {@link #close()} stops accepting
+ * titles and writes everything already queued before it returns; whatever the flusher leaves
+ * unwritten, when it is interrupted or misses the shutdown timeout, is failed the same way.
+ */
+public class RecordWriteQueue implements MetricsSource, AutoCloseable {
+    // Identity-compared marker queued by close(), behind every title accepted before it
+    private static final Pending SHUTDOWN = new Pending(0, null);
+    private static final System.Logger LOG = System.getLogger(RecordWriteQueue.class.getName());
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // One permit per title that is queued or being written; the flusher returns them after each batch
+    private final Semaphore capacity;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    // Held shared while offering, exclusively while closing, so nothing is queued behind SHUTDOWN
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // The batch being written, failed by close() if the flusher misses the shutdown timeout
+    private volatile List<Pending> writing = List.of();
+    private Thread flusher;
+    private boolean closed;
+
+    public RecordWriteQueue(int capacity, int maxBatchSize, long maxDelayMillis, long offerTimeoutMillis,
+                            long shutdownTimeoutMillis) {
+        this.capacity = new Semaphore(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    /**
+     * Starts the flusher. {@code writer} inserts a batch of new records in one transaction and
+     * returns the stored records in the same order; {@code committed} is then given those records
+     * once, e.g. to update caches and notify subscribers.
+     */
+    public synchronized void start(Function<List<Record>, List<RecordView>> writer, Consumer<List<RecordView>> committed) {
+        if (flusher != null) {
+            throw new IllegalStateException("The write queue is already started");
+        }
+        flusher = new Thread(() -> run(writer, committed), "record-write-behind");
+        flusher.start();
+    }
+
+    public CompletableFuture<RecordView> submit(int listId, String title) {
+        Pending pending = new Pending(listId, title);
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new RejectedExecutionException("The write queue is closed"));
+            }
+            if (!capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new RejectedExecutionException("The write queue is full"));
+            }
+            queue.add(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Interrupted while queueing a write", e));
+        } finally {
+            closing.readLock().unlock();
+        }
+        return pending.result;
+    }
+
+    private void run(Function<List<Record>, List<RecordView>> writer, Consumer<List<RecordView>> committed) {
+        try {
+            runBatches(writer, committed);
+        } finally {
+            stopAccepting();
+            abandonQueued("The write queue stopped before this record was written");
+        }
+    }
+
+    private void runBatches(Function<List<Record>, List<RecordView>> writer, Consumer<List<RecordView>> committed) {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean shutdown = false;
+        while (!shutdown) {
+            try {
+                Pending first = queue.take();
+                if (first == SHUTDOWN) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == SHUTDOWN) {
+                        shutdown = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                shutdown = true;
+            }
+            flush(batch, writer, committed);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch, Function<List<Record>, List<RecordView>> writer,
+                       Consumer<List<RecordView>> committed) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        writing = List.copyOf(batch);
+        try {
+            write(batch, writer, committed);
+        } finally {
+            writing = List.of();
+        }
+    }
+
+    /**
+     * Writes the titles in one transaction; if it fails, writes each half on its own, down to single
+     * titles. Records are created afresh for every attempt: a failed insert may have given them ids.
+     */
+    private void write(List<Pending> batch, Function<List<Record>, List<RecordView>> writer,
+                       Consumer<List<RecordView>> committed) {
+        List<Record> records = new ArrayList<>(batch.size());
+        batch.forEach(pending -> records.add(new Record(pending.listId, pending.title)));
+        List<RecordView> saved;
+        try {
+            saved = writer.apply(records);
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                int half = batch.size() / 2;
+                write(batch.subList(0, half), writer, committed);
+                write(batch.subList(half, batch.size()), writer, committed);
+                return;
+            }
+            failed.incrementAndGet();
+            capacity.release();
+            batch.get(0).result.completeExceptionally(e);
+            return;
+        }
+        batches.incrementAndGet();
+        written.addAndGet(batch.size());
+        try {
+            committed.accept(saved);
+        } catch (RuntimeException e) {
+            // Outside the retry: inserting the batch again would store every record twice
+            LOG.log(System.Logger.Level.WARNING, "Records were stored but could not be applied after the commit", e);
+        }
+        capacity.release(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(saved.get(i));
+        }
+    }
+
+    @Override
+    public void writeMetrics(MetricsWriter writer) {
+        writer.gauge("write_behind_queued", "Record creations waiting for the next group commit", queue.size())
+              .counter("write_behind_batches_total", "Group commits of queued record creations", batches.get())
+              .counter("write_behind_records_total", "Records created through group commits", written.get())
+              .counter("write_behind_failed_total", "Queued record creations whose group commit failed", failed.get())
+              .counter("write_behind_rejected_total", "Record creations rejected because the queue was full or closed", rejected.get());
+    }
+
+    /**
+     * Stops accepting titles and waits up to {@code shutdownTimeoutMillis} for the queued ones to be
+     * written. Titles still unwritten after that, including the batch being written, are failed
+     * and the flusher is interrupted, so no caller waits on them past shutdown. Safe to call more
+     * than once.
+     */
+    @Override
+    public void close() {
+        if (!stopAccepting()) {
+            return;
+        }
+        Thread thread;
+        synchronized (this) {
+            thread = flusher;
+        }
+        if (thread == null) {
+            abandonQueued("The write queue was never started");
+            return;
+        }
+        try {
+            thread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            String reason = "The write queue was closed before this record was written";
+            writing.forEach(pending -> pending.result.completeExceptionally(new RejectedExecutionException(reason)));
+            abandonQueued(reason);
+            // Drained with the rest; the flusher stops at it once its write returns
+            queue.add(SHUTDOWN);
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Marks the queue closed and queues the shutdown marker behind every accepted title; returns
+     * {@code false} if it already was closed.
+     */
+    private boolean stopAccepting() {
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            queue.add(SHUTDOWN);
+            return true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+    }
+
+    private void abandonQueued(String reason) {
+        List<Pending> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for (Pending pending : abandoned) {
+            if (pending != SHUTDOWN) {
+                failed.incrementAndGet();
+                capacity.release();
+                pending.result.completeExceptionally(new RejectedExecutionException(reason));
+            }
+        }
+    }
+
+    private static final class Pending {
+        final int listId;
+        final String title;
+        final CompletableFuture<RecordView> result = new CompletableFuture<>();
+
+        Pending(int listId, String title) {
+            this.listId = listId;
+            this.title = title;
+        }
+    }
+
+    /**
+     * Creates the queue only when {@code db.write-behind.enabled=true}.
+     */
+    public static class EnabledCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("db.write-behind.enabled", Boolean.class, false);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Baseline: the records table as Hibernate used to generate it with hbm2ddl=update.
+-- IF NOT EXISTS keeps it a no-op on databases created before versioned migrations.
+CREATE TABLE IF NOT EXISTS records (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'DONE'))
+);
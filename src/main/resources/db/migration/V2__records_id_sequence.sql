@@ -0,0 +1,12 @@
+-- Switches records.id from an identity column to the pooled "records_seq" sequence.
+-- The sequence increment must match Record.ID_ALLOCATION_SIZE.
+
+LOCK TABLE records IN EXCLUSIVE MODE;
+
+ALTER TABLE records ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS records_seq INCREMENT BY 50;
+
+-- The pooled optimizer hands out (value - 49 .. value], so the first value has to clear max(id) by a full block.
+-- Never move the sequence backwards: running nodes may still hold blocks reserved from it.
+SELECT setval('records_seq', GREATEST(COALESCE((SELECT MAX(id) FROM records), 0), (SELECT last_value FROM records_seq)) + 50, false);
@@ -0,0 +1,7 @@
+-- migration:no-transaction
+-- Built concurrently so filtered listings keep working while the index is created on a large table.
+-- A concurrent build that fails leaves an INVALID index behind, which IF NOT EXISTS would keep forever;
+-- the script only runs again after such a failure, or on a schema made by hbm2ddl, so it drops the old
+-- index first and builds it from scratch.
+DROP INDEX CONCURRENTLY IF EXISTS idx_records_status_id;
+CREATE INDEX CONCURRENTLY idx_records_status_id ON records (status, id);
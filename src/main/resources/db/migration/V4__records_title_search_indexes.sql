@@ -0,0 +1,8 @@
+-- migration:no-transaction
+-- Title search (RecordDao.searchRecords): a full-text index for whole words and word prefixes and a
+-- trigram index for substring (ILIKE '%...%') matches. Built concurrently, and rebuilt on a rerun, like V3.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+DROP INDEX CONCURRENTLY IF EXISTS idx_records_title_fts;
+CREATE INDEX CONCURRENTLY idx_records_title_fts ON records USING gin (to_tsvector('simple', title));
+DROP INDEX CONCURRENTLY IF EXISTS idx_records_title_trgm;
+CREATE INDEX CONCURRENTLY idx_records_title_trgm ON records USING gin (title gin_trgm_ops);
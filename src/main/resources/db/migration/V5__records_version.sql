@@ -0,0 +1,4 @@
+-- Adds the optimistic-locking version of records (Record.version).
+-- A constant default is stored in the catalog, so existing rows are not rewritten.
+
+ALTER TABLE records ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
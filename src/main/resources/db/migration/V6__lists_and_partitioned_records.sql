@@ -0,0 +1,64 @@
+-- Lists of records (TodoList) and the records table rebuilt as hash-partitioned by list_id.
+-- Existing records become the default list (TodoList.DEFAULT_ID = 1).
+--
+-- Every list-scoped query filters on list_id, so the planner prunes it to the one partition that
+-- holds the list; counters, listings and deletes of a list never touch the others. Hash rather than
+-- list partitioning: new lists need no DDL, and 16 partitions keep each one a sixteenth of the table.
+-- A unique index on a partitioned table has to contain the partition key, hence the (list_id, id)
+-- primary key; ids stay unique on their own because they all come from records_seq.
+--
+-- Runs in one transaction and copies every row while holding an exclusive lock on records: plan a
+-- maintenance window on a large table.
+
+CREATE SEQUENCE IF NOT EXISTS lists_seq START WITH 2 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS lists (
+    id INTEGER PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    owner VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_lists_owner ON lists (owner);
+
+INSERT INTO lists (id, name) VALUES (1, 'ToDo List') ON CONFLICT (id) DO NOTHING;
+
+ALTER TABLE records RENAME TO records_unpartitioned;
+
+CREATE TABLE records (
+    id INTEGER NOT NULL,
+    list_id INTEGER NOT NULL DEFAULT 1 REFERENCES lists (id),
+    title VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'DONE')),
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (list_id, id)
+) PARTITION BY HASH (list_id);
+
+CREATE TABLE records_p00 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 0);
+CREATE TABLE records_p01 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 1);
+CREATE TABLE records_p02 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 2);
+CREATE TABLE records_p03 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 3);
+CREATE TABLE records_p04 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 4);
+CREATE TABLE records_p05 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 5);
+CREATE TABLE records_p06 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 6);
+CREATE TABLE records_p07 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 7);
+CREATE TABLE records_p08 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 8);
+CREATE TABLE records_p09 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 9);
+CREATE TABLE records_p10 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 10);
+CREATE TABLE records_p11 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 11);
+CREATE TABLE records_p12 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 12);
+CREATE TABLE records_p13 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 13);
+CREATE TABLE records_p14 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 14);
+CREATE TABLE records_p15 PARTITION OF records FOR VALUES WITH (MODULUS 16, REMAINDER 15);
+
+INSERT INTO records (id, list_id, title, status, version)
+SELECT id, 1, title, status, version FROM records_unpartitioned;
+
+-- Drops the old table together with its indexes, whose names are reused below
+DROP TABLE records_unpartitioned;
+
+-- Built after the copy, which is faster than maintaining them row by row. Each partition gets its own.
+CREATE INDEX idx_records_list_status_id ON records (list_id, status, id);
+CREATE INDEX idx_records_title_fts ON records USING gin (to_tsvector('simple', title));
+CREATE INDEX idx_records_title_trgm ON records USING gin (title gin_trgm_ops);
+
+ANALYZE records;
@@ -0,0 +1,45 @@
+<%@ taglib prefix="c" uri="jakarta.tags.core" %>
+<%@ taglib prefix="fn" uri="jakarta.tags.functions" %>
+<%@ page pageEncoding="UTF-8" contentType="text/html; charset=UTF-8" language="java"
+         session="false" trimDirectiveWhitespaces="true" %>
+<!DOCTYPE html>
+<html>
+<head>
+    <meta charset="UTF-8">
+    <title>Lists</title>
+    <link href="<c:url value="/resources/css/main-page.css"/>" rel="stylesheet">
+</head>
+<body>
+<div class="page-wrapper">
+    <div class="container">
+        <div class="header-container">
+            <div class="header__text">
+                <h2>Lists</h2>
+            </div>
+        </div>
+
+        <ul class="lists">
+            <li class="lists__item"><a href="<c:url value="/home"/>">ToDo List</a></li>
+            <c:forEach items="${lists}" var="list">
+                <c:if test="${list.id != defaultListId}">
+                    <li class="lists__item">
+                        <a href="<c:url value="/lists/${list.id}"/>">${fn:escapeXml(list.name)}</a>
+                        <c:if test="${not empty list.owner}">
+                            <span class="lists__owner">${fn:escapeXml(list.owner)}</span>
+                        </c:if>
+                    </li>
+                </c:if>
+            </c:forEach>
+        </ul>
+
+        <div class="management-container">
+            <form action="/lists" method="post" class="management-form">
+                <input type="text" name="name" placeholder="New list name..." class="management-form__input">
+                <input type="hidden" name="owner" value="${fn:escapeXml(param.owner)}">
+                <button type="submit" class="management-form__button">Add List</button>
+            </form>
+        </div>
+    </div>
+</div>
+</body>
+</html>
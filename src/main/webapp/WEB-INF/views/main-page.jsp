@@ -1,27 +1,38 @@
 <%@ taglib prefix="c" uri="jakarta.tags.core" %>
 <%@ taglib prefix="fn" uri="jakarta.tags.functions" %>
-<%@ page pageEncoding="UTF-8" contentType="text/html; charset=UTF-8" language="java" %>
+<%@ page pageEncoding="UTF-8" contentType="text/html; charset=UTF-8" language="java"
+         session="false" trimDirectiveWhitespaces="true" buffer="16kb" %>
 <!DOCTYPE html>
 <html>
 <head>
     <meta charset="UTF-8">
-    <title>ToDo List</title>
-    <link href="/resources/css/main-page.css" rel="stylesheet">
+    <title>${empty listName ? 'ToDo List' : fn:escapeXml(listName)}</title>
+    <link href="<c:url value="/resources/css/main-page.css"/>" rel="stylesheet">
 </head>
 <body>
+<%-- Icons are defined once and referenced by every row --%>
+<svg xmlns="http://www.w3.org/2000/svg" style="display: none">
+    <symbol id="icon-approve" viewBox="0 0 17 17">
+        <path d="M8.5 0C3.808 0 0 3.808 0 8.5C0 13.192 3.808 17 8.5 17C13.192 17 17 13.192 17 8.5C17 3.808 13.192 0 8.5 0Z"/>
+    </symbol>
+    <symbol id="icon-close" viewBox="0 0 24 24">
+        <path d="M12.071 13.485l-2.828 2.829-1.415-1.415 2.829-2.828-2.829-2.828 1.415-1.415 2.828 2.829L14.9 7.828l1.707 1.707-2.536 2.536z"/>
+    </symbol>
+</svg>
 <div class="page-wrapper">
     <div class="container">
         <div class="header-container">
             <div class="header__text">
-                <h2>ToDo List</h2>
+                <h2>${empty listName ? 'ToDo List' : fn:escapeXml(listName)}</h2>
+                <a href="<c:url value="/lists"/>" class="header__lists-link">All lists</a>
             </div>
             <div class="header__statistics">
-                <span>${numberOfActiveRecords} more to do, ${numberOfDoneRecords} done</span>
+                <span class="header__counters">${numberOfActiveRecords} more to do, ${numberOfDoneRecords} done</span>
             </div>
         </div>
 
         <div class="filter-container">
-            <form action="/home" method="get" class="filter-form">
+            <form action="${listPath}" method="get" class="filter-form">
                 <div class="filter-form__input">
                     <input type="radio" id="filter-form__status_all" name="filter"
                            value="all" ${empty param.filter or (fn:toLowerCase(param.filter) != 'done' and fn:toLowerCase(param.filter) != 'active') ? 'checked' : ''}>
@@ -37,54 +48,45 @@
                            value="done" ${fn:toLowerCase(param.filter) == 'done' ? 'checked' : ''}>
                     <label for="filter-form__status_done">Done</label>
                 </div>
+                <c:if test="${param.view == 'all'}">
+                    <input type="hidden" name="view" value="all">
+                </c:if>
+                <input type="search" name="q" value="${fn:escapeXml(param.q)}" placeholder="Search..."
+                       class="filter-form__search">
                 <button type="submit">Apply</button>
             </form>
         </div>
+        <%-- The head, counters and filter reach the browser (and the stylesheet request starts) before the rows render --%>
+        <% out.flush(); %>
 
 
-        <div class="records-container">
+        <c:url var="eventsUrl" value="/events">
+            <c:param name="list" value="${listId}"/>
+        </c:url>
+        <div class="records-container" data-filter="${fn:escapeXml(fn:toLowerCase(param.filter))}"
+             data-last-page="${empty nextCursor and empty param.q}" data-actions="${actionPath}"
+             data-events="${eventsUrl}">
             <c:choose>
                 <c:when test="${not empty records}">
-                    <c:forEach items="${records}" var="record">
-                        <div class="record">
-                            <div class="record__title"><span
-                                    class="${record.status == 'DONE' ? 'record__title_strikethrough': ''}">${record.title}</span>
-                            </div>
-                            <div class="record__controls">
-                                <c:if test="${record.status == 'ACTIVE'}">
-                                    <form action="/make-record-done" method="post" class="record__controls-form">
-                                        <input type="hidden" name="id" value="${record.id}">
-                                        <input type="hidden" name="filter" value="${fn:toLowerCase(param.filter)}">
-                                        <button type="submit" class="button_type_approve">
-                                            <svg width="17" height="17" viewBox="0 0 17 17" fill="none"
-                                                 xmlns="http://www.w3.org/2000/svg">
-                                                <g clip-path="url(#clip0_258_5036)">
-                                                    <path d="M8.5 0C3.808 0 0 3.808 0 8.5C0 13.192 3.808 17 8.5 17C13.192 17 17 13.192 17 8.5C17 3.808 13.192 0 8.5 0Z"/>
-                                                </g>
-                                                <defs>
-                                                    <clipPath id="clip0_258_5036">
-                                                        <rect width="17" height="17" fill="white"></rect>
-                                                    </clipPath>
-                                                </defs>
-                                            </svg>
-                                        </button>
-                                    </form>
-                                </c:if>
-                                <form action="/delete-record" method="post" class="record__controls-form">
-                                    <input type="hidden" name="id" value="${record.id}">
-                                    <input type="hidden" name="filter" value="${fn:toLowerCase(param.filter)}">
-                                    <button type="submit" class="button_type_close">
-                                        <svg width="24" height="24" viewBox="0 0 24 24">
-                                            <path d="M12.071 13.485l-2.828 2.829-1.415-1.415 2.829-2.828-2.829-2.828 1.415-1.415 2.828 2.829L14.9 7.828l1.707 1.707-2.536 2.536z"/>
-                                        </svg>
-                                    </button>
-                                </form>
-                            </div>
-                        </div>
+                    <c:set var="filter" value="${fn:escapeXml(fn:toLowerCase(param.filter))}"/>
+                    <%-- Rows are written unindented and flushed in chunks, so long lists arrive while they render --%>
+                    <c:forEach items="${records}" var="record" varStatus="row">
+<div class="record" data-id="${record.id}" data-status="${record.status}"><div class="record__title"><span${record.status == 'DONE' ? ' class="record__title_strikethrough"' : ''}>${record.title}</span></div>
+<div class="record__controls"><c:if test="${record.status == 'ACTIVE'}"><form action="${actionPath}/make-record-done" method="post" class="record__controls-form">
+<input type="hidden" name="id" value="${record.id}"><input type="hidden" name="filter" value="${filter}">
+<button type="submit" class="button_type_approve"><svg width="17" height="17"><use href="#icon-approve"/></svg></button></form></c:if>
+<form action="${actionPath}/delete-record" method="post" class="record__controls-form">
+<input type="hidden" name="id" value="${record.id}"><input type="hidden" name="filter" value="${filter}">
+<button type="submit" class="button_type_close"><svg width="24" height="24"><use href="#icon-close"/></svg></button></form></div></div><c:if test="${row.count % 500 == 0}"><% out.flush(); %></c:if>
                     </c:forEach>
                 </c:when>
                 <c:otherwise>
                     <c:choose>
+                        <c:when test="${not empty param.q}">
+                            <div class="hint">
+                                <span> Nothing matches &quot;${fn:escapeXml(param.q)}&quot;</span>
+                            </div>
+                        </c:when>
                         <c:when test="${fn:toLowerCase(param.filter)=='active'}">
                             <div class="hint">
                                 <span> There are no active tasks!</span>
@@ -106,13 +108,67 @@
 
         </div>
 
+        <c:if test="${not empty previousCursor or not empty nextCursor}">
+            <div class="pagination-container">
+                <c:if test="${not empty previousCursor}">
+                    <c:url var="previousPageUrl" value="${listPath}">
+                        <c:param name="filter" value="${fn:toLowerCase(param.filter)}"/>
+                        <c:param name="before" value="${previousCursor}"/>
+                        <c:if test="${not empty param.limit}">
+                            <c:param name="limit" value="${param.limit}"/>
+                        </c:if>
+                    </c:url>
+                    <a href="${previousPageUrl}" class="pagination__link">&larr; Previous</a>
+                </c:if>
+                <c:if test="${not empty nextCursor}">
+                    <c:url var="nextPageUrl" value="${listPath}">
+                        <c:param name="filter" value="${fn:toLowerCase(param.filter)}"/>
+                        <c:param name="after" value="${nextCursor}"/>
+                        <c:if test="${not empty param.limit}">
+                            <c:param name="limit" value="${param.limit}"/>
+                        </c:if>
+                    </c:url>
+                    <a href="${nextPageUrl}" class="pagination__link pagination__link_next">Next &rarr;</a>
+                </c:if>
+                <c:url var="allRecordsUrl" value="${listPath}">
+                    <c:param name="filter" value="${fn:toLowerCase(param.filter)}"/>
+                    <c:param name="view" value="all"/>
+                </c:url>
+                <a href="${allRecordsUrl}" class="pagination__link">Show all</a>
+            </div>
+        </c:if>
+
+        <%-- Copied by main-page.js for records created after the page was rendered --%>
+        <template id="record-template">
+            <div class="record">
+                <div class="record__title"><span></span></div>
+                <div class="record__controls">
+                    <form action="${actionPath}/make-record-done" method="post" class="record__controls-form">
+                        <input type="hidden" name="id">
+                        <input type="hidden" name="filter" value="${fn:escapeXml(fn:toLowerCase(param.filter))}">
+                        <button type="submit" class="button_type_approve">
+                            <svg width="17" height="17"><use href="#icon-approve"/></svg>
+                        </button>
+                    </form>
+                    <form action="${actionPath}/delete-record" method="post" class="record__controls-form">
+                        <input type="hidden" name="id">
+                        <input type="hidden" name="filter" value="${fn:escapeXml(fn:toLowerCase(param.filter))}">
+                        <button type="submit" class="button_type_close">
+                            <svg width="24" height="24"><use href="#icon-close"/></svg>
+                        </button>
+                    </form>
+                </div>
+            </div>
+        </template>
+
         <div class="management-container">
-            <form action="/add-record" method="post" class="management-form">
+            <form action="${actionPath}/add-record" method="post" class="management-form">
                 <input type="text" name="title" placeholder="What needs to be done..." class="management-form__input">
                 <button type="submit" class="management-form__button">Add Record</button>
             </form>
         </div>
     </div>
 </div>
+<script src="<c:url value="/resources/js/main-page.js"/>" defer></script>
 </body>
 </html>
@@ -0,0 +1,168 @@
+/*
+ * Keeps the main page current without reloading /home:
+ * - the add, done and delete forms are sent with fetch() and the answer is applied in place;
+ * - /events change events from other tabs and clients are applied the same way.
+ * Both paths are idempotent, so a tab applying its own change twice is harmless. Events missed
+ * while disconnected (network loss, or the server dropping a slow stream) cannot be replayed, so a
+ * reconnect reloads the page once.
+ */
+(function () {
+    var container = document.querySelector('.records-container');
+    var template = document.getElementById('record-template');
+    if (!container || !template) {
+        return;
+    }
+    var filter = container.dataset.filter === 'active' || container.dataset.filter === 'done'
+        ? container.dataset.filter.toUpperCase() : null;
+    var lastPage = container.dataset.lastPage === 'true';
+    // The page shows one list; its actions live under /lists/{id} except for the default list's
+    var actions = container.dataset.actions || '';
+    var counters = document.querySelector('.header__counters');
+
+    function matches(status) {
+        return filter === null || filter === status;
+    }
+
+    function row(id) {
+        return container.querySelector('.record[data-id="' + id + '"]');
+    }
+
+    function render(id, title, status) {
+        var record = template.content.firstElementChild.cloneNode(true);
+        record.dataset.id = id;
+        record.dataset.status = status;
+        var text = record.querySelector('.record__title span');
+        text.textContent = title;
+        if (status === 'DONE') {
+            text.className = 'record__title_strikethrough';
+            record.querySelector('form[action="' + actions + '/make-record-done"]').remove();
+        }
+        record.querySelectorAll('input[name="id"]').forEach(function (input) {
+            input.value = id;
+        });
+        return record;
+    }
+
+    function created(record) {
+        // New ids are the largest, so they belong at the end of the last page only
+        if (lastPage && matches(record.status) && !row(record.id)) {
+            var hint = container.querySelector('.hint');
+            if (hint) {
+                hint.remove();
+            }
+            container.appendChild(render(record.id, record.title, record.status));
+        }
+    }
+
+    function statusChanged(id, status) {
+        var existing = row(id);
+        if (!existing) {
+            return;
+        }
+        if (!matches(status)) {
+            existing.remove();
+        } else if (existing.dataset.status !== status) {
+            existing.replaceWith(render(id, existing.querySelector('.record__title span').textContent, status));
+        }
+    }
+
+    function deleted(id) {
+        var existing = row(id);
+        if (existing) {
+            existing.remove();
+        }
+    }
+
+    function showCounters(done, active) {
+        counters.textContent = active + ' more to do, ' + done + ' done';
+    }
+
+    function send(form, attempt) {
+        return fetch(form.action, {
+            method: 'POST',
+            headers: {'Accept': 'application/json'},
+            body: new URLSearchParams(new FormData(form))
+        }).then(function (response) {
+            if (response.status === 404) {
+                return null;
+            }
+            // Turned away by admission control: try again when the server says so
+            if ((response.status === 429 || response.status === 503) && (attempt || 0) < 3) {
+                var seconds = Number(response.headers.get('Retry-After')) || 1;
+                return new Promise(function (resolve) {
+                    setTimeout(resolve, seconds * 1000);
+                }).then(function () {
+                    return send(form, (attempt || 0) + 1);
+                });
+            }
+            if (!response.ok) {
+                throw new Error(response.status);
+            }
+            return response.json();
+        });
+    }
+
+    document.addEventListener('submit', function (event) {
+        var form = event.target;
+        var action = form.getAttribute('action');
+        if (action !== actions + '/add-record' && action !== actions + '/make-record-done'
+            && action !== actions + '/delete-record') {
+            return;
+        }
+        action = action.substring(actions.length);
+        event.preventDefault();
+        if (action === '/add-record' && !form.elements.namedItem('title').value.trim()) {
+            return;
+        }
+        send(form).then(function (change) {
+            if (change === null) {
+                if (action === '/add-record') {
+                    // The list itself is gone: let the page say so
+                    location.reload();
+                } else {
+                    // Already deleted elsewhere
+                    deleted(Number(form.elements.namedItem('id').value));
+                }
+                return;
+            }
+            if (action === '/add-record') {
+                created(change.record);
+                form.reset();
+            } else if (action === '/make-record-done') {
+                statusChanged(change.id, change.record.status);
+            } else {
+                deleted(change.id);
+            }
+            showCounters(change.numberOfDoneRecords, change.numberOfActiveRecords);
+        }).catch(function () {
+            // Fall back to the classic post and redirect
+            form.submit();
+        });
+    });
+
+    if (!window.EventSource) {
+        return;
+    }
+    var connected = false;
+    // Subscribed to this list only, so every event received belongs on this page
+    var source = new EventSource(container.dataset.events);
+    source.onopen = function () {
+        if (connected) {
+            location.reload();
+        }
+        connected = true;
+    };
+    source.addEventListener('records', function (message) {
+        var event = JSON.parse(message.data);
+        if (event.type === 'CREATED') {
+            event.records.forEach(created);
+        } else if (event.type === 'STATUS_CHANGED') {
+            event.ids.forEach(function (id) {
+                statusChanged(id, event.status);
+            });
+        } else if (event.type === 'DELETED') {
+            event.ids.forEach(deleted);
+        }
+        showCounters(event.done, event.active);
+    });
+})();
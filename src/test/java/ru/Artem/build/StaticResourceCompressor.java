@@ -0,0 +1,79 @@
+package ru.Artem.build;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step run in {@code prepare-package}: writes {@code .gz} and {@code .br} siblings of the
+ * text files under a web resources directory, at maximum compression since it runs once per build.
+ * {@code EncodedResourceResolver} serves them to clients that accept the encoding. A variant that
+ * is not smaller than the original is not written.
+ * <p>
+ * Arguments: the source directory and the directory to mirror the variants into.
+ */
+public final class StaticResourceCompressor {
+    private static final Set<String> EXTENSIONS = Set.of("css", "js", "svg", "html", "json", "txt");
+
+    private StaticResourceCompressor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: StaticResourceCompressor <source dir> <target dir>");
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Brotli4jLoader.ensureAvailability();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(Files::isRegularFile).filter(StaticResourceCompressor::isCompressible).toList();
+        }
+        for (Path file : files) {
+            byte[] original = Files.readAllBytes(file);
+            Path output = target.resolve(source.relativize(file).toString());
+            Files.createDirectories(output.getParent());
+            write(output, ".gz", gzip(original), original.length);
+            write(output, ".br", Encoder.compress(original, new Encoder.Parameters().setQuality(11)), original.length);
+        }
+    }
+
+    static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && EXTENSIONS.contains(name.substring(dot + 1));
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void write(Path file, String suffix, byte[] compressed, int originalLength) throws IOException {
+        Path variant = file.resolveSibling(file.getFileName() + suffix);
+        if (compressed.length < originalLength) {
+            Files.write(variant, compressed);
+        } else {
+            Files.deleteIfExists(variant);
+        }
+    }
+}
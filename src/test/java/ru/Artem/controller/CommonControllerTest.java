@@ -6,15 +6,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.Model;
-import ru.Artem.entity.Record;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordChangeDto;
+import ru.Artem.entity.dto.RecordView;
 import ru.Artem.entity.dto.RecordsContainerDto;
 import ru.Artem.service.RecordService;
+import ru.Artem.service.TodoListService;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,27 +38,80 @@ class CommonControllerTest {
     @Mock
     private RecordService recordService;
 
+    @Mock
+    private TodoListService todoListService;
+
     @Mock
     private Model model;
 
     @InjectMocks
     private CommonController commonController;
 
-    private Record activeRecord;
-    private Record doneRecord;
-    private List<Record> records;
+    private RecordView activeRecord;
+    private RecordView doneRecord;
+    private List<RecordView> records;
     private RecordsContainerDto containerDto;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private ServletWebRequest webRequest;
 
     @BeforeEach
     void setUp() {
-        activeRecord = new Record("Test Active Task");
-        activeRecord.setStatus(RecordStatus.ACTIVE);
+        activeRecord = new RecordView(0, TodoList.DEFAULT_ID, "Test Active Task", RecordStatus.ACTIVE, 0);
         
-        doneRecord = new Record("Test Done Task");
-        doneRecord.setStatus(RecordStatus.DONE);
+        doneRecord = new RecordView(0, TodoList.DEFAULT_ID, "Test Done Task", RecordStatus.DONE, 0);
         
         records = Arrays.asList(activeRecord, doneRecord);
         containerDto = new RecordsContainerDto(records, 1, 1);
+
+        request = new MockHttpServletRequest("GET", "/home");
+        response = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(request, response);
+    }
+
+    @Test
+    void getMainPage_ForList_ShouldScopeQueryAndLinksToThatList() throws Exception {
+        when(todoListService.requireList(2)).thenReturn(new TodoList("Groceries", null));
+        when(recordService.findRecordsPage(2, null, null, null, null)).thenReturn(containerDto);
+
+        assertEquals("main-page", commonController.getMainPage(2, model, null, null, null, null, null, null, webRequest).call());
+        verify(model).addAttribute("listName", "Groceries");
+        verify(model).addAttribute("listPath", "/lists/2");
+        verify(model).addAttribute("actionPath", "/lists/2");
+        assertEquals("redirect:/lists/2", commonController.addRecord(2, "Milk").call());
+        verify(recordService).saveRecord(2, "Milk");
+    }
+
+    @Test
+    void getMainPage_ForUnknownList_ShouldAnswerNotFound() {
+        when(todoListService.requireList(9)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> commonController.getMainPage(9, model, null, null, null, null, null, null, webRequest).call());
+        assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> commonController.addRecord(9, "Milk").call());
+        verify(recordService, never()).findRecordsPage(anyInt(), any(), any(), any(), any());
+        verify(recordService, never()).saveRecord(anyInt(), any());
+    }
+
+    @Test
+    void getListsPage_ShouldExposeListsAndDefaultListId() throws Exception {
+        List<TodoList> lists = List.of(new TodoList("Groceries", "bob"));
+        when(todoListService.findLists("bob")).thenReturn(lists);
+
+        assertEquals("lists-page", commonController.getListsPage(model, "bob").call());
+        verify(model).addAttribute("lists", lists);
+        verify(model).addAttribute("defaultListId", TodoList.DEFAULT_ID);
+    }
+
+    @Test
+    void addList_ShouldRedirectToNewListOrBackToLists() throws Exception {
+        TodoList created = mock(TodoList.class);
+        when(created.getId()).thenReturn(5);
+        when(todoListService.createList("Work", "bob")).thenReturn(created);
+
+        assertEquals("redirect:/lists/5", commonController.addList("Work", "bob").call());
+        assertEquals("redirect:/lists", commonController.addList(" ", null).call());
     }
 
     @Test
@@ -56,200 +122,402 @@ class CommonControllerTest {
     }
 
     @Test
-    void getMainPage_WithNullFilter_ShouldReturnMainPage() {
-        when(recordService.findAllRecords(null)).thenReturn(containerDto);
+    void getMainPage_WithNullFilter_ShouldReturnMainPage() throws Exception {
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, null)).thenReturn(containerDto);
 
-        String result = commonController.getMainPage(model, null);
+        String result = commonController.getMainPage(null, model, null, null, null, null, null, null, webRequest).call();
 
         assertEquals("main-page", result);
-        verify(recordService, times(1)).findAllRecords(null);
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, null, null, null, null);
         verify(model, times(1)).addAttribute("numberOfDoneRecords", 1);
         verify(model, times(1)).addAttribute("numberOfActiveRecords", 1);
         verify(model, times(1)).addAttribute("records", records);
     }
 
     @Test
-    void getMainPage_WithEmptyFilter_ShouldReturnMainPage() {
-        when(recordService.findAllRecords("")).thenReturn(containerDto);
+    void getMainPage_WithEmptyFilter_ShouldReturnMainPage() throws Exception {
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "", null, null, null)).thenReturn(containerDto);
 
-        String result = commonController.getMainPage(model, "");
+        String result = commonController.getMainPage(null, model, "", null, null, null, null, null, webRequest).call();
 
         assertEquals("main-page", result);
-        verify(recordService, times(1)).findAllRecords("");
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, "", null, null, null);
         verify(model, times(1)).addAttribute("numberOfDoneRecords", 1);
         verify(model, times(1)).addAttribute("numberOfActiveRecords", 1);
         verify(model, times(1)).addAttribute("records", records);
     }
 
     @Test
-    void getMainPage_WithActiveFilter_ShouldReturnMainPage() {
-        when(recordService.findAllRecords("ACTIVE")).thenReturn(containerDto);
+    void getMainPage_WithActiveFilter_ShouldReturnMainPage() throws Exception {
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "ACTIVE", null, null, null)).thenReturn(containerDto);
 
-        String result = commonController.getMainPage(model, "ACTIVE");
+        String result = commonController.getMainPage(null, model, "ACTIVE", null, null, null, null, null, webRequest).call();
 
         assertEquals("main-page", result);
-        verify(recordService, times(1)).findAllRecords("ACTIVE");
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, "ACTIVE", null, null, null);
         verify(model, times(1)).addAttribute("numberOfDoneRecords", 1);
         verify(model, times(1)).addAttribute("numberOfActiveRecords", 1);
         verify(model, times(1)).addAttribute("records", records);
     }
 
     @Test
-    void getMainPage_WithDoneFilter_ShouldReturnMainPage() {
-        when(recordService.findAllRecords("DONE")).thenReturn(containerDto);
+    void getMainPage_WithDoneFilter_ShouldReturnMainPage() throws Exception {
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "DONE", null, null, null)).thenReturn(containerDto);
 
-        String result = commonController.getMainPage(model, "DONE");
+        String result = commonController.getMainPage(null, model, "DONE", null, null, null, null, null, webRequest).call();
 
         assertEquals("main-page", result);
-        verify(recordService, times(1)).findAllRecords("DONE");
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, "DONE", null, null, null);
         verify(model, times(1)).addAttribute("numberOfDoneRecords", 1);
         verify(model, times(1)).addAttribute("numberOfActiveRecords", 1);
         verify(model, times(1)).addAttribute("records", records);
     }
 
     @Test
-    void getMainPage_WithEmptyRecords_ShouldReturnMainPage() {
+    void getMainPage_WithEmptyRecords_ShouldReturnMainPage() throws Exception {
         RecordsContainerDto emptyContainer = new RecordsContainerDto(Collections.emptyList(), 0, 0);
-        when(recordService.findAllRecords(null)).thenReturn(emptyContainer);
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, null)).thenReturn(emptyContainer);
 
-        String result = commonController.getMainPage(model, null);
+        String result = commonController.getMainPage(null, model, null, null, null, null, null, null, webRequest).call();
 
         assertEquals("main-page", result);
-        verify(recordService, times(1)).findAllRecords(null);
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, null, null, null, null);
         verify(model, times(1)).addAttribute("numberOfDoneRecords", 0);
         verify(model, times(1)).addAttribute("numberOfActiveRecords", 0);
         verify(model, times(1)).addAttribute("records", Collections.emptyList());
     }
 
     @Test
-    void addRecord_WithValidTitle_ShouldRedirectToHome() {
+    void getMainPage_WithCursor_ShouldPassCursorAndExposePageLinks() throws Exception {
+        RecordsContainerDto page = new RecordsContainerDto(records, 1, 1, 10, 20);
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "active", 9, null, 25)).thenReturn(page);
+
+        String result = commonController.getMainPage(null, model, "active", 9, null, 25, null, null, webRequest).call();
+
+        assertEquals("main-page", result);
+        verify(recordService, times(1)).findRecordsPage(TodoList.DEFAULT_ID, "active", 9, null, 25);
+        verify(model, times(1)).addAttribute("records", records);
+        verify(model, times(1)).addAttribute("previousCursor", 10);
+        verify(model, times(1)).addAttribute("nextCursor", 20);
+    }
+
+    @Test
+    void getMainPage_WithAllView_ShouldRenderWholeListWithoutPageLinks() throws Exception {
+        when(recordService.countRecordsByStatus(TodoList.DEFAULT_ID))
+                .thenReturn(Map.of(RecordStatus.DONE, 4L, RecordStatus.ACTIVE, 6L));
+        when(recordService.findAllRecords(TodoList.DEFAULT_ID, "active")).thenReturn(records);
+
+        String result = commonController.getMainPage(null, model, "active", 9, null, 25, "all", null, webRequest).call();
+
+        assertEquals("main-page", result);
+        verify(recordService, times(1)).findAllRecords(TodoList.DEFAULT_ID, "active");
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+        verify(model, times(1)).addAttribute("records", records);
+        verify(model, times(1)).addAttribute("numberOfDoneRecords", 4);
+        verify(model, times(1)).addAttribute("numberOfActiveRecords", 6);
+        verify(model, never()).addAttribute(eq("nextCursor"), any());
+        assertNotEquals(CommonController.pageETag(0L, TodoList.DEFAULT_ID, "active", null, null, null, null), response.getHeader("ETag"));
+    }
+
+    @Test
+    void getMainPage_WithQuery_ShouldSearchAndKeyETagByQuery() throws Exception {
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(42L);
+        when(recordService.searchRecords(TodoList.DEFAULT_ID, "milk", "active", 25)).thenReturn(containerDto);
+
+        String result = commonController.getMainPage(null, model, "active", 9, null, 25, null, "milk", webRequest).call();
+
+        assertEquals("main-page", result);
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+        verify(model, times(1)).addAttribute("records", records);
+        assertEquals(CommonController.pageETag(42L, TodoList.DEFAULT_ID, "active", null, null, 25, " Milk "), response.getHeader("ETag"));
+        assertNotEquals(CommonController.pageETag(42L, TodoList.DEFAULT_ID, "active", null, null, 25, null), response.getHeader("ETag"));
+    }
+
+    @Test
+    void getMainPage_ShouldSendETagAndRequireRevalidation() throws Exception {
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(42L);
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "done", null, null, null)).thenReturn(containerDto);
+
+        String result = commonController.getMainPage(null, model, "done", null, null, null, null, null, webRequest).call();
+
+        assertEquals("main-page", result);
+        assertEquals(CommonController.pageETag(42L, TodoList.DEFAULT_ID, "done", null, null, null, null), response.getHeader("ETag"));
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void getMainPage_OfOtherList_ShouldBuildETagFromThatListsVersion() {
+        when(recordService.getDataVersion(2)).thenReturn(7L);
+        request.addHeader("If-None-Match", CommonController.pageETag(7L, 2, null, null, null, null, null));
+
+        assertNull(commonController.getMainPage(2, model, null, null, null, null, null, null, webRequest));
+
+        assertEquals(304, response.getStatus());
+        verify(recordService, never()).getDataVersion(TodoList.DEFAULT_ID);
+    }
+
+    @Test
+    void getMainPage_WithMatchingIfNoneMatch_ShouldAnswer304WithoutLoadingRecords() {
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(42L);
+        request.addHeader("If-None-Match", CommonController.pageETag(42L, TodoList.DEFAULT_ID, "done", null, null, null, null));
+
+        Callable<String> result = commonController.getMainPage(null, model, "done", null, null, null, null, null, webRequest);
+
+        assertNull(result);
+        assertEquals(304, response.getStatus());
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+        verifyNoInteractions(model);
+    }
+
+    @Test
+    void getMainPage_ShouldLeaveDataAccessToReturnedCallable() throws Exception {
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, null)).thenReturn(containerDto);
+
+        Callable<String> result = commonController.getMainPage(null, model, null, null, null, null, null, null, webRequest);
+
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+        verifyNoInteractions(model);
+        assertEquals("main-page", result.call());
+        verify(model, times(1)).addAttribute("records", records);
+    }
+
+    @Test
+    void getMainPage_WithETagOfOlderVersion_ShouldRenderPage() throws Exception {
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(43L);
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "done", null, null, null)).thenReturn(containerDto);
+        request.addHeader("If-None-Match", CommonController.pageETag(42L, TodoList.DEFAULT_ID, "done", null, null, null, null));
+
+        String result = commonController.getMainPage(null, model, "done", null, null, null, null, null, webRequest).call();
+
+        assertEquals("main-page", result);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void pageETag_ShouldDifferPerFilterAndPageAndIgnoreFilterCase() {
+        String done = CommonController.pageETag(7L, TodoList.DEFAULT_ID, "done", null, null, null, null);
+
+        assertEquals(done, CommonController.pageETag(7L, TodoList.DEFAULT_ID, " DONE ", null, null, null, null));
+        assertNotEquals(done, CommonController.pageETag(7L, TodoList.DEFAULT_ID, "active", null, null, null, null));
+        assertNotEquals(done, CommonController.pageETag(7L, TodoList.DEFAULT_ID, "done", 10, null, null, null));
+        assertNotEquals(done, CommonController.pageETag(8L, TodoList.DEFAULT_ID, "done", null, null, null, null));
+        assertTrue(done.startsWith("W/\"") && done.endsWith("\""), done);
+    }
+
+    @Test
+    void pageETag_ForQueriesWithEqualHashCodes_ShouldDifferAndStayAValidTag() {
+        assertEquals("a~".hashCode(), "b_".hashCode());
+        String first = CommonController.pageETag(7L, TodoList.DEFAULT_ID, null, null, null, 25, "a~");
+
+        assertNotEquals(first, CommonController.pageETag(7L, TodoList.DEFAULT_ID, null, null, null, 25, "b_"));
+        String quoted = CommonController.pageETag(7L, TodoList.DEFAULT_ID, null, null, null, 25, "say \"hi\"");
+        assertFalse(quoted.substring(3, quoted.length() - 1).matches(".*[\"\\s].*"), quoted);
+    }
+
+    @Test
+    void addRecord_WithValidTitle_ShouldRedirectToHome() throws Exception {
         String title = "New Task";
 
-        String result = commonController.addRecord(title);
+        String result = commonController.addRecord(null, title).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).saveRecord(title);
+        verify(recordService, times(1)).saveRecord(TodoList.DEFAULT_ID, title);
     }
 
     @Test
-    void addRecord_WithNullTitle_ShouldRedirectToHome() {
-        String result = commonController.addRecord(null);
+    void addRecord_WithNullTitle_ShouldRedirectToHome() throws Exception {
+        String result = commonController.addRecord(null, null).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).saveRecord(null);
+        verify(recordService, times(1)).saveRecord(TodoList.DEFAULT_ID, null);
     }
 
     @Test
-    void addRecord_WithEmptyTitle_ShouldRedirectToHome() {
-        String result = commonController.addRecord("");
+    void addRecord_WithEmptyTitle_ShouldRedirectToHome() throws Exception {
+        String result = commonController.addRecord(null, "").call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).saveRecord("");
+        verify(recordService, times(1)).saveRecord(TodoList.DEFAULT_ID, "");
     }
 
     @Test
-    void makeRecordDone_WithNullFilter_ShouldRedirectToHome() {
+    void makeRecordDone_WithNullFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
 
-        String result = commonController.makeRecordDone(id, null);
+        String result = commonController.makeRecordDone(null, id, null).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).updateRecordStatus(id, RecordStatus.DONE);
+        verify(recordService, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE);
     }
 
     @Test
-    void makeRecordDone_WithEmptyFilter_ShouldRedirectToHome() {
+    void makeRecordDone_WithEmptyFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
 
-        String result = commonController.makeRecordDone(id, "");
+        String result = commonController.makeRecordDone(null, id, "").call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).updateRecordStatus(id, RecordStatus.DONE);
+        verify(recordService, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE);
     }
 
     @Test
-    void makeRecordDone_WithActiveFilter_ShouldRedirectToHomeWithFilter() {
+    void makeRecordDone_WithActiveFilter_ShouldRedirectToHomeWithFilter() throws Exception {
         int id = 1;
         String filter = "ACTIVE";
 
-        String result = commonController.makeRecordDone(id, filter);
+        String result = commonController.makeRecordDone(null, id, filter).call();
 
         assertEquals("redirect:/home?filter=ACTIVE", result);
-        verify(recordService, times(1)).updateRecordStatus(id, RecordStatus.DONE);
+        verify(recordService, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE);
     }
 
     @Test
-    void makeRecordDone_WithDoneFilter_ShouldRedirectToHomeWithFilter() {
+    void makeRecordDone_WithDoneFilter_ShouldRedirectToHomeWithFilter() throws Exception {
         int id = 1;
         String filter = "DONE";
 
-        String result = commonController.makeRecordDone(id, filter);
+        String result = commonController.makeRecordDone(null, id, filter).call();
 
         assertEquals("redirect:/home?filter=DONE", result);
-        verify(recordService, times(1)).updateRecordStatus(id, RecordStatus.DONE);
+        verify(recordService, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE);
     }
 
     @Test
-    void makeRecordDone_WithWhitespaceFilter_ShouldRedirectToHome() {
+    void makeRecordDone_WithWhitespaceFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
         String filter = "   ";
 
-        String result = commonController.makeRecordDone(id, filter);
+        String result = commonController.makeRecordDone(null, id, filter).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).updateRecordStatus(id, RecordStatus.DONE);
+        verify(recordService, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE);
     }
 
     @Test
-    void deleteRecord_WithNullFilter_ShouldRedirectToHome() {
+    void deleteRecord_WithNullFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
 
-        String result = commonController.deleteRecord(id, null);
+        String result = commonController.deleteRecord(null, id, null).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).deleteRecordStatus(id);
+        verify(recordService, times(1)).deleteRecordStatus(TodoList.DEFAULT_ID, id);
     }
 
     @Test
-    void deleteRecord_WithEmptyFilter_ShouldRedirectToHome() {
+    void deleteRecord_WithEmptyFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
 
-        String result = commonController.deleteRecord(id, "");
+        String result = commonController.deleteRecord(null, id, "").call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).deleteRecordStatus(id);
+        verify(recordService, times(1)).deleteRecordStatus(TodoList.DEFAULT_ID, id);
     }
 
     @Test
-    void deleteRecord_WithActiveFilter_ShouldRedirectToHomeWithFilter() {
+    void deleteRecord_WithActiveFilter_ShouldRedirectToHomeWithFilter() throws Exception {
         int id = 1;
         String filter = "ACTIVE";
 
-        String result = commonController.deleteRecord(id, filter);
+        String result = commonController.deleteRecord(null, id, filter).call();
 
         assertEquals("redirect:/home?filter=ACTIVE", result);
-        verify(recordService, times(1)).deleteRecordStatus(id);
+        verify(recordService, times(1)).deleteRecordStatus(TodoList.DEFAULT_ID, id);
     }
 
     @Test
-    void deleteRecord_WithDoneFilter_ShouldRedirectToHomeWithFilter() {
+    void deleteRecord_WithDoneFilter_ShouldRedirectToHomeWithFilter() throws Exception {
         int id = 1;
         String filter = "DONE";
 
-        String result = commonController.deleteRecord(id, filter);
+        String result = commonController.deleteRecord(null, id, filter).call();
 
         assertEquals("redirect:/home?filter=DONE", result);
-        verify(recordService, times(1)).deleteRecordStatus(id);
+        verify(recordService, times(1)).deleteRecordStatus(TodoList.DEFAULT_ID, id);
     }
 
     @Test
-    void deleteRecord_WithWhitespaceFilter_ShouldRedirectToHome() {
+    void deleteRecord_WithWhitespaceFilter_ShouldRedirectToHome() throws Exception {
         int id = 1;
         String filter = "   ";
 
-        String result = commonController.deleteRecord(id, filter);
+        String result = commonController.deleteRecord(null, id, filter).call();
 
         assertEquals("redirect:/home", result);
-        verify(recordService, times(1)).deleteRecordStatus(id);
+        verify(recordService, times(1)).deleteRecordStatus(TodoList.DEFAULT_ID, id);
+    }
+
+    @Test
+    void makeRecordsDone_ShouldReturnAffectedRowCount() throws Exception {
+        Set<Integer> ids = new LinkedHashSet<>(Arrays.asList(1, 2, 3));
+        when(recordService.updateRecordsStatus(TodoList.DEFAULT_ID, ids, RecordStatus.DONE)).thenReturn(3);
+
+        String result = commonController.makeRecordsDone(null, ids).call();
+
+        assertEquals("3", result);
+        verify(recordService, times(1)).updateRecordsStatus(TodoList.DEFAULT_ID, ids, RecordStatus.DONE);
+    }
+
+    @Test
+    void deleteRecords_ShouldReturnAffectedRowCount() throws Exception {
+        Set<Integer> ids = new LinkedHashSet<>(Arrays.asList(4, 5));
+        when(recordService.deleteRecords(TodoList.DEFAULT_ID, ids)).thenReturn(1);
+
+        String result = commonController.deleteRecords(null, ids).call();
+
+        assertEquals("1", result);
+        verify(recordService, times(1)).deleteRecords(TodoList.DEFAULT_ID, ids);
+    }
+
+    @Test
+    void addRecordInPlace_ShouldAnswerCreatedRecordWithCounters() throws Exception {
+        RecordView saved = new RecordView(5, TodoList.DEFAULT_ID, "Fetched", RecordStatus.ACTIVE, 0);
+        when(recordService.saveRecord(TodoList.DEFAULT_ID, "Fetched")).thenReturn(saved);
+        when(recordService.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(Map.of(RecordStatus.DONE, 1L, RecordStatus.ACTIVE, 3L));
+
+        ResponseEntity<RecordChangeDto> result = commonController.addRecordInPlace(null, "Fetched").call();
+
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertSame(saved, result.getBody().getRecord());
+        assertEquals(1, result.getBody().getNumberOfDoneRecords());
+        assertEquals(3, result.getBody().getNumberOfActiveRecords());
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+    }
+
+    @Test
+    void addRecordInPlace_WithBlankTitle_ShouldAnswerBadRequest() throws Exception {
+        when(recordService.saveRecord(TodoList.DEFAULT_ID, " ")).thenReturn(null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, commonController.addRecordInPlace(null, " ").call().getStatusCode());
+        verify(recordService, never()).countRecordsByStatus(TodoList.DEFAULT_ID);
+    }
+
+    @Test
+    void makeRecordDoneInPlace_ShouldAnswerUpdatedRecordOrNotFound() throws Exception {
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 4)).thenReturn(new RecordView(4, TodoList.DEFAULT_ID, "Task", RecordStatus.DONE, 0));
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 9)).thenReturn(null);
+        when(recordService.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(Map.of(RecordStatus.DONE, 2L, RecordStatus.ACTIVE, 0L));
+
+        ResponseEntity<RecordChangeDto> result = commonController.makeRecordDoneInPlace(null, 4).call();
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(RecordStatus.DONE, result.getBody().getRecord().getStatus());
+        assertEquals(2, result.getBody().getNumberOfDoneRecords());
+        assertEquals(HttpStatus.NOT_FOUND, commonController.makeRecordDoneInPlace(null, 9).call().getStatusCode());
+        verify(recordService).updateRecordStatus(TodoList.DEFAULT_ID, 4, RecordStatus.DONE);
+    }
+
+    @Test
+    void deleteRecordInPlace_ShouldAnswerIdWithCountersOrNotFound() throws Exception {
+        when(recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 4)).thenReturn(true);
+        when(recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 9)).thenReturn(false);
+        when(recordService.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(Map.of(RecordStatus.DONE, 0L, RecordStatus.ACTIVE, 1L));
+
+        ResponseEntity<RecordChangeDto> result = commonController.deleteRecordInPlace(null, 4).call();
+
+        assertEquals(4, result.getBody().getId());
+        assertNull(result.getBody().getRecord());
+        assertEquals(1, result.getBody().getNumberOfActiveRecords());
+        assertEquals(HttpStatus.NOT_FOUND, commonController.deleteRecordInPlace(null, 9).call().getStatusCode());
     }
 }
@@ -0,0 +1,228 @@
+package ru.Artem.controller;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.jasper.servlet.JasperInitializer;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+import ru.Artem.dao.RecordDao;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.service.RecordService;
+import ru.Artem.web.HtmlCompressionFilter;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Serves {@code /home?view=all} from an embedded Tomcat that compiles the real main-page.jsp, and
+ * prints HTML bytes (plain and gzipped), time to first byte and total time against the record
+ * count. Records come from memory, so the times are rendering and transfer only.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class MainPageRenderingBenchmark {
+
+    private static final int[] RECORD_COUNTS = {100, 1_000, 10_000, 50_000};
+    private static final int ROUNDS = 5;
+
+    private static final List<RecordView> records = new ArrayList<>();
+    private static Tomcat tomcat;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startTomcat() throws Exception {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext("", new File("src/main/webapp").getAbsolutePath());
+        Tomcat.initWebappDefaults(context);
+        context.addServletContainerInitializer(new JasperInitializer(), null);
+
+        FilterDef compression = new FilterDef();
+        compression.setFilterName("htmlCompressionFilter");
+        compression.setFilter(new HtmlCompressionFilter());
+        compression.setAsyncSupported("true");
+        context.addFilterDef(compression);
+        FilterMap mapping = new FilterMap();
+        mapping.setFilterName("htmlCompressionFilter");
+        mapping.addURLPattern("/*");
+        mapping.setDispatcher("REQUEST");
+        mapping.setDispatcher("FORWARD");
+        mapping.setDispatcher("ASYNC");
+        context.addFilterMap(mapping);
+
+        AnnotationConfigWebApplicationContext mvc = new AnnotationConfigWebApplicationContext();
+        mvc.register(BenchmarkWebConfig.class);
+        Wrapper dispatcher = Tomcat.addServlet(context, "dispatcher", new DispatcherServlet(mvc));
+        dispatcher.setAsyncSupported(true);
+        dispatcher.setLoadOnStartup(1);
+        context.addServletMappingDecoded("/", "dispatcher");
+
+        tomcat.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopTomcat() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Test
+    void allView_ShouldStreamCompactRowsWithEarlyFirstByte() throws Exception {
+        // JSP compilation and JIT warm-up
+        load(1_000);
+        for (int i = 0; i < 20; i++) {
+            fetch(false);
+            fetch(true);
+        }
+
+        System.out.printf("%8s %12s %9s %10s %8s %10s %9s%n",
+                "records", "html bytes", "B/record", "gzip bytes", "ttfb ms", "gzip ttfb", "total ms");
+        Result plain = null;
+        Result gzip = null;
+        for (int count : RECORD_COUNTS) {
+            load(count);
+            plain = best(false);
+            gzip = best(true);
+            System.out.printf("%8d %12d %9d %10d %8.1f %10.1f %9.1f%n", count, plain.bytes, plain.bytes / count, gzip.bytes,
+                    plain.ttfbMillis, gzip.ttfbMillis, plain.totalMillis);
+        }
+
+        // The head is flushed before any row, also through the gzip stream, and rows carry no inline icons
+        assertTrue(plain.ttfbMillis * 10 < plain.totalMillis, "ttfb " + plain.ttfbMillis + " ms of " + plain.totalMillis);
+        assertTrue(gzip.ttfbMillis * 10 < gzip.totalMillis, "gzip ttfb " + gzip.ttfbMillis + " ms of " + gzip.totalMillis);
+        assertTrue(plain.bytes / RECORD_COUNTS[RECORD_COUNTS.length - 1] < 700, plain.bytes + " bytes");
+    }
+
+    private static void load(int count) {
+        records.clear();
+        for (int id = 1; id <= count; id++) {
+            records.add(new RecordView(id, TodoList.DEFAULT_ID, "Task number " + id, id % 3 == 0 ? RecordStatus.DONE : RecordStatus.ACTIVE, 0));
+        }
+    }
+
+    private static Result best(boolean gzip) throws Exception {
+        Result best = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            Result result = fetch(gzip);
+            if (best == null || result.totalMillis < best.totalMillis) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    private static Result fetch(boolean gzip) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/home?view=all"));
+        if (gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+        long start = System.nanoTime();
+        TimingSubscriber body = new TimingSubscriber();
+        HttpResponse<Void> response = client.send(request.build(),
+                info -> HttpResponse.BodySubscribers.fromSubscriber(body));
+        long end = System.nanoTime();
+        assertEquals(200, response.statusCode());
+        return new Result(body.bytes, (body.firstByte - start) / 1e6, (end - start) / 1e6);
+    }
+
+    private record Result(long bytes, double ttfbMillis, double totalMillis) {
+    }
+
+    private static class TimingSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+        long firstByte;
+        long bytes;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                if (firstByte == 0 && buffer.hasRemaining()) {
+                    firstByte = System.nanoTime();
+                }
+                bytes += buffer.remaining();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class BenchmarkWebConfig implements WebMvcConfigurer {
+
+        @Bean
+        public ViewResolver viewResolver() {
+            InternalResourceViewResolver resolver = new InternalResourceViewResolver();
+            resolver.setPrefix("/WEB-INF/views/");
+            resolver.setSuffix(".jsp");
+            return resolver;
+        }
+
+        @Bean
+        public CommonController commonController() {
+            return new CommonController(new RecordService(new MemoryRecordDao(), null, null, null, null), null);
+        }
+
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(new SyncTaskExecutor()));
+        }
+    }
+
+    private static class MemoryRecordDao extends RecordDao {
+        @Override
+        public List<RecordView> scanRecordsAfter(int listId, RecordStatus status, int afterId, int limit) {
+            return records.stream().filter(record -> record.getId() > afterId).limit(limit).toList();
+        }
+
+        @Override
+        public Map<RecordStatus, Long> countRecordsByStatus(int listId) {
+            Map<RecordStatus, Long> counters = new EnumMap<>(RecordStatus.class);
+            counters.put(RecordStatus.DONE, records.stream().filter(record -> record.getStatus() == RecordStatus.DONE).count());
+            counters.put(RecordStatus.ACTIVE, records.size() - counters.get(RecordStatus.DONE));
+            return counters;
+        }
+    }
+}
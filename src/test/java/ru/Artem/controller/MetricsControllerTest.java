@@ -0,0 +1,34 @@
+package ru.Artem.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.Artem.metrics.MetricsSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsControllerTest {
+
+    @Test
+    void getMetrics_ShouldConcatenateAllSources() {
+        MetricsSource first = writer -> writer.gauge("first_metric", "First", 1);
+        MetricsSource second = writer -> writer.counter("second_metric_total", "Second", 2);
+        MetricsController controller = new MetricsController(Arrays.asList(first, second));
+
+        String result = controller.getMetrics();
+
+        assertTrue(result.contains("# TYPE first_metric gauge"));
+        assertTrue(result.contains("first_metric 1"));
+        assertTrue(result.contains("# TYPE second_metric_total counter"));
+        assertTrue(result.contains("second_metric_total 2"));
+        assertTrue(result.indexOf("first_metric") < result.indexOf("second_metric_total"));
+    }
+
+    @Test
+    void getMetrics_WithoutSources_ShouldReturnEmptyBody() {
+        MetricsController controller = new MetricsController(Collections.emptyList());
+
+        assertEquals("", controller.getMetrics());
+    }
+}
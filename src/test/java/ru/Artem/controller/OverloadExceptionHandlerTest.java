@@ -0,0 +1,20 @@
+package ru.Artem.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverloadExceptionHandlerTest {
+
+    @Test
+    void handleRejected_ShouldAnswerServiceUnavailableWithRetryAfter() {
+        ResponseEntity<Void> result = new OverloadExceptionHandler().handleRejected(new RejectedExecutionException("full"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals("1", result.getHeaders().getFirst("Retry-After"));
+    }
+}
@@ -0,0 +1,305 @@
+package ru.Artem.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordRequest;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.entity.dto.RecordsContainerDto;
+import ru.Artem.service.RecordService;
+import ru.Artem.service.TodoListService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecordApiControllerTest {
+
+    @Mock
+    private RecordService recordService;
+
+    @Mock
+    private TodoListService todoListService;
+
+    @InjectMocks
+    private RecordApiController controller;
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private ServletWebRequest webRequest;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/records");
+        response = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(request, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void exportRecords(String filter, RecordView... records) {
+        doAnswer(invocation -> {
+            Consumer<RecordView> sink = invocation.getArgument(2);
+            for (RecordView record : records) {
+                sink.accept(record);
+            }
+            return null;
+        }).when(recordService).exportRecords(eq(TodoList.DEFAULT_ID), eq(filter), any(Consumer.class));
+    }
+
+    @Test
+    void getRecords_ShouldReturnPageAndETag() {
+        RecordsContainerDto page = new RecordsContainerDto(List.of(new RecordView(1, TodoList.DEFAULT_ID, "a", RecordStatus.ACTIVE, 0)), 0, 1, null, 1);
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(7L);
+        when(recordService.findRecordsPage(TodoList.DEFAULT_ID, "active", null, null, 1)).thenReturn(page);
+
+        RecordsContainerDto result = controller.getRecords(TodoList.DEFAULT_ID, "active", null, null, 1, null, webRequest);
+
+        assertSame(page, result);
+        assertEquals(CommonController.pageETag(7L, TodoList.DEFAULT_ID, "active", null, null, 1, null), response.getHeader("ETag"));
+    }
+
+    @Test
+    void getRecords_WithQuery_ShouldSearchInsteadOfPaging() {
+        RecordsContainerDto found = new RecordsContainerDto(List.of(new RecordView(3, TodoList.DEFAULT_ID, "buy milk", RecordStatus.ACTIVE, 0)), 0, 1);
+        when(recordService.searchRecords(TodoList.DEFAULT_ID, "milk", null, null)).thenReturn(found);
+
+        assertSame(found, controller.getRecords(TodoList.DEFAULT_ID, null, 2, null, null, "milk", webRequest));
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+    }
+
+    @Test
+    void getRecords_WithMatchingETag_ShouldAnswerNotModifiedWithoutLoadingRecords() {
+        when(recordService.getDataVersion(TodoList.DEFAULT_ID)).thenReturn(7L);
+        request.addHeader("If-None-Match", CommonController.pageETag(7L, TodoList.DEFAULT_ID, null, null, null, null, null));
+
+        assertNull(controller.getRecords(TodoList.DEFAULT_ID, null, null, null, null, null, webRequest));
+
+        assertEquals(304, response.getStatus());
+        verify(recordService, never()).findRecordsPage(eq(TodoList.DEFAULT_ID), any(), any(), any(), any());
+    }
+
+    @Test
+    void exportRecords_ShouldWriteOneJsonObjectPerLine() throws IOException {
+        exportRecords("done", new RecordView(1, TodoList.DEFAULT_ID, "first", RecordStatus.DONE, 0), new RecordView(5, TodoList.DEFAULT_ID, "say \"hi\"", RecordStatus.DONE, 0));
+
+        ResponseEntity<StreamingResponseBody> result = controller.exportRecords(TodoList.DEFAULT_ID, "done");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals(RecordApiController.NDJSON, result.getHeaders().getContentType().toString());
+        assertEquals("{\"id\":1,\"listId\":1,\"title\":\"first\",\"status\":\"DONE\",\"version\":0}\n"
+                        + "{\"id\":5,\"listId\":1,\"title\":\"say \\\"hi\\\"\",\"status\":\"DONE\",\"version\":0}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportRecords_ShouldNotFlushPerRecordNorCloseResponseStream() throws IOException {
+        RecordView[] records = new RecordView[1000];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new RecordView(i + 1, TodoList.DEFAULT_ID, "task " + i, RecordStatus.ACTIVE, 0);
+        }
+        exportRecords(null, records);
+        int[] flushes = new int[1];
+        boolean[] closed = new boolean[1];
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                target.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        controller.exportRecords(TodoList.DEFAULT_ID, null).getBody().writeTo(out);
+
+        assertEquals(1000, target.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(flushes[0] <= 1, "flushed " + flushes[0] + " times");
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    void exportRecords_WhenClientGoesAway_ShouldRethrowIOException() {
+        exportRecords(null, new RecordView(1, TodoList.DEFAULT_ID, "first", RecordStatus.ACTIVE, 0), new RecordView(2, TodoList.DEFAULT_ID, "second", RecordStatus.ACTIVE, 0));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> controller.exportRecords(TodoList.DEFAULT_ID, null).getBody().writeTo(broken));
+    }
+
+    @Test
+    void createRecord_ShouldAnswerCreatedWithLocation() {
+        RecordView saved = new RecordView(42, TodoList.DEFAULT_ID, "new task", RecordStatus.ACTIVE, 0);
+        when(recordService.saveRecordAsync(TodoList.DEFAULT_ID, "new task")).thenReturn(CompletableFuture.completedFuture(saved));
+
+        ResponseEntity<RecordView> result = controller.createRecord(TodoList.DEFAULT_ID, new RecordRequest("new task", null)).join();
+
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertEquals("/api/records/42", result.getHeaders().getLocation().toString());
+        assertSame(saved, result.getBody());
+    }
+
+    @Test
+    void listRoutes_ForUnknownList_ShouldAnswerNotFoundWithoutTouchingRecords() {
+        when(todoListService.requireList(999)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        ResponseStatusException listing = assertThrows(ResponseStatusException.class,
+                () -> controller.getRecords(999, null, null, null, null, null, webRequest));
+        assertEquals(HttpStatus.NOT_FOUND, listing.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> controller.getRecords(999, null, null, null, null, "milk", webRequest));
+        assertThrows(ResponseStatusException.class, () -> controller.exportRecords(999, null));
+        assertThrows(ResponseStatusException.class, () -> controller.createRecord(999, new RecordRequest("task", null)));
+        verify(recordService, never()).findRecordsPage(anyInt(), any(), any(), any(), any());
+        verify(recordService, never()).searchRecords(anyInt(), any(), any(), any());
+        verify(recordService, never()).exportRecords(anyInt(), any(), any());
+        verify(recordService, never()).saveRecordAsync(anyInt(), any());
+    }
+
+    @Test
+    void createRecord_InOtherList_ShouldNameListInLocation() {
+        RecordView saved = new RecordView(42, 3, "new task", RecordStatus.ACTIVE, 0);
+        when(recordService.saveRecordAsync(3, "new task")).thenReturn(CompletableFuture.completedFuture(saved));
+
+        ResponseEntity<RecordView> result = controller.createRecord(3, new RecordRequest("new task", null)).join();
+
+        assertEquals("/api/records/42?list=3", result.getHeaders().getLocation().toString());
+    }
+
+    @Test
+    void createRecord_WithBlankTitle_ShouldAnswerBadRequest() {
+        when(recordService.saveRecordAsync(TodoList.DEFAULT_ID, "  ")).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.createRecord(TodoList.DEFAULT_ID, new RecordRequest("  ", null)).join().getStatusCode());
+    }
+
+    @Test
+    void getRecord_ShouldAnswerNotFoundForUnknownIdOrRecordOfAnotherList() {
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 9)).thenReturn(null);
+        when(recordService.findRecord(2, 4)).thenReturn(null);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.getRecord(TodoList.DEFAULT_ID, 9).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getRecord(2, 4).getStatusCode());
+    }
+
+    @Test
+    void updateRecordStatus_ShouldAnswerNoContentWhenUpdatedOrAlreadyInStatus() {
+        when(recordService.updateRecordStatus(2, 1, RecordStatus.DONE)).thenReturn(true);
+        when(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE)).thenReturn(false);
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 2)).thenReturn(new RecordView(2, TodoList.DEFAULT_ID, "done", RecordStatus.DONE, 0));
+
+        assertEquals(HttpStatus.NO_CONTENT, controller.updateRecordStatus(2, 1, new RecordRequest(null, RecordStatus.DONE), null).getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT,
+                controller.updateRecordStatus(TodoList.DEFAULT_ID, 2, new RecordRequest(null, RecordStatus.DONE), null).getStatusCode());
+        verify(recordService, never()).findRecord(2, 1);
+    }
+
+    @Test
+    void updateRecordStatus_ShouldAnswerNotFoundOrBadRequest() {
+        when(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 3, RecordStatus.ACTIVE)).thenReturn(false);
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 3)).thenReturn(null);
+
+        assertEquals(HttpStatus.NOT_FOUND,
+                controller.updateRecordStatus(TodoList.DEFAULT_ID, 3, new RecordRequest(null, RecordStatus.ACTIVE), null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.updateRecordStatus(TodoList.DEFAULT_ID, 3, new RecordRequest("x", null), null).getStatusCode());
+    }
+
+    @Test
+    void getRecord_ShouldSendVersionAsETag() {
+        when(recordService.findRecord(TodoList.DEFAULT_ID, 4)).thenReturn(new RecordView(4, TodoList.DEFAULT_ID, "task", RecordStatus.ACTIVE, 7L));
+
+        assertEquals("\"7\"", controller.getRecord(TodoList.DEFAULT_ID, 4).getHeaders().getETag());
+    }
+
+    @Test
+    void updateRecordStatus_WithIfMatch_ShouldApplyAgainstThatVersionAndSendNewETag() {
+        when(recordService.updateRecordStatus(2, 1, RecordStatus.DONE, 7L)).thenReturn(8L);
+
+        ResponseEntity<Void> result = controller.updateRecordStatus(2, 1, new RecordRequest(null, RecordStatus.DONE), "\"7\"");
+
+        assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+        assertEquals("\"8\"", result.getHeaders().getETag());
+        verify(recordService, never()).updateRecordStatus(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void updateRecordStatus_WithVersionInBody_ShouldPreferItAndAnswerNotFoundForMissingRecord() {
+        RecordRequest request = new RecordRequest(null, RecordStatus.DONE);
+        request.setVersion(2L);
+        when(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 5, RecordStatus.DONE, 2L)).thenReturn(null);
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.updateRecordStatus(TodoList.DEFAULT_ID, 5, request, "\"9\"").getStatusCode());
+    }
+
+    @Test
+    void updateRecordStatus_WithUnknownIfMatch_ShouldAnswerConflict() {
+        assertEquals(HttpStatus.CONFLICT,
+                controller.updateRecordStatus(TodoList.DEFAULT_ID, 1, new RecordRequest(null, RecordStatus.DONE), "\"abc\"").getStatusCode());
+        assertEquals(HttpStatus.CONFLICT,
+                controller.handleConflict(new OptimisticLockingFailureException("stale")).getStatusCode());
+        verifyNoInteractions(recordService);
+    }
+
+    @Test
+    void parseRecordETag_ShouldAcceptOwnAndWeakETagsOnly() {
+        assertEquals(12L, RecordApiController.parseRecordETag(RecordApiController.recordETag(12)));
+        assertEquals(12L, RecordApiController.parseRecordETag(" W/\"12\" "));
+        assertNull(RecordApiController.parseRecordETag("12"));
+        assertNull(RecordApiController.parseRecordETag("\"\""));
+    }
+
+    @Test
+    void deleteRecord_ShouldAnswerNoContentOrNotFoundForRecordOfAnotherList() {
+        when(recordService.deleteRecordStatus(2, 1)).thenReturn(true);
+        when(recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 1)).thenReturn(false);
+
+        assertEquals(HttpStatus.NO_CONTENT, controller.deleteRecord(2, 1).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.deleteRecord(TodoList.DEFAULT_ID, 1).getStatusCode());
+    }
+
+    @Test
+    void recordUri_ShouldNameListOnlyWhenNotDefault() {
+        assertEquals("/api/records/5", RecordApiController.recordUri(TodoList.DEFAULT_ID, 5).toString());
+        assertEquals("/api/records/5?list=3", RecordApiController.recordUri(3, 5).toString());
+    }
+}
@@ -0,0 +1,165 @@
+package ru.Artem.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.Artem.dao.RecordDao;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+import ru.Artem.service.RecordService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders {@code /home} data through {@link CommonController} at high concurrency against a DAO
+ * that blocks like a JDBC round trip, once with the whole request on a 200-thread pool (Tomcat's
+ * default {@code maxThreads}) and once with the handler's {@code Callable} on virtual threads.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RequestExecutionBenchmark {
+
+    private static final int CONTAINER_THREADS = 200;
+    private static final int CONCURRENT_CLIENTS = 2_000;
+    private static final int REQUESTS = 20_000;
+    private static final long DB_ROUND_TRIP_MILLIS = 20;
+
+    private final CommonController controller = new CommonController(new RecordService(new BlockingRecordDao(), null, null, null, null), null);
+
+    @Test
+    void virtualThreads_ShouldServeMoreRequestsWithLowerTailLatency() throws Exception {
+        run(false, REQUESTS / 10);
+        run(true, REQUESTS / 10);
+
+        Result platform = run(false, REQUESTS);
+        Result virtual = run(true, REQUESTS);
+
+        System.out.printf("%-9s %10s %9s %9s%n", "mode", "req/s", "p50 ms", "p99 ms");
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertTrue(virtual.throughput > platform.throughput * 2, "virtual threads: " + virtual + ", platform: " + platform);
+        assertTrue(virtual.p99Millis < platform.p99Millis, "virtual threads: " + virtual + ", platform: " + platform);
+    }
+
+    private Result run(boolean virtualThreads, int requests) throws InterruptedException {
+        ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+        VirtualThreadTaskExecutor async = new VirtualThreadTaskExecutor("bench-virtual-");
+        Semaphore clients = new Semaphore(CONCURRENT_CLIENTS);
+        CountDownLatch done = new CountDownLatch(requests);
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                clients.acquire();
+                long issued = System.nanoTime();
+                container.execute(() -> {
+                    Runnable complete = () -> {
+                        latencies[request] = System.nanoTime() - issued;
+                        clients.release();
+                        done.countDown();
+                    };
+                    try {
+                        Callable<String> handler = controller.getMainPage(null, new ExtendedModelMap(), "active", null, null, 50, null, null,
+                                new ServletWebRequest(new MockHttpServletRequest("GET", "/home"), new MockHttpServletResponse()));
+                        if (virtualThreads) {
+                            // The container thread is released here, as after a Callable is handed to WebAsyncManager
+                            async.execute(() -> {
+                                call(handler, failures);
+                                complete.run();
+                            });
+                        } else {
+                            call(handler, failures);
+                            complete.run();
+                        }
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        complete.run();
+                    }
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.MINUTES));
+        } finally {
+            container.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, failures.get());
+
+        Arrays.sort(latencies);
+        return new Result(virtualThreads ? "virtual" : "platform",
+                requests / (elapsed / 1e9),
+                latencies[requests / 2] / 1e6,
+                latencies[(int) Math.ceil(requests * 0.99) - 1] / 1e6);
+    }
+
+    private static void call(Callable<String> handler, AtomicInteger failures) {
+        try {
+            if (!"main-page".equals(handler.call())) {
+                failures.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis) {
+        @Override
+        public String toString() {
+            return String.format("%-9s %10.0f %9.1f %9.1f", mode, throughput, p50Millis, p99Millis);
+        }
+    }
+
+    /**
+     * Answers a page listing and the counters, each after one simulated database round trip.
+     */
+    private static class BlockingRecordDao extends RecordDao {
+        private final List<RecordView> page = new ArrayList<>();
+
+        BlockingRecordDao() {
+            for (int id = 1; id <= 51; id++) {
+                page.add(new RecordView(id, TodoList.DEFAULT_ID, "Task " + id, RecordStatus.ACTIVE, 0));
+            }
+        }
+
+        @Override
+        public List<RecordView> getRecordsAfter(int listId, RecordStatus status, int afterId, int limit) {
+            roundTrip();
+            return page.subList(0, Math.min(limit, page.size()));
+        }
+
+        @Override
+        public Map<RecordStatus, Long> countRecordsByStatus(int listId) {
+            roundTrip();
+            Map<RecordStatus, Long> counters = new EnumMap<>(RecordStatus.class);
+            counters.put(RecordStatus.ACTIVE, 51L);
+            counters.put(RecordStatus.DONE, 0L);
+            return counters;
+        }
+
+        private static void roundTrip() {
+            try {
+                Thread.sleep(DB_ROUND_TRIP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.Artem.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.Artem.metrics.SqlStatementMetrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlMetricsControllerTest {
+
+    @Test
+    void getSqlMetrics_ShouldListShapesByTotalTimeAndSlowStatements() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(1, 50, 10, 10);
+        metrics.record("select * from records where id = ?", 1_000_000, 1);
+        metrics.record("select * from records where status = ?", 80_000_000, 40);
+        SqlMetricsController controller = new SqlMetricsController(metrics);
+
+        String result = controller.getSqlMetrics();
+
+        assertTrue(result.startsWith("sample rate 1.00, slow threshold 50 ms"));
+        int statusQuery = result.indexOf("select * from records where status = ?");
+        assertTrue(statusQuery > 0);
+        assertTrue(statusQuery < result.indexOf("select * from records where id = ?"));
+        String slowSection = result.substring(result.indexOf("slow statements"));
+        assertTrue(slowSection.contains("80.0 ms"));
+        assertFalse(slowSection.contains("where id = ?"));
+    }
+}
@@ -0,0 +1,182 @@
+package ru.Artem.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.Artem.entity.Record;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many writers racing on the same records through version-checked updates, each with its own
+ * connection. Every writer reads a record and then tries to flip its status based on that read.
+ */
+class RecordConcurrentUpdateTest {
+
+    private static final int WRITERS = 8;
+    private static final int ATTEMPTS = 200;
+
+    private static EntityManagerFactory emf;
+
+    @BeforeAll
+    static void setUp() {
+        emf = Persistence.createEntityManagerFactory("test-pu", Map.of(
+                "jakarta.persistence.jdbc.url", "jdbc:h2:mem:concurrent-updates;DB_CLOSE_DELAY=-1",
+                "hibernate.connection.pool_size", String.valueOf(WRITERS + 1),
+                "hibernate.show_sql", "false"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        emf.close();
+    }
+
+    private static <T> T inTransaction(Function<RecordDao, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            RecordDao dao = new RecordDao();
+            java.lang.reflect.Field emField = RecordDao.class.getDeclaredField("em");
+            emField.setAccessible(true);
+            emField.set(dao, em);
+            em.getTransaction().begin();
+            T result = work.apply(dao);
+            em.getTransaction().commit();
+            return result;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    private static int createRecord(String title) {
+        return inTransaction(dao -> {
+            Record record = new Record(title);
+            dao.saveRecord(record);
+            return record;
+        }).getId();
+    }
+
+    private static List<Integer> runWriters(Callable<Integer> writer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return writer.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> counts = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                counts.add(result.get(60, TimeUnit.SECONDS));
+            }
+            return counts;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static RecordStatus flipped(RecordStatus status) {
+        return status == RecordStatus.ACTIVE ? RecordStatus.DONE : RecordStatus.ACTIVE;
+    }
+
+    @Test
+    void conditionalUpdates_OnOneRecord_ShouldLetExactlyOneWriterWinEachVersion() throws Exception {
+        int id = createRecord("Contended");
+        Set<Long> wonVersions = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        List<Integer> wins = runWriters(() -> {
+            int won = 0;
+            for (int i = 0; i < ATTEMPTS; i++) {
+                RecordView read = inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id));
+                if (inTransaction(dao -> dao.updateRecordStatus(TodoList.DEFAULT_ID, id, flipped(read.getStatus()), read.getVersion()))) {
+                    assertTrue(wonVersions.add(read.getVersion()), "version " + read.getVersion() + " won twice");
+                    won++;
+                } else {
+                    conflicts.incrementAndGet();
+                }
+            }
+            return won;
+        });
+
+        int totalWins = wins.stream().mapToInt(Integer::intValue).sum();
+        RecordView last = inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id));
+        // No write was lost: every win moved the version by one, and no version was won twice
+        assertEquals(totalWins, last.getVersion());
+        assertEquals(totalWins, wonVersions.size());
+        assertEquals(WRITERS * ATTEMPTS, totalWins + conflicts.get());
+        assertEquals(totalWins % 2 == 0 ? RecordStatus.ACTIVE : RecordStatus.DONE, last.getStatus());
+    }
+
+    @Test
+    void conditionalUpdates_OnDifferentRecords_ShouldNeverConflict() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            ids.add(createRecord("Own " + i));
+        }
+        AtomicInteger next = new AtomicInteger();
+
+        List<Integer> wins = runWriters(() -> {
+            int id = ids.get(next.getAndIncrement());
+            int won = 0;
+            for (int i = 0; i < ATTEMPTS; i++) {
+                RecordView read = inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id));
+                if (inTransaction(dao -> dao.updateRecordStatus(TodoList.DEFAULT_ID, id, flipped(read.getStatus()), read.getVersion()))) {
+                    won++;
+                }
+            }
+            return won;
+        });
+
+        assertEquals(List.of(ATTEMPTS, ATTEMPTS, ATTEMPTS, ATTEMPTS, ATTEMPTS, ATTEMPTS, ATTEMPTS, ATTEMPTS), wins);
+        for (int id : ids) {
+            assertEquals(ATTEMPTS, inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id)).getVersion());
+        }
+    }
+
+    @Test
+    void conditionalUpdate_FromStaleRead_ShouldNotOverwriteNewerChange() {
+        int id = createRecord("Stale");
+        RecordView before = inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id));
+        boolean first = inTransaction(dao -> dao.updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE, before.getVersion()));
+
+        // A second client still holding the first read tries to apply its own decision
+        boolean sameChange = inTransaction(dao -> dao.updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.DONE, before.getVersion()));
+        boolean otherChange = inTransaction(dao -> dao.updateRecordStatus(TodoList.DEFAULT_ID, id, RecordStatus.ACTIVE, before.getVersion()));
+
+        assertTrue(first);
+        assertFalse(sameChange);
+        assertFalse(otherChange);
+
+        RecordView after = inTransaction(dao -> dao.findRecord(TodoList.DEFAULT_ID, id));
+        assertEquals(RecordStatus.DONE, after.getStatus());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+    }
+}
@@ -3,13 +3,19 @@ package ru.Artem.dao;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import ru.Artem.entity.Record;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,7 +62,7 @@ class RecordDaoTest {
     @Test
     @Order(1)
     void getRecords_WithEmptyDatabase_ShouldReturnEmptyList() {
-        List<Record> result = recordDao.getRecords();
+        List<RecordView> result = recordDao.getRecords();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -65,7 +71,7 @@ class RecordDaoTest {
     @Test
     @Order(2)
     void findAllRecords_WithEmptyDatabase_ShouldReturnEmptyList() {
-        List<Record> result = recordDao.findAllRecords();
+        List<RecordView> result = recordDao.findAllRecords();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -99,7 +105,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.getRecords();
+        List<RecordView> result = recordDao.getRecords();
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -119,7 +125,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.findAllRecords();
+        List<RecordView> result = recordDao.findAllRecords();
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -129,7 +135,7 @@ class RecordDaoTest {
 
     @Test
     @Order(6)
-    void getRecordsByStatus_WithActiveRecords_ShouldReturnOnlyActiveRecords() {
+    void getRecordsAfter_WithActiveRecords_ShouldReturnOnlyActiveRecords() {
         Record activeRecord = new Record("Active Record");
         Record doneRecord = new Record("Done Record");
         doneRecord.setStatus(RecordStatus.DONE);
@@ -140,7 +146,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.getRecordsByStatus(RecordStatus.ACTIVE);
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10);
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -150,7 +156,7 @@ class RecordDaoTest {
 
     @Test
     @Order(7)
-    void getRecordsByStatus_WithDoneRecords_ShouldReturnOnlyDoneRecords() {
+    void getRecordsAfter_WithDoneRecords_ShouldReturnOnlyDoneRecords() {
         Record activeRecord = new Record("Active Record");
         Record doneRecord = new Record("Done Record");
         doneRecord.setStatus(RecordStatus.DONE);
@@ -161,7 +167,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.getRecordsByStatus(RecordStatus.DONE);
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.DONE, 0, 10);
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -171,7 +177,7 @@ class RecordDaoTest {
 
     @Test
     @Order(8)
-    void getRecordsByStatus_WithNoMatchingRecords_ShouldReturnEmptyList() {
+    void getRecordsAfter_WithNoMatchingRecords_ShouldReturnEmptyList() {
         Record activeRecord = new Record("Active Record");
         
         em.getTransaction().begin();
@@ -179,7 +185,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.getRecordsByStatus(RecordStatus.DONE);
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.DONE, 0, 10);
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -196,7 +202,7 @@ class RecordDaoTest {
         em.clear();
 
         em.getTransaction().begin();
-        recordDao.updateRecordStatus(record.getId(), RecordStatus.DONE);
+        recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE);
         em.getTransaction().commit();
         em.clear();
 
@@ -211,7 +217,7 @@ class RecordDaoTest {
     void updateRecordStatus_WithNonExistingRecord_ShouldNotThrowException() {
         assertDoesNotThrow(() -> {
             em.getTransaction().begin();
-            recordDao.updateRecordStatus(999, RecordStatus.DONE);
+            recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 999, RecordStatus.DONE);
             em.getTransaction().commit();
         });
     }
@@ -227,7 +233,7 @@ class RecordDaoTest {
         em.clear();
 
         em.getTransaction().begin();
-        recordDao.deleteRecord(record.getId());
+        recordDao.deleteRecord(TodoList.DEFAULT_ID, record.getId());
         em.getTransaction().commit();
         em.clear();
 
@@ -240,7 +246,7 @@ class RecordDaoTest {
     void deleteRecord_WithNonExistingRecord_ShouldNotThrowException() {
         assertDoesNotThrow(() -> {
             em.getTransaction().begin();
-            recordDao.deleteRecord(999);
+            recordDao.deleteRecord(TodoList.DEFAULT_ID, 999);
             em.getTransaction().commit();
         });
     }
@@ -259,7 +265,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> allRecords = recordDao.findAllRecords();
+        List<RecordView> allRecords = recordDao.findAllRecords();
         assertEquals(3, allRecords.size());
         assertTrue(allRecords.stream().anyMatch(r -> r.getTitle().equals("Record 1")));
         assertTrue(allRecords.stream().anyMatch(r -> r.getTitle().equals("Record 2")));
@@ -280,7 +286,7 @@ class RecordDaoTest {
         em.getTransaction().commit();
         em.clear();
 
-        List<Record> result = recordDao.getRecords();
+        List<RecordView> result = recordDao.getRecords();
 
         assertNotNull(result);
         assertEquals(3, result.size());
@@ -288,4 +294,503 @@ class RecordDaoTest {
             assertTrue(result.get(i).getId() <= result.get(i + 1).getId());
         }
     }
+
+    @Test
+    @Order(15)
+    void getRecordsAfter_ShouldReturnLimitedPageAfterCursor() {
+        em.getTransaction().begin();
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Record("Record " + i));
+        }
+        em.getTransaction().commit();
+        em.clear();
+        List<RecordView> all = recordDao.getRecords();
+
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, all.get(1).getId(), 2);
+
+        assertEquals(2, result.size());
+        assertEquals(all.get(2).getId(), result.get(0).getId());
+        assertEquals(all.get(3).getId(), result.get(1).getId());
+    }
+
+    @Test
+    @Order(16)
+    void getRecordsAfter_WithStatus_ShouldSkipOtherStatuses() {
+        Record active1 = new Record("Active 1");
+        Record done = new Record("Done");
+        done.setStatus(RecordStatus.DONE);
+        Record active2 = new Record("Active 2");
+
+        em.getTransaction().begin();
+        em.persist(active1);
+        em.persist(done);
+        em.persist(active2);
+        em.getTransaction().commit();
+        em.clear();
+
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10);
+
+        assertEquals(2, result.size());
+        assertEquals("Active 1", result.get(0).getTitle());
+        assertEquals("Active 2", result.get(1).getTitle());
+    }
+
+    @Test
+    @Order(17)
+    void getRecordsBefore_ShouldReturnClosestRecordsInAscendingOrder() {
+        em.getTransaction().begin();
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Record("Record " + i));
+        }
+        em.getTransaction().commit();
+        em.clear();
+        List<RecordView> all = recordDao.getRecords();
+
+        List<RecordView> result = recordDao.getRecordsBefore(TodoList.DEFAULT_ID, null, all.get(4).getId(), 2);
+
+        assertEquals(2, result.size());
+        assertEquals(all.get(2).getId(), result.get(0).getId());
+        assertEquals(all.get(3).getId(), result.get(1).getId());
+    }
+
+    @Test
+    @Order(18)
+    void countRecordsByStatus_WithEmptyDatabase_ShouldReturnZeroForEveryStatus() {
+        Map<RecordStatus, Long> result = recordDao.countRecordsByStatus(TodoList.DEFAULT_ID);
+
+        assertEquals(0L, result.get(RecordStatus.ACTIVE));
+        assertEquals(0L, result.get(RecordStatus.DONE));
+    }
+
+    @Test
+    @Order(19)
+    void countRecordsByStatus_ShouldGroupRecordsByStatus() {
+        Record done = new Record("Done Record");
+        done.setStatus(RecordStatus.DONE);
+
+        em.getTransaction().begin();
+        em.persist(new Record("Active 1"));
+        em.persist(new Record("Active 2"));
+        em.persist(done);
+        em.getTransaction().commit();
+        em.clear();
+
+        Map<RecordStatus, Long> result = recordDao.countRecordsByStatus(TodoList.DEFAULT_ID);
+
+        assertEquals(2L, result.get(RecordStatus.ACTIVE));
+        assertEquals(1L, result.get(RecordStatus.DONE));
+    }
+
+    @Test
+    @Order(20)
+    void schema_ShouldDeclareCompositeListStatusIdIndex() {
+        List<?> columns = em.createNativeQuery(
+                "select column_name from information_schema.index_columns "
+                        + "where table_name = 'RECORDS' and index_name = 'IDX_RECORDS_LIST_STATUS_ID' order by ordinal_position")
+                .getResultList();
+
+        assertEquals(List.of("LIST_ID", "STATUS", "ID"), columns);
+    }
+
+    @Test
+    @Order(21)
+    void updateRecordsStatus_ShouldUpdateOnlyGivenIds() {
+        Record record1 = new Record("Record 1");
+        Record record2 = new Record("Record 2");
+        Record record3 = new Record("Record 3");
+
+        em.getTransaction().begin();
+        em.persist(record1);
+        em.persist(record2);
+        em.persist(record3);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        int affected = recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, List.of(record1.getId(), record3.getId(), 999999), RecordStatus.DONE);
+        em.getTransaction().commit();
+        em.clear();
+
+        assertEquals(2, affected);
+        assertEquals(2L, recordDao.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+        assertEquals(RecordStatus.ACTIVE, em.find(Record.class, record2.getId()).getStatus());
+    }
+
+    @Test
+    @Order(22)
+    void updateRecordsStatus_WithMoreIdsThanChunkSize_ShouldUpdateAllChunks() {
+        em.getTransaction().begin();
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Record("Record " + i));
+        }
+        em.getTransaction().commit();
+        em.clear();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= RecordDao.BULK_CHUNK_SIZE * 2; i++) {
+            ids.add(-i);
+        }
+        recordDao.getRecords().forEach(r -> ids.add(r.getId()));
+
+        em.getTransaction().begin();
+        int affected = recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, ids, RecordStatus.DONE);
+        em.getTransaction().commit();
+
+        assertEquals(3, affected);
+    }
+
+    @Test
+    @Order(23)
+    void deleteRecords_ShouldDeleteGivenIdsAndReturnCount() {
+        Record record1 = new Record("Record 1");
+        Record record2 = new Record("Record 2");
+
+        em.getTransaction().begin();
+        em.persist(record1);
+        em.persist(record2);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        int affected = recordDao.deleteRecords(TodoList.DEFAULT_ID, List.of(record1.getId(), 999999));
+        em.getTransaction().commit();
+        em.clear();
+
+        assertEquals(1, affected);
+        List<RecordView> remaining = recordDao.getRecords();
+        assertEquals(1, remaining.size());
+        assertEquals("Record 2", remaining.get(0).getTitle());
+    }
+
+    @Test
+    @Order(24)
+    void updateRecordStatus_ShouldReportWhetherRowChanged() {
+        Record record = new Record("Test Record");
+
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        boolean first = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE);
+        boolean repeated = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE);
+        boolean missing = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 999999, RecordStatus.DONE);
+        em.getTransaction().commit();
+
+        assertTrue(first);
+        assertFalse(repeated);
+        assertFalse(missing);
+    }
+
+    @Test
+    @Order(25)
+    void deleteRecord_ShouldReportWhetherRowWasDeleted() {
+        Record record = new Record("Test Record");
+
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        boolean first = recordDao.deleteRecord(TodoList.DEFAULT_ID, record.getId());
+        boolean repeated = recordDao.deleteRecord(TodoList.DEFAULT_ID, record.getId());
+        em.getTransaction().commit();
+
+        assertTrue(first);
+        assertFalse(repeated);
+    }
+
+    @Test
+    @Order(26)
+    void updateRecordsStatus_ShouldSkipRecordsAlreadyInTargetStatus() {
+        Record active = new Record("Active");
+        Record done = new Record("Done");
+        done.setStatus(RecordStatus.DONE);
+
+        em.getTransaction().begin();
+        em.persist(active);
+        em.persist(done);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        int affected = recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, List.of(active.getId(), done.getId()), RecordStatus.DONE);
+        em.getTransaction().commit();
+
+        assertEquals(1, affected);
+    }
+
+    @Test
+    @Order(27)
+    void getRecordsAfter_RepeatedQuery_ShouldBeServedFromQueryCache() {
+        em.getTransaction().begin();
+        em.persist(new Record("Cached Record"));
+        em.getTransaction().commit();
+        em.clear();
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        // Query results are cached against the transaction start time, as they are per request in the application
+        em.getTransaction().begin();
+        recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10);
+        em.getTransaction().commit();
+        em.clear();
+        long hitsBefore = statistics.getQueryCacheHitCount();
+
+        em.getTransaction().begin();
+        List<RecordView> result = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10);
+        em.getTransaction().commit();
+
+        assertEquals(1, result.size());
+        assertEquals(hitsBefore + 1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @Order(28)
+    void queryCache_ShouldBeInvalidatedByBulkStatusUpdate() {
+        Record record = new Record("Cached Record");
+
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+        em.clear();
+        assertEquals(1, recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10).size());
+        assertEquals(1L, recordDao.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+
+        em.getTransaction().begin();
+        recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE);
+        em.getTransaction().commit();
+        em.clear();
+
+        assertTrue(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10).isEmpty());
+        assertEquals(0L, recordDao.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+        assertEquals(RecordStatus.DONE, em.find(Record.class, record.getId()).getStatus());
+    }
+
+    @Test
+    @Order(29)
+    void entityCache_ShouldBeInvalidatedByDelete() {
+        Record record = new Record("Cached Record");
+
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+        em.clear();
+        assertNotNull(em.find(Record.class, record.getId()));
+        em.clear();
+
+        em.getTransaction().begin();
+        recordDao.deleteRecord(TodoList.DEFAULT_ID, record.getId());
+        em.getTransaction().commit();
+        em.clear();
+
+        assertNull(em.find(Record.class, record.getId()));
+        assertTrue(recordDao.getRecords().isEmpty());
+    }
+
+    @Test
+    @Order(30)
+    void saveRecords_ShouldPersistAllRecordsWithDistinctIncreasingIds() {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < Record.ID_ALLOCATION_SIZE * 2 + 7; i++) {
+            records.add(new Record("Bulk " + i));
+        }
+
+        em.getTransaction().begin();
+        recordDao.saveRecords(records);
+        em.getTransaction().commit();
+        em.clear();
+
+        List<RecordView> saved = recordDao.getRecords();
+        assertEquals(records.size(), saved.size());
+        for (int i = 0; i < saved.size() - 1; i++) {
+            assertTrue(saved.get(i).getId() < saved.get(i + 1).getId());
+        }
+        assertEquals("Bulk 0", saved.get(0).getTitle());
+    }
+
+    @Test
+    @Order(31)
+    void saveRecord_ShouldTakeIdFromPooledSequenceWithoutImmediateInsert() {
+        Record record = new Record("Pooled");
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long insertsBefore = statistics.getEntityInsertCount();
+
+        em.getTransaction().begin();
+        recordDao.saveRecord(record);
+
+        assertTrue(record.getId() > 0);
+        assertEquals(insertsBefore, statistics.getEntityInsertCount());
+        em.getTransaction().commit();
+        assertEquals(insertsBefore + 1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    @Order(32)
+    void listingQueries_ShouldReturnViewsWithoutManagingEntities() {
+        em.getTransaction().begin();
+        em.persist(new Record("Active"));
+        Record done = new Record("Done");
+        done.setStatus(RecordStatus.DONE);
+        em.persist(done);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        List<RecordView> all = recordDao.findAllRecords();
+        List<RecordView> doneOnly = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.DONE, 0, 10);
+        List<RecordView> page = recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, 10);
+        int managedEntities = em.unwrap(org.hibernate.Session.class).getStatistics().getEntityCount();
+        em.getTransaction().commit();
+
+        assertEquals(2, all.size());
+        assertEquals("Done", doneOnly.get(0).getTitle());
+        assertEquals(RecordStatus.DONE, doneOnly.get(0).getStatus());
+        assertEquals("Active", page.get(0).getTitle());
+        assertEquals(0, managedEntities);
+    }
+
+    @Test
+    @Order(33)
+    void streamRecords_ShouldStreamFilteredViewsInIdOrder() {
+        em.getTransaction().begin();
+        for (int i = 0; i < 30; i++) {
+            Record record = new Record("Task " + i);
+            if (i % 3 == 0) {
+                record.setStatus(RecordStatus.DONE);
+            }
+            em.persist(record);
+        }
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        List<Integer> doneIds;
+        long total;
+        try (java.util.stream.Stream<RecordView> done = recordDao.streamRecords(TodoList.DEFAULT_ID, RecordStatus.DONE);
+             java.util.stream.Stream<RecordView> all = recordDao.streamRecords(TodoList.DEFAULT_ID, null)) {
+            doneIds = done.map(RecordView::getId).toList();
+            total = all.count();
+        }
+        int managedEntities = em.unwrap(org.hibernate.Session.class).getStatistics().getEntityCount();
+        em.getTransaction().commit();
+
+        assertEquals(10, doneIds.size());
+        assertEquals(doneIds.stream().sorted().toList(), doneIds);
+        assertEquals(30, total);
+        assertEquals(0, managedEntities);
+    }
+
+    @Test
+    @Order(34)
+    void findRecord_ShouldReturnViewOrNull() {
+        Record record = new Record("Single");
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+
+        RecordView found = recordDao.findRecord(TodoList.DEFAULT_ID, record.getId());
+
+        assertEquals("Single", found.getTitle());
+        assertEquals(RecordStatus.ACTIVE, found.getStatus());
+        assertNull(recordDao.findRecord(TodoList.DEFAULT_ID, record.getId() + 1000));
+    }
+
+    @Test
+    @Order(35)
+    void updateRecordStatus_WithExpectedVersion_ShouldWriteOnlyCurrentVersionAndBumpIt() {
+        Record record = new Record("Versioned");
+        em.getTransaction().begin();
+        em.persist(record);
+        em.getTransaction().commit();
+        em.clear();
+        long version = recordDao.findRecord(TodoList.DEFAULT_ID, record.getId()).getVersion();
+
+        em.getTransaction().begin();
+        boolean stale = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE, version + 1);
+        boolean current = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.DONE, version);
+        boolean replayed = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, record.getId(), RecordStatus.ACTIVE, version);
+        em.getTransaction().commit();
+        em.clear();
+
+        assertFalse(stale);
+        assertTrue(current);
+        assertFalse(replayed);
+        RecordView updated = recordDao.findRecord(TodoList.DEFAULT_ID, record.getId());
+        assertEquals(RecordStatus.DONE, updated.getStatus());
+        assertEquals(version + 1, updated.getVersion());
+    }
+
+    @Test
+    @Order(36)
+    void unconditionalUpdates_ShouldBumpVersionOnlyWhenStatusChanges() {
+        Record first = new Record("First");
+        Record second = new Record("Second");
+        em.getTransaction().begin();
+        em.persist(first);
+        em.persist(second);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        recordDao.updateRecordStatus(TodoList.DEFAULT_ID, first.getId(), RecordStatus.DONE);
+        recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, List.of(first.getId(), second.getId()), RecordStatus.DONE);
+        em.getTransaction().commit();
+        em.clear();
+
+        assertEquals(1, recordDao.findRecord(TodoList.DEFAULT_ID, first.getId()).getVersion());
+        assertEquals(1, recordDao.findRecord(TodoList.DEFAULT_ID, second.getId()).getVersion());
+    }
+
+    @Test
+    @Order(37)
+    void listScopedQueries_ShouldNeitherSeeNorChangeOtherLists() {
+        TodoList other = new TodoList("Other", "alice");
+        em.getTransaction().begin();
+        em.persist(other);
+        Record mine = new Record("Mine");
+        Record theirs = new Record(other.getId(), "Theirs");
+        em.persist(mine);
+        em.persist(theirs);
+        em.getTransaction().commit();
+        em.clear();
+
+        em.getTransaction().begin();
+        boolean crossUpdate = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, theirs.getId(), RecordStatus.DONE);
+        boolean crossVersioned = recordDao.updateRecordStatus(TodoList.DEFAULT_ID, theirs.getId(), RecordStatus.DONE, 0);
+        boolean crossDelete = recordDao.deleteRecord(TodoList.DEFAULT_ID, theirs.getId());
+        int crossBulk = recordDao.deleteRecords(other.getId(), List.of(mine.getId()));
+        em.getTransaction().commit();
+        em.clear();
+
+        assertFalse(crossUpdate);
+        assertFalse(crossVersioned);
+        assertFalse(crossDelete);
+        assertEquals(0, crossBulk);
+        assertEquals(List.of(mine.getId()), recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, 0, 10).stream().map(RecordView::getId).toList());
+        assertEquals(List.of(theirs.getId()), recordDao.getRecordsAfter(other.getId(), null, 0, 10).stream().map(RecordView::getId).toList());
+        assertEquals(0, recordDao.findRecord(other.getId(), theirs.getId()).getVersion());
+        assertNull(recordDao.findRecord(TodoList.DEFAULT_ID, theirs.getId()));
+        assertEquals(1L, recordDao.countRecordsByStatus(other.getId()).get(RecordStatus.ACTIVE));
+        assertEquals(2, recordDao.findAllRecords().size());
+    }
+
+    @Test
+    @Order(38)
+    void scanRecordsAfter_ShouldReadChunkWithoutQueryCache() {
+        em.getTransaction().begin();
+        for (int i = 1; i <= 3; i++) {
+            em.persist(new Record("Record " + i));
+        }
+        em.getTransaction().commit();
+        em.clear();
+        List<RecordView> all = recordDao.getRecords();
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long putsBefore = statistics.getQueryCachePutCount();
+
+        List<RecordView> result = recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, all.get(0).getId(), 10);
+
+        assertEquals(List.of(all.get(1).getId(), all.get(2).getId()), result.stream().map(RecordView::getId).toList());
+        assertEquals(putsBefore, statistics.getQueryCachePutCount());
+    }
 }
@@ -0,0 +1,136 @@
+package ru.Artem.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaDataSourceTest {
+
+    private static DataSource primary;
+    private static DataSource replica1;
+    private static DataSource replica2;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        primary = embeddedDatabase("primary");
+        replica1 = embeddedDatabase("replica1");
+        replica2 = embeddedDatabase("replica2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRouting.clear();
+    }
+
+    private static DataSource embeddedDatabase(String name) throws SQLException {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists node (name varchar(20))");
+            statement.execute("delete from node");
+            statement.execute("insert into node values ('" + name + "')");
+        }
+        return dataSource;
+    }
+
+    private static String nodeName(DataSource dataSource, boolean readOnly) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(readOnly);
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select name from node")) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static LazyConnectionDataSourceProxy routing(ReplicaDataSource replicas) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicas);
+        return proxy;
+    }
+
+    @Test
+    void readOnlyConnection_ShouldBeServedByReplica() throws SQLException {
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Collections.singletonList(replica1),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN));
+
+        assertEquals("replica1", nodeName(dataSource, true));
+    }
+
+    @Test
+    void readWriteConnection_ShouldBeServedByPrimary() throws SQLException {
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Collections.singletonList(replica1),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN));
+
+        assertEquals("primary", nodeName(dataSource, false));
+    }
+
+    @Test
+    void roundRobin_ShouldAlternateBetweenReplicas() throws SQLException {
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Arrays.asList(replica1, replica2),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN));
+
+        String first = nodeName(dataSource, true);
+        String second = nodeName(dataSource, true);
+        String third = nodeName(dataSource, true);
+
+        assertNotEquals(first, second);
+        assertEquals(first, third);
+    }
+
+    @Test
+    void pinnedToPrimary_ShouldServeReadOnlyConnectionFromPrimary() throws SQLException {
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Collections.singletonList(replica1),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN));
+
+        ReplicaRouting.pinToPrimary();
+
+        assertEquals("primary", nodeName(dataSource, true));
+    }
+
+    @Test
+    void unavailableReplica_ShouldFallBackToNextReplica() throws SQLException {
+        DataSource broken = new DriverManagerDataSource("jdbc:h2:mem:broken;IFEXISTS=TRUE", "sa", "");
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Arrays.asList(broken, replica2),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN));
+
+        assertEquals("replica2", nodeName(dataSource, true));
+    }
+
+    @Test
+    void allReplicasUnavailable_ShouldFallBackToPrimary() throws SQLException {
+        DataSource broken = new DriverManagerDataSource("jdbc:h2:mem:broken;IFEXISTS=TRUE", "sa", "");
+        DataSource dataSource = routing(new ReplicaDataSource(primary, Collections.singletonList(broken),
+                ReplicaDataSource.LoadBalancing.LEAST_LOADED));
+
+        assertEquals("primary", nodeName(dataSource, true));
+    }
+
+    @Test
+    void loadBalancing_ShouldParsePropertyValues() {
+        assertEquals(ReplicaDataSource.LoadBalancing.ROUND_ROBIN, ReplicaDataSource.LoadBalancing.fromProperty(null));
+        assertEquals(ReplicaDataSource.LoadBalancing.ROUND_ROBIN, ReplicaDataSource.LoadBalancing.fromProperty("round-robin"));
+        assertEquals(ReplicaDataSource.LoadBalancing.LEAST_LOADED, ReplicaDataSource.LoadBalancing.fromProperty("least-loaded"));
+    }
+
+    @Test
+    void getConnection_WithOtherCredentials_ShouldReportUnsupportedFeature() {
+        ReplicaDataSource replicas = new ReplicaDataSource(primary, Collections.singletonList(replica1),
+                ReplicaDataSource.LoadBalancing.ROUND_ROBIN);
+
+        assertThrows(SQLFeatureNotSupportedException.class, () -> replicas.getConnection("other", "secret"));
+    }
+}
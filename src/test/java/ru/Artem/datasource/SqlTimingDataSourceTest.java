@@ -0,0 +1,124 @@
+package ru.Artem.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.Artem.metrics.SqlStatementMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTimingDataSourceTest {
+
+    private SqlStatementMetrics metrics;
+    private SqlTimingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        metrics = new SqlStatementMetrics(1, 10_000, 100, 10);
+        dataSource = new SqlTimingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""), metrics);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table items (id integer primary key, name varchar(20))");
+            statement.executeUpdate("insert into items values (1, 'a'), (2, 'b'), (3, 'c')");
+        }
+    }
+
+    private SqlStatementMetrics.ShapeStats shape(String shape) {
+        return metrics.getShapes().stream().filter(stats -> stats.getShape().equals(shape)).findFirst().orElse(null);
+    }
+
+    @Test
+    void executeQuery_ShouldRecordRowsFetchedWhenResultSetIsClosed() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select name from items where id > ?")) {
+            statement.setInt(1, 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    assertNotNull(resultSet.getString(1));
+                }
+                assertNull(shape("select name from items where id > ?"));
+            }
+        }
+
+        SqlStatementMetrics.ShapeStats stats = shape("select name from items where id > ?");
+        assertNotNull(stats);
+        assertEquals(1, stats.getTime().getCount());
+        assertEquals(2, stats.getRows());
+    }
+
+    @Test
+    void executeQuery_ResultSetLeftOpen_ShouldRecordWhenStatementIsClosed() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select id from items")) {
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+        }
+
+        assertEquals(1, shape("select id from items").getRows());
+    }
+
+    @Test
+    void executeUpdate_ShouldRecordAffectedRows() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("update items set name = ? where id < ?")) {
+            statement.setString(1, "x");
+            statement.setInt(2, 3);
+            assertEquals(2, statement.executeUpdate());
+        }
+
+        assertEquals(2, shape("update items set name = ? where id < ?").getRows());
+    }
+
+    @Test
+    void executeBatch_ShouldRecordOneSampleWithTotalRows() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("insert into items values (?, ?)")) {
+            for (int id = 10; id < 13; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, "n" + id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        SqlStatementMetrics.ShapeStats stats = shape("insert into items values (?, ?)");
+        assertEquals(1, stats.getTime().getCount());
+        assertEquals(3, stats.getRows());
+    }
+
+    @Test
+    void execute_NotSampled_ShouldNotRecord() throws SQLException {
+        metrics.setSampleRate(0);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from items")) {
+            assertTrue(resultSet.next());
+            assertEquals(3, resultSet.getInt(1));
+        }
+
+        assertNull(shape("select count(*) from items"));
+    }
+
+    @Test
+    void proxies_ShouldKeepIdentityForHashBasedRegistries() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            Set<Object> registry = new HashSet<>();
+            registry.add(connection);
+            registry.add(statement);
+
+            assertTrue(registry.contains(connection));
+            assertTrue(registry.remove(statement));
+            assertTrue(connection.isWrapperFor(Connection.class));
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package ru.Artem.entity.dto;
 
 import org.junit.jupiter.api.Test;
-import ru.Artem.entity.Record;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,9 +14,9 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithValidParameters_ShouldCreateContainer() {
-        List<Record> records = Arrays.asList(
-            new Record("Test 1"),
-            new Record("Test 2")
+        List<RecordView> records = Arrays.asList(
+            new RecordView(0, TodoList.DEFAULT_ID, "Test 1", RecordStatus.ACTIVE, 0),
+            new RecordView(0, TodoList.DEFAULT_ID, "Test 2", RecordStatus.ACTIVE, 0)
         );
         int numberOfDoneRecords = 1;
         int numberOfActiveRecords = 1;
@@ -31,7 +31,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithEmptyRecords_ShouldCreateContainer() {
-        List<Record> records = Collections.emptyList();
+        List<RecordView> records = Collections.emptyList();
         int numberOfDoneRecords = 0;
         int numberOfActiveRecords = 0;
 
@@ -46,7 +46,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithNullRecords_ShouldCreateContainer() {
-        List<Record> records = null;
+        List<RecordView> records = null;
         int numberOfDoneRecords = 0;
         int numberOfActiveRecords = 0;
 
@@ -60,7 +60,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithZeroCounts_ShouldCreateContainer() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         int numberOfDoneRecords = 0;
         int numberOfActiveRecords = 0;
 
@@ -74,7 +74,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithLargeCounts_ShouldCreateContainer() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         int numberOfDoneRecords = 1000;
         int numberOfActiveRecords = 500;
 
@@ -88,7 +88,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void constructor_WithNegativeCounts_ShouldCreateContainer() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         int numberOfDoneRecords = -1;
         int numberOfActiveRecords = -5;
 
@@ -102,14 +102,14 @@ class RecordsContainerDtoTest {
 
     @Test
     void getRecords_ShouldReturnRecords() {
-        List<Record> records = Arrays.asList(
-            new Record("Test 1"),
-            new Record("Test 2"),
-            new Record("Test 3")
+        List<RecordView> records = Arrays.asList(
+            new RecordView(0, TodoList.DEFAULT_ID, "Test 1", RecordStatus.ACTIVE, 0),
+            new RecordView(0, TodoList.DEFAULT_ID, "Test 2", RecordStatus.ACTIVE, 0),
+            new RecordView(0, TodoList.DEFAULT_ID, "Test 3", RecordStatus.ACTIVE, 0)
         );
         RecordsContainerDto container = new RecordsContainerDto(records, 1, 2);
 
-        List<Record> result = container.getRecords();
+        List<RecordView> result = container.getRecords();
 
         assertEquals(records, result);
         assertEquals(3, result.size());
@@ -120,7 +120,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void getNumberOfDoneRecords_ShouldReturnNumberOfDoneRecords() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         RecordsContainerDto container = new RecordsContainerDto(records, 5, 3);
 
         int result = container.getNumberOfDoneRecords();
@@ -130,7 +130,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void getNumberOfActiveRecords_ShouldReturnNumberOfActiveRecords() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         RecordsContainerDto container = new RecordsContainerDto(records, 2, 7);
 
         int result = container.getNumberOfActiveRecords();
@@ -140,7 +140,7 @@ class RecordsContainerDtoTest {
 
     @Test
     void container_ShouldBeImmutable() {
-        List<Record> records = Arrays.asList(new Record("Test"));
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
         RecordsContainerDto container = new RecordsContainerDto(records, 1, 1);
 
         assertNotNull(container.getRecords());
@@ -150,13 +150,11 @@ class RecordsContainerDtoTest {
 
     @Test
     void container_WithRecordsContainingDifferentStatuses_ShouldWorkCorrectly() {
-        Record activeRecord = new Record("Active Task");
-        activeRecord.setStatus(RecordStatus.ACTIVE);
+        RecordView activeRecord = new RecordView(0, TodoList.DEFAULT_ID, "Active Task", RecordStatus.ACTIVE, 0);
         
-        Record doneRecord = new Record("Done Task");
-        doneRecord.setStatus(RecordStatus.DONE);
+        RecordView doneRecord = new RecordView(0, TodoList.DEFAULT_ID, "Done Task", RecordStatus.DONE, 0);
         
-        List<Record> records = Arrays.asList(activeRecord, doneRecord);
+        List<RecordView> records = Arrays.asList(activeRecord, doneRecord);
         RecordsContainerDto container = new RecordsContainerDto(records, 1, 1);
 
         assertEquals(2, container.getRecords().size());
@@ -166,4 +164,22 @@ class RecordsContainerDtoTest {
         assertEquals(RecordStatus.ACTIVE, container.getRecords().get(0).getStatus());
         assertEquals(RecordStatus.DONE, container.getRecords().get(1).getStatus());
     }
+
+    @Test
+    void constructor_WithCursors_ShouldExposeCursors() {
+        List<RecordView> records = Arrays.asList(new RecordView(0, TodoList.DEFAULT_ID, "Test", RecordStatus.ACTIVE, 0));
+
+        RecordsContainerDto container = new RecordsContainerDto(records, 0, 1, 5, 9);
+
+        assertEquals(5, container.getPreviousCursor());
+        assertEquals(9, container.getNextCursor());
+    }
+
+    @Test
+    void constructor_WithoutCursors_ShouldHaveNullCursors() {
+        RecordsContainerDto container = new RecordsContainerDto(Collections.emptyList(), 0, 0);
+
+        assertNull(container.getPreviousCursor());
+        assertNull(container.getNextCursor());
+    }
 }
@@ -0,0 +1,224 @@
+package ru.Artem.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordEventBroadcasterTest {
+
+    private static final Map<RecordStatus, Long> COUNTERS = Map.of(RecordStatus.ACTIVE, 2L, RecordStatus.DONE, 1L);
+
+    private RecordEventBroadcaster broadcaster = new RecordEventBroadcaster(4, 60_000, 60_000, 0, 3);
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.close();
+    }
+
+    private static RecordEvent deleted(int id) {
+        return RecordEvent.deleted(TodoList.DEFAULT_ID, List.of(id), COUNTERS, id);
+    }
+
+    @Test
+    void publish_ShouldSendSerializedEventToEverySubscriber() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        broadcaster.register(TodoList.DEFAULT_ID, first);
+        broadcaster.register(TodoList.DEFAULT_ID, second);
+
+        broadcaster.publish(RecordEvent.created(TodoList.DEFAULT_ID, List.of(new RecordView(7, TodoList.DEFAULT_ID, "Buy milk", RecordStatus.ACTIVE, 0)), COUNTERS, 42));
+
+        for (RecordingEmitter emitter : List.of(first, second)) {
+            assertEquals(":\n\n", emitter.next());
+            String event = emitter.next();
+            assertTrue(event.startsWith("event:records\ndata:{\"type\":\"CREATED\",\"listId\":1"), event);
+            assertTrue(event.contains("\"records\":[{\"id\":7,\"listId\":1,\"title\":\"Buy milk\",\"status\":\"ACTIVE\",\"version\":0}]"), event);
+            assertTrue(event.contains("\"done\":1,\"active\":2,\"version\":42"), event);
+            assertFalse(event.contains("\"ids\""), event);
+        }
+    }
+
+    @Test
+    void publish_ShouldReachOnlySubscribersOfTheEventsList() throws Exception {
+        RecordingEmitter mine = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        broadcaster.register(TodoList.DEFAULT_ID, mine);
+        broadcaster.register(2, other);
+        mine.next();
+        other.next();
+
+        broadcaster.publish(RecordEvent.deleted(2, List.of(5), COUNTERS, 1));
+        broadcaster.publish(deleted(6));
+
+        assertTrue(other.next().contains("\"ids\":[5]"));
+        assertTrue(mine.next().contains("\"ids\":[6]"));
+        assertNull(mine.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(other.sent.poll());
+        assertFalse(broadcaster.hasSubscribers(3));
+    }
+
+    @Test
+    void lastSubscriberOfList_WhenGone_ShouldLeaveListWithoutSubscribers() throws Exception {
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.fail = true;
+        broadcaster.register(2, gone);
+        broadcaster.register(TodoList.DEFAULT_ID, new RecordingEmitter());
+
+        assertTrue(gone.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(broadcaster.hasSubscribers(2));
+        assertTrue(broadcaster.hasSubscribers(TodoList.DEFAULT_ID));
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void slowSubscriber_ShouldBeDroppedWithoutHoldingUpOthers() throws Exception {
+        RecordingEmitter fast = new RecordingEmitter();
+        RecordingEmitter slow = new RecordingEmitter();
+        CountDownLatch release = new CountDownLatch(1);
+        slow.blockOn = release;
+        broadcaster.register(TodoList.DEFAULT_ID, fast);
+        broadcaster.register(TodoList.DEFAULT_ID, slow);
+
+        // Publishing never waits for the blocked subscriber: each event reaches the other one right away
+        fast.next();
+        for (int id = 1; id <= 20; id++) {
+            broadcaster.publish(deleted(id));
+            assertTrue(fast.next().contains("\"ids\":[" + id + "]"));
+        }
+        release.countDown();
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertEquals(1, broadcaster.getDroppedCount());
+    }
+
+    @Test
+    void stalledWrite_ShouldDropSubscriberAfterWriteTimeout() throws Exception {
+        broadcaster.close();
+        broadcaster = new RecordEventBroadcaster(4, 100, 60_000, 0, 10);
+        RecordingEmitter fast = new RecordingEmitter();
+        RecordingEmitter stalled = new RecordingEmitter();
+        stalled.blockOn = new CountDownLatch(1);
+        broadcaster.register(TodoList.DEFAULT_ID, fast);
+        broadcaster.register(TodoList.DEFAULT_ID, stalled);
+
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertEquals(1, broadcaster.getDroppedCount());
+        assertEquals(":\n\n", fast.next());
+    }
+
+    @Test
+    void failedSend_ShouldRemoveSubscriber() throws Exception {
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.fail = true;
+        broadcaster.register(TodoList.DEFAULT_ID, gone);
+
+        assertTrue(gone.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(broadcaster.hasSubscribers(TodoList.DEFAULT_ID));
+        assertEquals(0, broadcaster.getDroppedCount());
+    }
+
+    @Test
+    void subscribe_OverLimit_ShouldReturnNull() {
+        List<SseEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            emitters.add(broadcaster.subscribe(TodoList.DEFAULT_ID));
+        }
+
+        assertTrue(emitters.stream().allMatch(emitter -> emitter != null));
+        assertNull(broadcaster.subscribe(TodoList.DEFAULT_ID));
+    }
+
+    @Test
+    void subscribe_Concurrently_ShouldNotExceedLimit() throws Exception {
+        broadcaster.close();
+        broadcaster = new RecordEventBroadcaster(4, 60_000, 60_000, 0, 5);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            threads.add(Thread.startVirtualThread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (broadcaster.register(TodoList.DEFAULT_ID, new RecordingEmitter())) {
+                    accepted.incrementAndGet();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(5, accepted.get());
+        assertEquals(5, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void heartbeat_ShouldReachIdleSubscribers() throws Exception {
+        broadcaster.close();
+        broadcaster = new RecordEventBroadcaster(4, 60_000, 50, 0, 10);
+        RecordingEmitter idle = new RecordingEmitter();
+        broadcaster.register(TodoList.DEFAULT_ID, idle);
+
+        assertEquals(":\n\n", idle.next());
+        assertEquals(":\n\n", idle.next());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile CountDownLatch blockOn;
+        volatile boolean fail;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            if (blockOn != null) {
+                try {
+                    blockOn.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder event = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                event.append(data.getData());
+            }
+            sent.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event within 5 s");
+            return event;
+        }
+    }
+}
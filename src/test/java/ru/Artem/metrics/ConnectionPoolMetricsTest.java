@@ -0,0 +1,77 @@
+package ru.Artem.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolMetricsTest {
+
+    private static PoolStats poolStats(int active, int idle, int pending) {
+        return new PoolStats(0) {
+            @Override
+            protected void update() {
+                this.activeConnections = active;
+                this.idleConnections = idle;
+                this.totalConnections = active + idle;
+                this.pendingThreads = pending;
+                this.maxConnections = 10;
+            }
+        };
+    }
+
+    @Test
+    void create_ShouldRegisterTrackerForPool() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+        IMetricsTracker tracker = metrics.create("test-pool", poolStats(1, 2, 0));
+
+        assertSame(tracker, metrics.getPool("test-pool"));
+    }
+
+    @Test
+    void tracker_ShouldRecordAcquireTimesAndTimeouts() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        IMetricsTracker tracker = metrics.create("test-pool", poolStats(1, 2, 0));
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(3));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(7));
+        tracker.recordConnectionUsageMillis(15);
+        tracker.recordConnectionTimeout();
+
+        ConnectionPoolMetrics.PoolTracker pool = metrics.getPool("test-pool");
+        assertEquals(2, pool.getAcquireTime().getCount());
+        assertEquals(10.0, pool.getAcquireTime().getSumMillis(), 0.001);
+        assertEquals(1, pool.getUsageTime().getCount());
+        assertEquals(1, pool.getTimeouts());
+    }
+
+    @Test
+    void writeMetrics_ShouldExposePoolGaugesAndHistograms() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        IMetricsTracker tracker = metrics.create("test-pool", poolStats(3, 4, 5));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(2));
+
+        MetricsWriter writer = new MetricsWriter();
+        metrics.writeMetrics(writer);
+        String text = writer.toString();
+
+        assertTrue(text.contains("db_pool_connections_active{pool=\"test-pool\"} 3"));
+        assertTrue(text.contains("db_pool_connections_idle{pool=\"test-pool\"} 4"));
+        assertTrue(text.contains("db_pool_connections_pending{pool=\"test-pool\"} 5"));
+        assertTrue(text.contains("db_pool_acquire_seconds_count{pool=\"test-pool\"} 1"));
+        assertTrue(text.contains("db_pool_acquire_seconds_bucket{pool=\"test-pool\",le=\"+Inf\"} 1"));
+    }
+
+    @Test
+    void writeMetrics_WithoutPools_ShouldWriteNothing() {
+        MetricsWriter writer = new MetricsWriter();
+
+        new ConnectionPoolMetrics().writeMetrics(writer);
+
+        assertEquals("", writer.toString());
+    }
+}
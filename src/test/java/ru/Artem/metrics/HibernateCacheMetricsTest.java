@@ -0,0 +1,66 @@
+package ru.Artem.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HibernateCacheMetricsTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+    }
+
+    @Test
+    void writeMetrics_ShouldExposeRegionAndQueryCacheCounters() {
+        CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+        when(region.getHitCount()).thenReturn(7L);
+        when(region.getMissCount()).thenReturn(2L);
+        when(region.getPutCount()).thenReturn(3L);
+        when(statistics.isStatisticsEnabled()).thenReturn(true);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{"ru.Artem.entity.Record"});
+        when(statistics.getCacheRegionStatistics("ru.Artem.entity.Record")).thenReturn(region);
+        when(statistics.getQueryCacheHitCount()).thenReturn(11L);
+        when(statistics.getQueryCacheMissCount()).thenReturn(4L);
+
+        MetricsWriter writer = new MetricsWriter();
+        new HibernateCacheMetrics(entityManagerFactory).writeMetrics(writer);
+        String text = writer.toString();
+
+        assertTrue(text.contains("hibernate_cache_hits_total{region=\"ru.Artem.entity.Record\"} 7"));
+        assertTrue(text.contains("hibernate_cache_misses_total{region=\"ru.Artem.entity.Record\"} 2"));
+        assertTrue(text.contains("hibernate_cache_puts_total{region=\"ru.Artem.entity.Record\"} 3"));
+        assertTrue(text.contains("hibernate_query_cache_hits_total 11"));
+        assertTrue(text.contains("hibernate_query_cache_misses_total 4"));
+    }
+
+    @Test
+    void writeMetrics_WithStatisticsDisabled_ShouldWriteNothing() {
+        when(statistics.isStatisticsEnabled()).thenReturn(false);
+
+        MetricsWriter writer = new MetricsWriter();
+        new HibernateCacheMetrics(entityManagerFactory).writeMetrics(writer);
+
+        assertEquals("", writer.toString());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.Artem.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void newHistogram_ShouldBeEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getSumMillis());
+        assertEquals(0.0, histogram.getQuantileMillis(0.99));
+    }
+
+    @Test
+    void record_ShouldPlaceValueIntoMatchingBucket() {
+        LatencyHistogram histogram = new LatencyHistogram(new double[]{1, 10, 100});
+
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(1, histogram.getCumulativeCount(0));
+        assertEquals(2, histogram.getCumulativeCount(1));
+        assertEquals(3, histogram.getCumulativeCount(2));
+        assertEquals(55.5, histogram.getSumMillis(), 0.001);
+        assertEquals(50.0, histogram.getMaxMillis(), 0.001);
+    }
+
+    @Test
+    void record_WithValueAboveLastBound_ShouldCountOnlyInTotal() {
+        LatencyHistogram histogram = new LatencyHistogram(new double[]{1, 10});
+
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getCumulativeCount(1));
+        assertEquals(20.0, histogram.getQuantileMillis(1.0), 0.001);
+    }
+
+    @Test
+    void record_WithNegativeValue_ShouldTreatAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram(new double[]{1});
+
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCumulativeCount(0));
+        assertEquals(0.0, histogram.getSumMillis());
+    }
+
+    @Test
+    void getQuantileMillis_ShouldReturnUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram(new double[]{1, 10, 100});
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(200));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(80));
+
+        assertEquals(1.0, histogram.getQuantileMillis(0.5), 0.001);
+        assertEquals(1.0, histogram.getQuantileMillis(0.99), 0.001);
+        assertEquals(100.0, histogram.getQuantileMillis(1.0), 0.001);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.Artem.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementMetricsTest {
+
+    @Test
+    void shape_ShouldReplaceLiteralsAndCollapseInListsAndWhitespace() {
+        assertEquals("select * from records where id in (?...) and title = ? and status = ?",
+                SqlStatementMetrics.shape("select *\n  from records where id in (?, ?,?) and title = 'it''s' and status = ?"));
+        assertEquals("select r1_0.id from records r1_0 where r1_0.id > ? limit ?",
+                SqlStatementMetrics.shape("select r1_0.id from records r1_0 where r1_0.id > 10 limit 50"));
+    }
+
+    @Test
+    void record_SameShape_ShouldAggregateTimeAndRows() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(1, 1000, 10, 10);
+
+        metrics.record("select * from records where id = 1", 2_000_000, 1);
+        metrics.record("select * from records  where id = 2", 4_000_000, 1);
+
+        List<SqlStatementMetrics.ShapeStats> shapes = metrics.getShapes();
+        assertEquals(1, shapes.size());
+        assertEquals(2, shapes.get(0).getTime().getCount());
+        assertEquals(6.0, shapes.get(0).getTime().getSumMillis(), 1e-9);
+        assertEquals(2, shapes.get(0).getRows());
+        assertTrue(metrics.getSlowStatements().isEmpty());
+    }
+
+    @Test
+    void record_AboveThreshold_ShouldKeepLatestSlowStatementsNewestFirst() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(1, 5, 10, 2);
+
+        metrics.record("select 1 from a", 10_000_000, 1);
+        metrics.record("select 1 from b", 20_000_000, 2);
+        metrics.record("select 1 from c", 30_000_000, 3);
+        metrics.record("select 1 from d", 1_000_000, 4);
+
+        List<SqlStatementMetrics.SlowStatement> slow = metrics.getSlowStatements();
+        assertEquals(2, slow.size());
+        assertEquals("select ? from c", slow.get(0).shape());
+        assertEquals(30.0, slow.get(0).elapsedMillis(), 1e-9);
+        assertEquals("select ? from b", slow.get(1).shape());
+    }
+
+    @Test
+    void record_TooManyShapes_ShouldFoldNewShapesIntoOther() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(1, 1000, 2, 10);
+
+        metrics.record("select a from t", 1, 0);
+        metrics.record("select b from t", 1, 0);
+        metrics.record("select c from t", 1, 0);
+        metrics.record("select d from t", 1, 0);
+
+        assertEquals(3, metrics.getShapes().size());
+        assertTrue(metrics.getShapes().stream().anyMatch(shape ->
+                shape.getShape().equals(SqlStatementMetrics.OTHER_SHAPE) && shape.getTime().getCount() == 2));
+    }
+
+    @Test
+    void shouldSample_ShouldFollowSampleRate() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(0, 1000, 10, 10);
+        assertFalse(metrics.shouldSample());
+
+        metrics.setSampleRate(1);
+        assertTrue(metrics.shouldSample());
+
+        metrics.setSampleRate(0.5);
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (metrics.shouldSample()) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled > 4000 && sampled < 6000, "sampled " + sampled);
+    }
+
+    @Test
+    void writeMetrics_ShouldExposeHistogramAndRowsPerShape() {
+        SqlStatementMetrics metrics = new SqlStatementMetrics(1, 1000, 10, 10);
+        metrics.record("delete from records where id = ?", 1_000_000, 3);
+        MetricsWriter writer = new MetricsWriter();
+
+        metrics.writeMetrics(writer);
+
+        String result = writer.toString();
+        assertTrue(result.contains("db_statement_seconds_count{statement=\"delete from records where id = ?\"} 1"));
+        assertTrue(result.contains("db_statement_rows_total{statement=\"delete from records where id = ?\"} 3"));
+        assertTrue(result.contains("db_statement_sample_rate 1"));
+    }
+
+    @Test
+    void writeMetrics_WithoutStatements_ShouldWriteNothing() {
+        MetricsWriter writer = new MetricsWriter();
+
+        new SqlStatementMetrics(1, 1000, 10, 10).writeMetrics(writer);
+
+        assertEquals("", writer.toString());
+    }
+}
@@ -0,0 +1,146 @@
+package ru.Artem.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static final String LOCATION = "classpath:db/test-migration/";
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private SchemaMigrator migrator(String set, SchemaMigrator.Mode mode) {
+        return new SchemaMigrator(dataSource, LOCATION + set, mode);
+    }
+
+    private long queryForLong(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private boolean tableExists(String name) throws SQLException {
+        return queryForLong("select count(*) from information_schema.tables where table_name = '" + name.toUpperCase() + "'") > 0;
+    }
+
+    @Test
+    void migrate_EmptyDatabase_ShouldApplyScriptsInOrderAndRecordThem() throws SQLException {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertEquals(1, queryForLong("select count(*) from items where done = false"));
+        assertEquals(2, queryForLong("select count(*) from schema_version"));
+        assertEquals(2, queryForLong("select max(version) from schema_version"));
+        assertEquals(64, queryForLong("select min(length(checksum)) from schema_version"));
+    }
+
+    @Test
+    void migrate_AlreadyMigrated_ShouldNotReapplyScripts() throws SQLException {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertDoesNotThrow(() -> migrator("base", SchemaMigrator.Mode.MIGRATE).migrate());
+
+        assertEquals(1, queryForLong("select count(*) from items"));
+        assertEquals(2, queryForLong("select count(*) from schema_version"));
+    }
+
+    @Test
+    void migrate_NewScriptAdded_ShouldApplyOnlyPendingScript() throws SQLException {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        migrator("next", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertEquals(3, queryForLong("select count(*) from schema_version"));
+        assertEquals(1, queryForLong("select count(*) from information_schema.indexes where index_name = 'IDX_ITEMS_DONE'"));
+    }
+
+    @Test
+    void migrate_AppliedScriptChanged_ShouldFailOnChecksumMismatch() {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> migrator("changed", SchemaMigrator.Mode.MIGRATE).migrate());
+        assertTrue(exception.getMessage().contains("V1"));
+    }
+
+    @Test
+    void migrate_AppliedScriptMissing_ShouldFail() {
+        migrator("next", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertThrows(IllegalStateException.class, () -> migrator("base", SchemaMigrator.Mode.MIGRATE).migrate());
+    }
+
+    @Test
+    void migrate_FailingScript_ShouldRollBackScriptAndStopBeforeRecordingIt() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> migrator("broken", SchemaMigrator.Mode.MIGRATE).migrate());
+
+        assertEquals(1, queryForLong("select count(*) from items"));
+        assertEquals(1, queryForLong("select count(*) from schema_version"));
+    }
+
+    @Test
+    void migrate_ValidateModeWithPendingScripts_ShouldFailWithoutChangingSchema() throws SQLException {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertThrows(IllegalStateException.class, () -> migrator("next", SchemaMigrator.Mode.VALIDATE).migrate());
+        assertEquals(2, queryForLong("select count(*) from schema_version"));
+    }
+
+    @Test
+    void migrate_ValidateModeUpToDate_ShouldPass() {
+        migrator("base", SchemaMigrator.Mode.MIGRATE).migrate();
+
+        assertDoesNotThrow(() -> migrator("base", SchemaMigrator.Mode.VALIDATE).migrate());
+    }
+
+    @Test
+    void migrate_ValidateModeOnUnversionedDatabase_ShouldFail() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> migrator("base", SchemaMigrator.Mode.VALIDATE).migrate());
+        assertFalse(tableExists("schema_version"));
+    }
+
+    @Test
+    void migrate_ModeNone_ShouldNotTouchDatabase() throws SQLException {
+        migrator("base", SchemaMigrator.Mode.NONE).migrate();
+
+        assertFalse(tableExists("schema_version"));
+        assertFalse(tableExists("items"));
+    }
+
+    @Test
+    void loadMigrations_ApplicationScripts_ShouldBeOrderedWithIndexOutsideTransaction() {
+        List<SchemaMigrator.Migration> migrations =
+                new SchemaMigrator(dataSource, "classpath*:db/migration/", SchemaMigrator.Mode.MIGRATE).loadMigrations();
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), migrations.stream().map(SchemaMigrator.Migration::version).toList());
+        assertFalse(migrations.get(0).noTransaction());
+        assertTrue(migrations.get(2).noTransaction());
+        assertTrue(migrations.get(3).noTransaction());
+        assertFalse(migrations.get(4).noTransaction());
+        assertFalse(migrations.get(5).noTransaction());
+    }
+
+    @Test
+    void modeFromProperty_ShouldDefaultToMigrate() {
+        assertEquals(SchemaMigrator.Mode.MIGRATE, SchemaMigrator.Mode.fromProperty(null));
+        assertEquals(SchemaMigrator.Mode.VALIDATE, SchemaMigrator.Mode.fromProperty(" validate "));
+    }
+}
@@ -0,0 +1,110 @@
+package ru.Artem.search;
+
+import org.junit.jupiter.api.Test;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Searches a million synthetic titles (a skewed 50 000-word vocabulary, 3-6 words each) with the
+ * query shapes the search box sees: a whole word, a two-letter prefix, two words and a substring.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+class RecordSearchIndexBenchmark {
+
+    private static final int RECORDS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 2_000;
+    private static final int LIMIT = 50;
+
+    private final Random random = new Random(42);
+    private final String[] vocabulary = new String[VOCABULARY];
+    private final List<RecordView> records = new ArrayList<>(RECORDS);
+
+    @Test
+    void search_OverMillionTitles_ShouldAnswerWithinTenMillis() {
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = randomWord();
+        }
+        for (int id = 1; id <= RECORDS; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int words = 3 + random.nextInt(4); words > 0; words--) {
+                title.append(word()).append(words > 1 ? " " : "");
+            }
+            records.add(new RecordView(id, TodoList.DEFAULT_ID, title.toString(),
+                    random.nextInt(3) == 0 ? RecordStatus.DONE : RecordStatus.ACTIVE, 0));
+        }
+        RecordSearchIndex index = new RecordSearchIndex();
+        long start = System.nanoTime();
+        index.load(records);
+        System.out.printf("indexed %d titles in %d ms%n", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        List<String[]> results = new ArrayList<>();
+        results.add(measure(index, "word", () -> word()));
+        results.add(measure(index, "prefix", () -> word().substring(0, 2)));
+        results.add(measure(index, "two words", () -> {
+            String[] title = title().split(" ");
+            return title[0] + " " + title[title.length - 1];
+        }));
+        results.add(measure(index, "substring", () -> {
+            String word = word();
+            int from = random.nextInt(word.length() - 2);
+            return word.substring(from, from + 3);
+        }));
+
+        System.out.printf("%-10s %9s %9s %9s%n", "query", "p50 ms", "p99 ms", "hits/q");
+        results.forEach(row -> System.out.printf("%-10s %9s %9s %9s%n", (Object[]) row));
+        for (String[] row : results) {
+            assertTrue(Double.parseDouble(row[2]) < 10, row[0] + " p99 " + row[2] + " ms");
+        }
+    }
+
+    private String[] measure(RecordSearchIndex index, String shape, Supplier<String> queries) {
+        // Warm-up pass, then the measured one
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(TodoList.DEFAULT_ID, queries.get(), i % 2 == 0 ? null : RecordStatus.ACTIVE, LIMIT);
+        }
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String query = queries.get();
+            RecordStatus status = i % 2 == 0 ? null : RecordStatus.ACTIVE;
+            long start = System.nanoTime();
+            hits += index.search(TodoList.DEFAULT_ID, query, status, LIMIT).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new String[]{shape,
+                String.format("%.3f", nanos[QUERIES / 2] / 1e6),
+                String.format("%.3f", nanos[QUERIES * 99 / 100] / 1e6),
+                String.valueOf(hits / QUERIES)};
+    }
+
+    /**
+     * Skewed like real text: a few words are in a large share of the titles, most are rare.
+     */
+    private String word() {
+        double r = random.nextDouble();
+        return vocabulary[(int) (VOCABULARY * r * r * r)];
+    }
+
+    private String title() {
+        return records.get(random.nextInt(records.size())).getTitle();
+    }
+
+    private String randomWord() {
+        char[] letters = new char[4 + random.nextInt(7)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.Artem.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordSearchIndexTest {
+
+    private RecordSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RecordSearchIndex();
+        index.load(List.of(
+                new RecordView(1, TodoList.DEFAULT_ID, "Repaint the garage", RecordStatus.ACTIVE, 0),
+                new RecordView(2, TodoList.DEFAULT_ID, "Paint the fence", RecordStatus.DONE, 0),
+                new RecordView(3, TodoList.DEFAULT_ID, "Painting class on Friday", RecordStatus.ACTIVE, 0),
+                new RecordView(4, TodoList.DEFAULT_ID, "Buy paint and brushes", RecordStatus.ACTIVE, 0),
+                new RecordView(5, TodoList.DEFAULT_ID, "Call mom", RecordStatus.ACTIVE, 0)));
+    }
+
+    private static List<Integer> ids(List<RecordView> records) {
+        return records.stream().map(RecordView::getId).toList();
+    }
+
+    @Test
+    void search_ShouldRankWholeWordsThenPrefixesThenSubstrings() {
+        assertEquals(List.of(2, 4, 3, 1), ids(index.search(TodoList.DEFAULT_ID, "PAINT", null, 10)));
+    }
+
+    @Test
+    void search_WithLimit_ShouldStopAfterBestMatches() {
+        assertEquals(List.of(2, 4), ids(index.search(TodoList.DEFAULT_ID, "paint", null, 2)));
+    }
+
+    @Test
+    void search_WithStatus_ShouldSkipOtherStatuses() {
+        assertEquals(List.of(4, 3, 1), ids(index.search(TodoList.DEFAULT_ID, "paint", RecordStatus.ACTIVE, 10)));
+    }
+
+    @Test
+    void search_WithSeveralWords_ShouldRequireEveryWord() {
+        assertEquals(List.of(4), ids(index.search(TodoList.DEFAULT_ID, "brush, paint!", null, 10)));
+        assertTrue(index.search(TodoList.DEFAULT_ID, "paint mom", null, 10).isEmpty());
+    }
+
+    @Test
+    void search_WithShortWord_ShouldNotMatchInsideWords() {
+        assertEquals(List.of(3), ids(index.search(TodoList.DEFAULT_ID, "fr", null, 10)));
+        assertTrue(index.search(TodoList.DEFAULT_ID, "om", null, 10).isEmpty());
+        assertEquals(List.of(5), ids(index.search(TodoList.DEFAULT_ID, "mom", null, 10)));
+    }
+
+    @Test
+    void search_ForSubstring_ShouldFollowTitleChanges() {
+        assertEquals(List.of(1, 2, 3, 4), ids(index.search(TodoList.DEFAULT_ID, "aint", null, 10)));
+
+        index.remove(TodoList.DEFAULT_ID, 1);
+        index.put(new RecordView(2, TodoList.DEFAULT_ID, "Wash the fence", RecordStatus.DONE, 0));
+        index.put(new RecordView(6, TodoList.DEFAULT_ID, "Repainted", RecordStatus.ACTIVE, 0));
+
+        assertEquals(List.of(3, 4, 6), ids(index.search(TodoList.DEFAULT_ID, "aint", null, 10)));
+        assertEquals(List.of(6), ids(index.search(TodoList.DEFAULT_ID, "epaint", null, 10)));
+        assertTrue(index.search(TodoList.DEFAULT_ID, "aintx", null, 10).isEmpty());
+    }
+
+    @Test
+    void search_WithBlankQuery_ShouldFindNothing() {
+        assertTrue(index.search(TodoList.DEFAULT_ID, "  ,. ", null, 10).isEmpty());
+    }
+
+    @Test
+    void writes_ShouldBeVisibleToLaterSearches() {
+        index.put(new RecordView(6, TodoList.DEFAULT_ID, "Paint the door", RecordStatus.ACTIVE, 0));
+        index.put(new RecordView(4, TodoList.DEFAULT_ID, "Buy brushes", RecordStatus.ACTIVE, 0));
+        index.updateStatus(TodoList.DEFAULT_ID, 2, RecordStatus.ACTIVE);
+        index.remove(TodoList.DEFAULT_ID, 1);
+
+        assertEquals(List.of(2, 6, 3), ids(index.search(TodoList.DEFAULT_ID, "paint", RecordStatus.ACTIVE, 10)));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void search_ShouldSeeOnlyRecordsOfThatList() {
+        index.put(new RecordView(6, 2, "Paint the shed", RecordStatus.ACTIVE, 0));
+        index.put(new RecordView(7, 2, "!!!", RecordStatus.ACTIVE, 0));
+
+        assertEquals(List.of(6), ids(index.search(2, "paint", null, 10)));
+        assertEquals(List.of(2, 4, 3, 1), ids(index.search(TodoList.DEFAULT_ID, "paint", null, 10)));
+        assertTrue(index.search(3, "paint", null, 10).isEmpty());
+
+        index.remove(TodoList.DEFAULT_ID, 6);
+        index.updateStatus(TodoList.DEFAULT_ID, 6, RecordStatus.DONE);
+        assertEquals(List.of(6), ids(index.search(2, "shed", RecordStatus.ACTIVE, 10)));
+
+        index.remove(2, 6);
+        index.remove(2, 7);
+        assertTrue(index.search(2, "paint", null, 10).isEmpty());
+        assertEquals(5, index.size());
+    }
+}
@@ -3,17 +3,34 @@ package ru.Artem.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import ru.Artem.dao.RecordDao;
 import ru.Artem.entity.Record;
 import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
 import ru.Artem.entity.dto.RecordsContainerDto;
+import ru.Artem.events.RecordEvent;
+import ru.Artem.events.RecordEventBroadcaster;
+import ru.Artem.search.RecordSearchIndex;
+import ru.Artem.store.InMemoryRecordStore;
+import ru.Artem.writebehind.RecordWriteQueue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,195 +44,622 @@ class RecordServiceTest {
     @InjectMocks
     private RecordService recordService;
 
-    private Record activeRecord;
-    private Record doneRecord;
-    private List<Record> records;
+    private RecordView activeRecord;
+    private RecordView doneRecord;
+    private List<RecordView> records;
 
     @BeforeEach
     void setUp() {
-        activeRecord = new Record("Test Active Task");
-        activeRecord.setStatus(RecordStatus.ACTIVE);
+        activeRecord = new RecordView(0, TodoList.DEFAULT_ID, "Test Active Task", RecordStatus.ACTIVE, 0);
         
-        doneRecord = new Record("Test Done Task");
-        doneRecord.setStatus(RecordStatus.DONE);
+        doneRecord = new RecordView(0, TodoList.DEFAULT_ID, "Test Done Task", RecordStatus.DONE, 0);
         
         records = Arrays.asList(activeRecord, doneRecord);
     }
 
+    private static Map<RecordStatus, Long> counters(long done, long active) {
+        Map<RecordStatus, Long> counters = new EnumMap<>(RecordStatus.class);
+        counters.put(RecordStatus.DONE, done);
+        counters.put(RecordStatus.ACTIVE, active);
+        return counters;
+    }
+
+    private static RecordView recordWithId(int id, RecordStatus status) {
+        return new RecordView(id, TodoList.DEFAULT_ID, "Task " + id, status, 0);
+    }
+
+    @Test
+    void findAllRecords_BeforeIteration_ShouldNotReadAnything() {
+        recordService.findAllRecords(TodoList.DEFAULT_ID, null);
+
+        verifyNoInteractions(recordDao);
+    }
+
     @Test
     void findAllRecords_WithNullFilter_ShouldReturnAllRecords() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE)).thenReturn(records);
 
-        RecordsContainerDto result = recordService.findAllRecords(null);
+        List<RecordView> result = new ArrayList<>(recordService.findAllRecords(TodoList.DEFAULT_ID, null));
 
-        assertNotNull(result);
-        assertEquals(2, result.getRecords().size());
-        assertEquals(1, result.getNumberOfDoneRecords());
-        assertEquals(1, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        assertEquals(records, result);
+        verify(recordDao, times(1)).scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE);
+        verify(recordDao, never()).countRecordsByStatus(TodoList.DEFAULT_ID);
     }
 
     @Test
-    void findAllRecords_WithEmptyFilter_ShouldReturnAllRecords() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+    void findAllRecords_WithActiveFilter_ShouldReturnOnlyActiveRecords() {
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 0, RecordService.MAX_PAGE_SIZE))
+                .thenReturn(Collections.singletonList(activeRecord));
 
-        RecordsContainerDto result = recordService.findAllRecords("");
+        List<RecordView> result = new ArrayList<>(recordService.findAllRecords(TodoList.DEFAULT_ID, "ACTIVE"));
 
-        assertNotNull(result);
-        assertEquals(2, result.getRecords().size());
-        assertEquals(1, result.getNumberOfDoneRecords());
-        assertEquals(1, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        assertEquals(Collections.singletonList(activeRecord), result);
     }
 
     @Test
-    void findAllRecords_WithActiveFilter_ShouldReturnOnlyActiveRecords() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+    void findAllRecords_WithLowerCaseFilter_ShouldWorkCorrectly() {
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.DONE, 0, RecordService.MAX_PAGE_SIZE))
+                .thenReturn(Collections.singletonList(doneRecord));
 
-        RecordsContainerDto result = recordService.findAllRecords("ACTIVE");
+        List<RecordView> result = new ArrayList<>(recordService.findAllRecords(TodoList.DEFAULT_ID, "done"));
 
-        assertNotNull(result);
-        assertEquals(1, result.getRecords().size());
-        assertEquals(RecordStatus.ACTIVE, result.getRecords().get(0).getStatus());
-        assertEquals(1, result.getNumberOfDoneRecords());
-        assertEquals(1, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        assertEquals(Collections.singletonList(doneRecord), result);
     }
 
     @Test
-    void findAllRecords_WithDoneFilter_ShouldReturnOnlyDoneRecords() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+    void findAllRecords_WithInvalidFilter_ShouldReturnAllRecords() {
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE)).thenReturn(records);
 
-        RecordsContainerDto result = recordService.findAllRecords("DONE");
+        assertEquals(2, recordService.findAllRecords(TodoList.DEFAULT_ID, "INVALID").size());
+    }
 
-        assertNotNull(result);
-        assertEquals(1, result.getRecords().size());
-        assertEquals(RecordStatus.DONE, result.getRecords().get(0).getStatus());
-        assertEquals(1, result.getNumberOfDoneRecords());
-        assertEquals(1, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+    @Test
+    void findAllRecords_WithEmptyList_ShouldReadFirstChunkOnce() {
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE)).thenReturn(Collections.emptyList());
+
+        Collection<RecordView> result = recordService.findAllRecords(TodoList.DEFAULT_ID, null);
+
+        assertTrue(result.isEmpty());
+        assertFalse(result.iterator().hasNext());
+        verify(recordDao, times(1)).scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE);
     }
 
     @Test
-    void findAllRecords_WithLowerCaseFilter_ShouldWorkCorrectly() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+    void findAllRecords_LongerThanChunk_ShouldReadNextChunkAfterLastId() {
+        List<RecordView> firstChunk = new ArrayList<>();
+        for (int id = 1; id <= RecordService.MAX_PAGE_SIZE; id++) {
+            firstChunk.add(recordWithId(id, RecordStatus.ACTIVE));
+        }
+        RecordView last = recordWithId(RecordService.MAX_PAGE_SIZE + 7, RecordStatus.DONE);
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE)).thenReturn(firstChunk);
+        when(recordDao.scanRecordsAfter(TodoList.DEFAULT_ID, null, RecordService.MAX_PAGE_SIZE, RecordService.MAX_PAGE_SIZE))
+                .thenReturn(Collections.singletonList(last));
+
+        List<RecordView> result = new ArrayList<>(recordService.findAllRecords(TodoList.DEFAULT_ID, null));
+
+        assertEquals(RecordService.MAX_PAGE_SIZE + 1, result.size());
+        assertEquals(last, result.get(result.size() - 1));
+    }
 
-        RecordsContainerDto result = recordService.findAllRecords("active");
+    @Test
+    void findRecordsPage_ShouldNotLoadFullListForCounters() {
+        when(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, 0, 3)).thenReturn(Collections.singletonList(activeRecord));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(7, 3));
 
-        assertNotNull(result);
-        assertEquals(1, result.getRecords().size());
-        assertEquals(RecordStatus.ACTIVE, result.getRecords().get(0).getStatus());
-        verify(recordDao, times(1)).findAllRecords();
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, 2);
+
+        assertEquals(7, result.getNumberOfDoneRecords());
+        assertEquals(3, result.getNumberOfActiveRecords());
+        verify(recordDao, never()).scanRecordsAfter(anyInt(), any(), anyInt(), anyInt());
     }
 
     @Test
-    void findAllRecords_WithInvalidFilter_ShouldReturnAllRecords() {
-        when(recordDao.findAllRecords()).thenReturn(records);
+    void findRecordsPage_FirstPage_ShouldExposeNextCursorOnly() {
+        when(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, 0, 3)).thenReturn(Arrays.asList(
+                recordWithId(1, RecordStatus.ACTIVE), recordWithId(2, RecordStatus.DONE), recordWithId(3, RecordStatus.ACTIVE)));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
 
-        RecordsContainerDto result = recordService.findAllRecords("INVALID");
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, 2);
 
-        assertNotNull(result);
         assertEquals(2, result.getRecords().size());
+        assertEquals(1, result.getRecords().get(0).getId());
+        assertEquals(2, result.getRecords().get(1).getId());
+        assertNull(result.getPreviousCursor());
+        assertEquals(2, result.getNextCursor());
         assertEquals(1, result.getNumberOfDoneRecords());
         assertEquals(1, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
     }
 
     @Test
-    void findAllRecords_WithEmptyRecordsList_ShouldReturnEmptyContainer() {
-        when(recordDao.findAllRecords()).thenReturn(Collections.emptyList());
+    void findRecordsPage_LastPage_ShouldExposePreviousCursorOnly() {
+        when(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, 2, 3)).thenReturn(Collections.singletonList(recordWithId(3, RecordStatus.ACTIVE)));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
 
-        RecordsContainerDto result = recordService.findAllRecords(null);
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, null, 2, null, 2);
 
-        assertNotNull(result);
-        assertEquals(0, result.getRecords().size());
-        assertEquals(0, result.getNumberOfDoneRecords());
-        assertEquals(0, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        assertEquals(1, result.getRecords().size());
+        assertEquals(3, result.getPreviousCursor());
+        assertNull(result.getNextCursor());
     }
 
     @Test
-    void findAllRecords_WithOnlyActiveRecords_ShouldReturnCorrectCounts() {
-        List<Record> onlyActiveRecords = Arrays.asList(activeRecord, new Record("Another Active"));
-        when(recordDao.findAllRecords()).thenReturn(onlyActiveRecords);
+    void findRecordsPage_WithBeforeCursor_ShouldReturnPrecedingPage() {
+        when(recordDao.getRecordsBefore(TodoList.DEFAULT_ID, null, 5, 3)).thenReturn(Arrays.asList(
+                recordWithId(2, RecordStatus.ACTIVE), recordWithId(3, RecordStatus.ACTIVE), recordWithId(4, RecordStatus.ACTIVE)));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
 
-        RecordsContainerDto result = recordService.findAllRecords(null);
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, null, null, 5, 2);
 
-        assertNotNull(result);
         assertEquals(2, result.getRecords().size());
-        assertEquals(0, result.getNumberOfDoneRecords());
-        assertEquals(2, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        assertEquals(3, result.getRecords().get(0).getId());
+        assertEquals(4, result.getRecords().get(1).getId());
+        assertEquals(3, result.getPreviousCursor());
+        assertEquals(4, result.getNextCursor());
     }
 
     @Test
-    void findAllRecords_WithOnlyDoneRecords_ShouldReturnCorrectCounts() {
-        List<Record> onlyDoneRecords = Arrays.asList(doneRecord, new Record("Another Done"));
-        onlyDoneRecords.get(1).setStatus(RecordStatus.DONE);
-        when(recordDao.findAllRecords()).thenReturn(onlyDoneRecords);
+    void findRecordsPage_WithFilter_ShouldPassStatusAndDefaultPageSize() {
+        when(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.DONE, 0, RecordService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(Collections.singletonList(doneRecord));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
 
-        RecordsContainerDto result = recordService.findAllRecords(null);
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, "done", null, null, null);
+
+        assertEquals(1, result.getRecords().size());
+        assertEquals(RecordStatus.DONE, result.getRecords().get(0).getStatus());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findRecordsPage_WithInvalidFilterAndHugeLimit_ShouldListAllStatusesWithMaxPageSize() {
+        when(recordDao.getRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE + 1)).thenReturn(records);
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
+
+        RecordsContainerDto result = recordService.findRecordsPage(TodoList.DEFAULT_ID, "INVALID", null, null, 100000);
 
-        assertNotNull(result);
         assertEquals(2, result.getRecords().size());
-        assertEquals(2, result.getNumberOfDoneRecords());
-        assertEquals(0, result.getNumberOfActiveRecords());
-        verify(recordDao, times(1)).findAllRecords();
+        verify(recordDao, times(1)).getRecordsAfter(TodoList.DEFAULT_ID, null, 0, RecordService.MAX_PAGE_SIZE + 1);
     }
 
     @Test
     void saveRecord_WithValidTitle_ShouldCallDao() {
         String title = "New Task";
 
-        recordService.saveRecord(title);
+        recordService.saveRecord(TodoList.DEFAULT_ID, title);
 
         verify(recordDao, times(1)).saveRecord(any(Record.class));
     }
 
     @Test
     void saveRecord_WithNullTitle_ShouldNotCallDao() {
-        recordService.saveRecord(null);
+        recordService.saveRecord(TodoList.DEFAULT_ID, null);
 
         verify(recordDao, never()).saveRecord(any(Record.class));
     }
 
     @Test
     void saveRecord_WithEmptyTitle_ShouldNotCallDao() {
-        recordService.saveRecord("");
+        recordService.saveRecord(TodoList.DEFAULT_ID, "");
 
         verify(recordDao, never()).saveRecord(any(Record.class));
     }
 
     @Test
     void saveRecord_WithWhitespaceTitle_ShouldNotCallDao() {
-        recordService.saveRecord("   ");
+        recordService.saveRecord(TodoList.DEFAULT_ID, "   ");
 
         verify(recordDao, never()).saveRecord(any(Record.class));
     }
 
     @Test
     void saveRecord_WithTabAndSpaceTitle_ShouldNotCallDao() {
-        recordService.saveRecord("\t \n");
+        recordService.saveRecord(TodoList.DEFAULT_ID, "\t \n");
 
         verify(recordDao, never()).saveRecord(any(Record.class));
     }
 
+    @Test
+    void saveRecords_ShouldSkipBlankTitlesAndSaveRestInOneCall() {
+        int result = recordService.saveRecords(TodoList.DEFAULT_ID, Arrays.asList("First", " ", null, "Second"));
+
+        assertEquals(2, result);
+        verify(recordDao, times(1)).saveRecords(argThat(list -> list.size() == 2
+                && list.get(0).getTitle().equals("First")
+                && list.get(1).getTitle().equals("Second")));
+    }
+
+    @Test
+    void saveRecords_WithOnlyBlankTitles_ShouldNotCallDao() {
+        int result = recordService.saveRecords(TodoList.DEFAULT_ID, Arrays.asList("", "   "));
+
+        assertEquals(0, result);
+        verify(recordDao, never()).saveRecords(any());
+    }
+
     @Test
     void updateRecordStatus_ShouldCallDao() {
         int id = 1;
         RecordStatus newStatus = RecordStatus.DONE;
 
-        recordService.updateRecordStatus(id, newStatus);
+        recordService.updateRecordStatus(TodoList.DEFAULT_ID, id, newStatus);
+
+        verify(recordDao, times(1)).updateRecordStatus(TodoList.DEFAULT_ID, id, newStatus);
+    }
+
+    @Test
+    void updateRecordStatus_ShouldReturnWhetherDaoChangedRow() {
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE)).thenReturn(true);
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE)).thenReturn(false);
+
+        assertTrue(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE));
+        assertFalse(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE));
+    }
+
+    @Test
+    void deleteRecordStatus_ShouldReturnWhetherDaoDeletedRow() {
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 1)).thenReturn(true);
 
-        verify(recordDao, times(1)).updateRecordStatus(id, newStatus);
+        assertTrue(recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 1));
+        assertFalse(recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 2));
     }
 
     @Test
     void deleteRecordStatus_ShouldCallDao() {
         int id = 1;
 
-        recordService.deleteRecordStatus(id);
+        recordService.deleteRecordStatus(TodoList.DEFAULT_ID, id);
+
+        verify(recordDao, times(1)).deleteRecord(TodoList.DEFAULT_ID, id);
+    }
+
+    @Test
+    void updateRecordsStatus_ShouldDeduplicateIdsAndReturnDaoCount() {
+        when(recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(1, 2)), RecordStatus.DONE)).thenReturn(2);
+
+        int result = recordService.updateRecordsStatus(TodoList.DEFAULT_ID, Arrays.asList(1, 2, 1), RecordStatus.DONE);
+
+        assertEquals(2, result);
+        verify(recordDao, times(1)).updateRecordsStatus(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(1, 2)), RecordStatus.DONE);
+    }
+
+    @Test
+    void updateRecordsStatus_WithEmptyIds_ShouldNotCallDao() {
+        assertEquals(0, recordService.updateRecordsStatus(TodoList.DEFAULT_ID, Collections.emptyList(), RecordStatus.DONE));
+        assertEquals(0, recordService.updateRecordsStatus(TodoList.DEFAULT_ID, null, RecordStatus.DONE));
+
+        verify(recordDao, never()).updateRecordsStatus(eq(TodoList.DEFAULT_ID), any(), any());
+    }
+
+    @Test
+    void deleteRecords_ShouldReturnDaoCount() {
+        when(recordDao.deleteRecords(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(3, 4)))).thenReturn(1);
+
+        int result = recordService.deleteRecords(TodoList.DEFAULT_ID, Arrays.asList(3, 4));
+
+        assertEquals(1, result);
+    }
+
+    @Test
+    void deleteRecords_WithEmptyIds_ShouldNotCallDao() {
+        assertEquals(0, recordService.deleteRecords(TodoList.DEFAULT_ID, Collections.emptySet()));
+
+        verify(recordDao, never()).deleteRecords(eq(TodoList.DEFAULT_ID), any());
+    }
+
+    private RecordService storeBackedService(InMemoryRecordStore store) {
+        when(recordDao.findAllRecords()).thenReturn(Arrays.asList(recordWithId(1, RecordStatus.ACTIVE),
+                recordWithId(2, RecordStatus.DONE), recordWithId(3, RecordStatus.ACTIVE)));
+        RecordService service = new RecordService(recordDao, store, null, null, null);
+        service.warmUp();
+        return service;
+    }
+
+    @Test
+    void findAllRecords_WithStore_ShouldServeListFromMemory() {
+        RecordService service = storeBackedService(new InMemoryRecordStore());
+
+        Collection<RecordView> result = service.findAllRecords(TodoList.DEFAULT_ID, "active");
+
+        assertEquals(Arrays.asList(1, 3), result.stream().map(RecordView::getId).toList());
+        verify(recordDao, times(1)).findAllRecords();
+        verify(recordDao, never()).scanRecordsAfter(anyInt(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void findRecordsPage_WithStore_ShouldPageFromMemory() {
+        RecordService service = storeBackedService(new InMemoryRecordStore());
+
+        RecordsContainerDto result = service.findRecordsPage(TodoList.DEFAULT_ID, null, null, null, 2);
+
+        assertEquals(Arrays.asList(1, 2), result.getRecords().stream().map(RecordView::getId).toList());
+        assertEquals(2, result.getNextCursor());
+        verify(recordDao, never()).getRecordsAfter(eq(TodoList.DEFAULT_ID), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void writes_WithStore_ShouldGoToDatabaseAndThenStore() {
+        InMemoryRecordStore store = new InMemoryRecordStore();
+        RecordService service = storeBackedService(store);
+        doAnswer(invocation -> {
+            Record record = invocation.getArgument(0);
+            java.lang.reflect.Field idField = Record.class.getDeclaredField("id");
+            idField.setAccessible(true);
+            idField.set(record, 4);
+            return null;
+        }).when(recordDao).saveRecord(any(Record.class));
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE)).thenReturn(true);
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 2)).thenReturn(true);
+
+        service.saveRecord(TodoList.DEFAULT_ID, "New task");
+        assertTrue(service.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE));
+        assertTrue(service.deleteRecordStatus(TodoList.DEFAULT_ID, 2));
+
+        assertEquals("New task", store.getRecord(TodoList.DEFAULT_ID, 4).getTitle());
+        assertEquals(RecordStatus.DONE, store.getRecord(TodoList.DEFAULT_ID, 1).getStatus());
+        assertNull(store.getRecord(TodoList.DEFAULT_ID, 2));
+        assertEquals(1L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+    }
+
+    @Test
+    void bulkWrites_WithStore_ShouldApplyToEveryId() {
+        InMemoryRecordStore store = new InMemoryRecordStore();
+        RecordService service = storeBackedService(store);
+        when(recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(1, 3)), RecordStatus.DONE)).thenReturn(2);
+        when(recordDao.deleteRecords(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(2, 3)))).thenReturn(2);
+
+        assertEquals(2, service.updateRecordsStatus(TodoList.DEFAULT_ID, Arrays.asList(1, 3), RecordStatus.DONE));
+        assertEquals(2, service.deleteRecords(TodoList.DEFAULT_ID, Arrays.asList(2, 3)));
+
+        assertEquals(Collections.singletonList(1), store.getRecordsAfter(TodoList.DEFAULT_ID, null, 0, 10).stream().map(RecordView::getId).toList());
+        assertEquals(RecordStatus.DONE, store.getRecord(TodoList.DEFAULT_ID, 1).getStatus());
+    }
+
+    @Test
+    void write_WithStoreWhenDatabaseFails_ShouldLeaveStoreUnchanged() {
+        InMemoryRecordStore store = new InMemoryRecordStore();
+        RecordService service = storeBackedService(store);
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 1)).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> service.deleteRecordStatus(TodoList.DEFAULT_ID, 1));
+
+        assertNotNull(store.getRecord(TodoList.DEFAULT_ID, 1));
+    }
+
+    @Test
+    void getDataVersion_ShouldGrowOnlyWhenDataChanges() {
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE)).thenReturn(true);
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE)).thenReturn(false);
+        when(recordDao.deleteRecords(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(5, 6)))).thenReturn(0);
+        long initial = recordService.getDataVersion(TodoList.DEFAULT_ID);
+
+        recordService.saveRecord(TodoList.DEFAULT_ID, "   ");
+        recordService.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE);
+        recordService.deleteRecords(TodoList.DEFAULT_ID, Arrays.asList(5, 6));
+        assertEquals(initial, recordService.getDataVersion(TodoList.DEFAULT_ID));
+
+        recordService.saveRecord(TodoList.DEFAULT_ID, "New task");
+        recordService.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE);
+        assertEquals(initial + 2, recordService.getDataVersion(TodoList.DEFAULT_ID));
+    }
+
+    @Test
+    void getDataVersion_ShouldGrowOnlyForTheListThatChanged() {
+        long initial = recordService.getDataVersion(TodoList.DEFAULT_ID);
+        assertEquals(initial, recordService.getDataVersion(2));
+
+        recordService.saveRecord(2, "Elsewhere");
+
+        assertEquals(initial, recordService.getDataVersion(TodoList.DEFAULT_ID));
+        assertEquals(initial + 1, recordService.getDataVersion(2));
+        assertEquals(initial, recordService.getDataVersion(3));
+    }
+
+    @Test
+    void getDataVersion_WhenWriteFails_ShouldNotChange() {
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 1)).thenThrow(new IllegalStateException("database down"));
+        long initial = recordService.getDataVersion(TodoList.DEFAULT_ID);
+
+        assertThrows(IllegalStateException.class, () -> recordService.deleteRecordStatus(TodoList.DEFAULT_ID, 1));
+
+        assertEquals(initial, recordService.getDataVersion(TodoList.DEFAULT_ID));
+    }
+
+    @Test
+    void exportRecords_ShouldPassDatabaseRowsToSinkAndCloseCursor() {
+        boolean[] closed = new boolean[1];
+        when(recordDao.streamRecords(TodoList.DEFAULT_ID, RecordStatus.DONE))
+                .thenReturn(Stream.of(recordWithId(2, RecordStatus.DONE), recordWithId(4, RecordStatus.DONE))
+                        .onClose(() -> closed[0] = true));
+        List<Integer> exported = new java.util.ArrayList<>();
+
+        recordService.exportRecords(TodoList.DEFAULT_ID, "done", record -> exported.add(record.getId()));
+
+        assertEquals(Arrays.asList(2, 4), exported);
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void exportRecords_WithStore_ShouldNotQueryDatabase() {
+        RecordService service = storeBackedService(new InMemoryRecordStore());
+        List<Integer> exported = new java.util.ArrayList<>();
+
+        service.exportRecords(TodoList.DEFAULT_ID, null, record -> exported.add(record.getId()));
+
+        assertEquals(Arrays.asList(1, 2, 3), exported);
+        verify(recordDao, never()).streamRecords(eq(TodoList.DEFAULT_ID), any());
+    }
+
+    @Test
+    void saveRecord_ShouldReturnSavedView() {
+        RecordView saved = recordService.saveRecord(TodoList.DEFAULT_ID, "Created");
+
+        assertEquals("Created", saved.getTitle());
+        assertEquals(RecordStatus.ACTIVE, saved.getStatus());
+        assertNull(recordService.saveRecord(TodoList.DEFAULT_ID, " "));
+    }
+
+    @Test
+    void writes_WithSubscribers_ShouldPublishEventWithCountersAndVersion() {
+        RecordEventBroadcaster events = mock(RecordEventBroadcaster.class);
+        when(events.hasSubscribers(TodoList.DEFAULT_ID)).thenReturn(true);
+        when(recordDao.updateRecordsStatus(TodoList.DEFAULT_ID, new LinkedHashSet<>(Arrays.asList(3, 4)), RecordStatus.DONE)).thenReturn(2);
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(2, 5));
+        RecordService service = new RecordService(recordDao, null, events, null, null);
+
+        service.updateRecordsStatus(TodoList.DEFAULT_ID, Arrays.asList(3, 4, 3), RecordStatus.DONE);
+
+        ArgumentCaptor<RecordEvent> event = ArgumentCaptor.forClass(RecordEvent.class);
+        verify(events).publish(event.capture());
+        assertEquals(RecordEvent.Type.STATUS_CHANGED, event.getValue().type());
+        assertEquals(Arrays.asList(3, 4), List.copyOf(event.getValue().ids()));
+        assertEquals(RecordStatus.DONE, event.getValue().status());
+        assertEquals(2, event.getValue().done());
+        assertEquals(5, event.getValue().active());
+        assertEquals(service.getDataVersion(TodoList.DEFAULT_ID), event.getValue().version());
+    }
+
+    @Test
+    void writes_WithoutSubscribersOfThatListOrChanges_ShouldNotCountOrPublish() {
+        RecordEventBroadcaster events = mock(RecordEventBroadcaster.class);
+        when(events.hasSubscribers(TodoList.DEFAULT_ID)).thenReturn(false);
+        when(events.hasSubscribers(2)).thenReturn(true);
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 1)).thenReturn(false);
+        RecordService service = new RecordService(recordDao, null, events, null, null);
+
+        service.saveRecord(TodoList.DEFAULT_ID, "Nobody listens");
+        service.deleteRecordStatus(TodoList.DEFAULT_ID, 1);
+        service.saveRecord(2, "Followed");
+
+        verify(events, times(1)).hasSubscribers(TodoList.DEFAULT_ID);
+        verify(recordDao, never()).countRecordsByStatus(TodoList.DEFAULT_ID);
+        ArgumentCaptor<RecordEvent> event = ArgumentCaptor.forClass(RecordEvent.class);
+        verify(events, times(1)).publish(event.capture());
+        assertEquals(2, event.getValue().listId());
+    }
+
+    @Test
+    void saveRecord_WithStoreAndSubscribers_ShouldPublishCreatedRecordWithStoreCounters() {
+        RecordEventBroadcaster events = mock(RecordEventBroadcaster.class);
+        when(events.hasSubscribers(TodoList.DEFAULT_ID)).thenReturn(true);
+        when(recordDao.findAllRecords()).thenReturn(List.of(recordWithId(1, RecordStatus.DONE)));
+        RecordService service = new RecordService(recordDao, new InMemoryRecordStore(), events, null, null);
+        service.warmUp();
+
+        service.saveRecord(TodoList.DEFAULT_ID, "Fresh");
+
+        ArgumentCaptor<RecordEvent> event = ArgumentCaptor.forClass(RecordEvent.class);
+        verify(events).publish(event.capture());
+        assertEquals(RecordEvent.Type.CREATED, event.getValue().type());
+        assertEquals("Fresh", event.getValue().records().get(0).getTitle());
+        assertEquals(1, event.getValue().done());
+        assertEquals(1, event.getValue().active());
+        verify(recordDao, never()).countRecordsByStatus(TodoList.DEFAULT_ID);
+    }
+
+    @Test
+    void searchRecords_WithoutIndex_ShouldQueryDatabaseWithStatusAndPageSize() {
+        when(recordDao.searchRecords(TodoList.DEFAULT_ID, "task", RecordStatus.DONE, 10)).thenReturn(List.of(doneRecord));
+        when(recordDao.countRecordsByStatus(TodoList.DEFAULT_ID)).thenReturn(counters(1, 1));
+
+        RecordsContainerDto result = recordService.searchRecords(TodoList.DEFAULT_ID, "task", "done", 10);
+
+        assertEquals(List.of(doneRecord), result.getRecords());
+        assertEquals(1, result.getNumberOfDoneRecords());
+        assertEquals(1, result.getNumberOfActiveRecords());
+    }
+
+    @Test
+    void searchRecords_WithIndex_ShouldNotQueryDatabaseAndSeeWrites() {
+        when(recordDao.findAllRecords()).thenReturn(List.of(new RecordView(1, TodoList.DEFAULT_ID, "Buy milk", RecordStatus.ACTIVE, 0),
+                new RecordView(2, TodoList.DEFAULT_ID, "Buy bread", RecordStatus.ACTIVE, 0)));
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE)).thenReturn(true);
+        when(recordDao.deleteRecord(TodoList.DEFAULT_ID, 2)).thenReturn(true);
+        RecordService service = new RecordService(recordDao, null, null, new RecordSearchIndex(), null);
+        service.warmUp();
+
+        service.saveRecord(TodoList.DEFAULT_ID, "Buy butter");
+        service.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE);
+        service.deleteRecordStatus(TodoList.DEFAULT_ID, 2);
+
+        List<RecordView> found = service.searchRecords(TodoList.DEFAULT_ID, "buy", null, null).getRecords();
+        assertEquals(List.of("Buy butter", "Buy milk"), found.stream().map(RecordView::getTitle).sorted().toList());
+        assertEquals(List.of("Buy milk"), service.searchRecords(TodoList.DEFAULT_ID, "buy", "done", null).getRecords().stream()
+                .map(RecordView::getTitle).toList());
+        verify(recordDao, never()).searchRecords(eq(TodoList.DEFAULT_ID), any(), any(), anyInt());
+    }
+
+    @Test
+    void saveRecordAsync_WhenPublishingFailsAfterCommit_ShouldInsertOnceAndComplete() throws Exception {
+        RecordEventBroadcaster events = mock(RecordEventBroadcaster.class);
+        when(events.hasSubscribers(TodoList.DEFAULT_ID)).thenReturn(true);
+        doThrow(new IllegalStateException("cannot serialize")).when(events).publish(any());
+        InMemoryRecordStore store = new InMemoryRecordStore();
+        RecordService service = new RecordService(recordDao, store, events, null, new RecordWriteQueue(100, 50, 20, 1_000, 5_000));
+        try {
+            assertEquals("Once", service.saveRecordAsync(TodoList.DEFAULT_ID, "Once").get(5, TimeUnit.SECONDS).getTitle());
+        } finally {
+            service.drainWrites();
+        }
+
+        verify(recordDao, times(1)).saveRecords(any());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void saveRecord_WithWriteQueue_ShouldCommitConcurrentCreationsInBatches() throws Exception {
+        RecordService service = new RecordService(recordDao, null, null, null, new RecordWriteQueue(100, 50, 20, 1_000, 5_000));
+        try {
+            List<CompletableFuture<RecordView>> created = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                created.add(service.saveRecordAsync(TodoList.DEFAULT_ID, "Task " + i));
+            }
+            for (int i = 0; i < created.size(); i++) {
+                assertEquals("Task " + i, created.get(i).get().getTitle());
+            }
+            assertEquals("Sync", service.saveRecord(TodoList.DEFAULT_ID, "Sync").getTitle());
+        } finally {
+            service.drainWrites();
+        }
+
+        ArgumentCaptor<List<Record>> batches = ArgumentCaptor.forClass(List.class);
+        verify(recordDao, atLeastOnce()).saveRecords(batches.capture());
+        assertTrue(batches.getAllValues().size() < 11);
+        assertEquals(11, batches.getAllValues().stream().mapToInt(List::size).sum());
+        verify(recordDao, never()).saveRecord(any());
+    }
+
+    @Test
+    void updateRecordStatus_WithCurrentVersion_ShouldReturnNextVersionAndUpdateStore() {
+        InMemoryRecordStore store = new InMemoryRecordStore();
+        RecordService service = storeBackedService(store);
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE, 0L)).thenReturn(true);
+
+        assertEquals(1L, service.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE, 0L));
+
+        assertEquals(RecordStatus.DONE, store.getRecord(TodoList.DEFAULT_ID, 1).getStatus());
+        assertEquals(1L, store.getRecord(TodoList.DEFAULT_ID, 1).getVersion());
+        verify(recordDao, never()).findRecord(anyInt(), anyInt());
+    }
+
+    @Test
+    void updateRecordStatus_WithStaleVersion_ShouldThrowAndLeaveRecordAlone() {
+        long versionBefore = recordService.getDataVersion(TodoList.DEFAULT_ID);
+        when(recordDao.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE, 2L)).thenReturn(false);
+        when(recordDao.findRecord(TodoList.DEFAULT_ID, 1)).thenReturn(new RecordView(1, TodoList.DEFAULT_ID, "Task", RecordStatus.DONE, 3L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> recordService.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE, 2L));
+
+        assertEquals(versionBefore, recordService.getDataVersion(TodoList.DEFAULT_ID));
+    }
+
+    @Test
+    void updateRecordStatus_WithExpectedVersionAndNoChangeOrNoRecord_ShouldReturnVersionOrNull() {
+        when(recordDao.updateRecordStatus(eq(TodoList.DEFAULT_ID), anyInt(), eq(RecordStatus.DONE), eq(3L))).thenReturn(false);
+        when(recordDao.findRecord(TodoList.DEFAULT_ID, 1)).thenReturn(new RecordView(1, TodoList.DEFAULT_ID, "Task", RecordStatus.DONE, 3L));
+        when(recordDao.findRecord(TodoList.DEFAULT_ID, 2)).thenReturn(null);
 
-        verify(recordDao, times(1)).deleteRecord(id);
+        assertEquals(3L, recordService.updateRecordStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE, 3L));
+        assertNull(recordService.updateRecordStatus(TodoList.DEFAULT_ID, 2, RecordStatus.DONE, 3L));
     }
 }
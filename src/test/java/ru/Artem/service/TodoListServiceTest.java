@@ -0,0 +1,44 @@
+package ru.Artem.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.Artem.dao.TodoListDao;
+import ru.Artem.entity.TodoList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TodoListServiceTest {
+
+    @Mock
+    private TodoListDao todoListDao;
+
+    @InjectMocks
+    private TodoListService todoListService;
+
+    @Test
+    void requireList_ForDefaultList_ShouldNotLookItUp() {
+        assertNull(todoListService.requireList(TodoList.DEFAULT_ID));
+        verifyNoInteractions(todoListDao);
+    }
+
+    @Test
+    void requireList_ForExistingList_ShouldReturnIt() {
+        TodoList list = new TodoList("Groceries", null);
+        when(todoListDao.findList(2)).thenReturn(list);
+
+        assertSame(list, todoListService.requireList(2));
+    }
+
+    @Test
+    void requireList_ForUnknownList_ShouldAnswerNotFound() {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> todoListService.requireList(9));
+        assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+    }
+}
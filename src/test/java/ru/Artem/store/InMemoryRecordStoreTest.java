@@ -0,0 +1,256 @@
+package ru.Artem.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRecordStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final int ID_RANGE = 200;
+
+    private InMemoryRecordStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRecordStore();
+        store.load(Arrays.asList(
+                new RecordView(1, TodoList.DEFAULT_ID, "first", RecordStatus.ACTIVE, 0),
+                new RecordView(2, TodoList.DEFAULT_ID, "second", RecordStatus.DONE, 0),
+                new RecordView(3, TodoList.DEFAULT_ID, "third", RecordStatus.ACTIVE, 0)));
+    }
+
+    private static List<Integer> ids(List<RecordView> records) {
+        return records.stream().map(RecordView::getId).toList();
+    }
+
+    private static List<RecordView> records(InMemoryRecordStore store, int listId, RecordStatus status) {
+        List<RecordView> records = new ArrayList<>();
+        store.forEach(listId, status, records::add);
+        return records;
+    }
+
+    @Test
+    void forEach_ShouldVisitRecordsInIdOrderPerStatus() {
+        store.put(new RecordView(0, TodoList.DEFAULT_ID, "zero", RecordStatus.DONE, 0));
+
+        assertEquals(List.of(0, 1, 2, 3), ids(records(store, TodoList.DEFAULT_ID, null)));
+        assertEquals(List.of(1, 3), ids(records(store, TodoList.DEFAULT_ID, RecordStatus.ACTIVE)));
+        assertEquals(List.of(0, 2), ids(records(store, TodoList.DEFAULT_ID, RecordStatus.DONE)));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+    }
+
+    @Test
+    void lists_ShouldKeepSeparateIndexesAndCounters() {
+        store.put(new RecordView(4, 2, "other", RecordStatus.ACTIVE, 0));
+
+        assertEquals(List.of(1, 2, 3), ids(records(store, TodoList.DEFAULT_ID, null)));
+        assertEquals(List.of(4), ids(records(store, 2, null)));
+        assertEquals(List.of(1, 2, 3, 4), ids(store.getRecords()));
+        assertFalse(store.updateStatus(TodoList.DEFAULT_ID, 4, RecordStatus.DONE));
+        assertFalse(store.remove(TodoList.DEFAULT_ID, 4));
+        assertNull(store.getRecord(TodoList.DEFAULT_ID, 4));
+        assertEquals("other", store.getRecord(2, 4).getTitle());
+        assertEquals(1L, store.countRecordsByStatus(2).get(RecordStatus.ACTIVE));
+        assertEquals(0L, store.countRecordsByStatus(2).get(RecordStatus.DONE));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+        assertTrue(records(store, 3, null).isEmpty());
+    }
+
+    @Test
+    void updateStatus_ShouldMoveRecordBetweenIndexesWithoutMutatingOldRecord() {
+        RecordView before = store.getRecord(TodoList.DEFAULT_ID, 1);
+
+        assertTrue(store.updateStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE));
+        assertFalse(store.updateStatus(TodoList.DEFAULT_ID, 1, RecordStatus.DONE));
+        assertFalse(store.updateStatus(TodoList.DEFAULT_ID, 99, RecordStatus.DONE));
+
+        assertEquals(RecordStatus.ACTIVE, before.getStatus());
+        assertEquals(RecordStatus.DONE, store.getRecord(TodoList.DEFAULT_ID, 1).getStatus());
+        assertEquals(List.of(3), ids(records(store, TodoList.DEFAULT_ID, RecordStatus.ACTIVE)));
+        assertEquals(List.of(1, 2), ids(records(store, TodoList.DEFAULT_ID, RecordStatus.DONE)));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+        assertEquals(1L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+    }
+
+    @Test
+    void remove_ShouldDropRecordFromAllIndexes() {
+        assertTrue(store.remove(TodoList.DEFAULT_ID, 2));
+        assertFalse(store.remove(TodoList.DEFAULT_ID, 2));
+
+        assertNull(store.getRecord(TodoList.DEFAULT_ID, 2));
+        assertEquals(List.of(1, 3), ids(records(store, TodoList.DEFAULT_ID, null)));
+        assertTrue(records(store, TodoList.DEFAULT_ID, RecordStatus.DONE).isEmpty());
+        assertEquals(0L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+    }
+
+    @Test
+    void put_ExistingIdWithSameStatus_ShouldReplaceWithoutDoubleCounting() {
+        store.put(new RecordView(1, TodoList.DEFAULT_ID, "renamed", RecordStatus.ACTIVE, 0));
+
+        assertEquals("renamed", store.getRecord(TodoList.DEFAULT_ID, 1).getTitle());
+        assertEquals(List.of(1, 3), ids(records(store, TodoList.DEFAULT_ID, RecordStatus.ACTIVE)));
+        assertEquals(2L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+    }
+
+    @Test
+    void getRecordsAfterAndBefore_ShouldPageThroughStatusIndex() {
+        for (int id = 10; id < 20; id++) {
+            store.put(new RecordView(id, TodoList.DEFAULT_ID, "task " + id, id % 2 == 0 ? RecordStatus.ACTIVE : RecordStatus.DONE, 0));
+        }
+
+        assertEquals(List.of(10, 12), ids(store.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 3, 2)));
+        assertEquals(List.of(14, 16), ids(store.getRecordsAfter(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 12, 2)));
+        assertEquals(List.of(3, 10), ids(store.getRecordsBefore(TodoList.DEFAULT_ID, RecordStatus.ACTIVE, 12, 2)));
+        assertEquals(List.of(17, 18, 19), ids(store.getRecordsAfter(TodoList.DEFAULT_ID, null, 16, 5)));
+        assertTrue(store.getRecordsBefore(TodoList.DEFAULT_ID, RecordStatus.DONE, 2, 5).isEmpty());
+    }
+
+    @Test
+    void load_ShouldReplacePreviousContent() {
+        store.load(List.of(new RecordView(7, TodoList.DEFAULT_ID, "only", RecordStatus.DONE, 0)));
+
+        assertEquals(List.of(7), ids(records(store, TodoList.DEFAULT_ID, null)));
+        assertEquals(1L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.DONE));
+        assertEquals(0L, store.countRecordsByStatus(TodoList.DEFAULT_ID).get(RecordStatus.ACTIVE));
+    }
+
+    @Test
+    void parallelMutations_ShouldKeepIndexesAndCountersConsistent() throws Exception {
+        store.load(List.of());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger readerAnomalies = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        int id = random.nextInt(ID_RANGE);
+                        RecordStatus status = random.nextBoolean() ? RecordStatus.ACTIVE : RecordStatus.DONE;
+                        switch (random.nextInt(4)) {
+                            case 0 -> store.put(new RecordView(id, TodoList.DEFAULT_ID, "task " + id, status, 0));
+                            case 1 -> store.remove(TodoList.DEFAULT_ID, id);
+                            default -> store.updateStatus(TodoList.DEFAULT_ID, id, status);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    Map<RecordStatus, Long> counters = store.countRecordsByStatus(TodoList.DEFAULT_ID);
+                    List<RecordView> active = records(store, TodoList.DEFAULT_ID, RecordStatus.ACTIVE);
+                    for (RecordView record : active) {
+                        if (record.getStatus() != RecordStatus.ACTIVE) {
+                            readerAnomalies.incrementAndGet();
+                        }
+                    }
+                    if (counters.values().stream().anyMatch(count -> count < 0 || count > ID_RANGE + THREADS)) {
+                        readerAnomalies.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, readerAnomalies.get(), "a status index served a record with another status");
+        assertConsistent(store);
+    }
+
+    @Test
+    void withLocks_ConcurrentWritesToSameIds_ShouldReachStoreInDatabaseOrder() throws Exception {
+        Map<Integer, RecordStatus> database = new ConcurrentHashMap<>();
+        for (int id = 0; id < 20; id++) {
+            database.put(id, RecordStatus.ACTIVE);
+            store.put(new RecordView(id, TodoList.DEFAULT_ID, "task " + id, RecordStatus.ACTIVE, 0));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2_000; i++) {
+                        int id = random.nextInt(20);
+                        int other = random.nextInt(20);
+                        RecordStatus status = random.nextBoolean() ? RecordStatus.ACTIVE : RecordStatus.DONE;
+                        store.withLocks(new HashSet<>(Arrays.asList(id, other)), () -> {
+                            database.put(id, status);
+                            database.put(other, status);
+                            Thread.yield();
+                            store.updateStatus(TodoList.DEFAULT_ID, id, status);
+                            store.updateStatus(TodoList.DEFAULT_ID, other, status);
+                            return null;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Integer, RecordStatus> stored = new HashMap<>();
+        for (RecordView record : records(store, TodoList.DEFAULT_ID, null)) {
+            stored.put(record.getId(), record.getStatus());
+        }
+        assertEquals(database, stored);
+        assertConsistent(store);
+    }
+
+    private static void assertConsistent(InMemoryRecordStore store) {
+        List<RecordView> all = records(store, TodoList.DEFAULT_ID, null);
+        assertEquals(store.size(), all.size());
+        long total = 0;
+        for (RecordStatus status : RecordStatus.values()) {
+            List<RecordView> indexed = records(store, TodoList.DEFAULT_ID, status);
+            List<Integer> expected = all.stream().filter(record -> record.getStatus() == status).map(RecordView::getId).toList();
+            assertEquals(expected, ids(indexed), "index for " + status);
+            for (RecordView record : indexed) {
+                assertSame(store.getRecord(TodoList.DEFAULT_ID, record.getId()), record);
+            }
+            assertEquals((long) indexed.size(), store.countRecordsByStatus(TodoList.DEFAULT_ID).get(status), "counter for " + status);
+            total += indexed.size();
+        }
+        assertEquals(all.size(), total);
+    }
+}
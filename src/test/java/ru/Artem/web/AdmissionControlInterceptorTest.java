@@ -0,0 +1,160 @@
+package ru.Artem.web;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.Artem.web.AdmissionControlInterceptor.EndpointClass;
+import ru.Artem.web.AdmissionControlInterceptor.Policy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlInterceptorTest {
+
+    private static final Policy UNLIMITED = new Policy(0, 0, 0, 0, 0);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdmissionControlInterceptor interceptor(Policy writePolicy) {
+        return new AdmissionControlInterceptor(UNLIMITED, writePolicy, clock::get);
+    }
+
+    private static MockHttpServletRequest post(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/add-record");
+        request.setRemoteAddr(remoteAddr);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    @Test
+    void preHandle_WithClientOverItsRate_ShouldAnswer429WithRetryAfter() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(0, 0, 0, 0.5, 2));
+
+        assertTrue(interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null));
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(post("10.0.0.1"), rejected, null));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        // Other clients have their own buckets
+        assertTrue(interceptor.preHandle(post("10.0.0.2"), new MockHttpServletResponse(), null));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void preHandle_WithAllSlotsTakenAndNoQueue_ShouldAnswer503AtOnce() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(1, 0, 10_000, 0, 0));
+        assertTrue(interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        assertFalse(interceptor.preHandle(post("10.0.0.2"), rejected, null));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void preHandle_WithSlotNotFreedInTime_ShouldAnswer503() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(1, 1, 20, 0, 0));
+        assertTrue(interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null));
+        MockHttpServletRequest queued = post("10.0.0.2");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(queued, rejected, null));
+        MockAsyncContext asyncContext = (MockAsyncContext) queued.getAsyncContext();
+        assertEquals(20, asyncContext.getTimeout());
+
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertFalse(queued.isAsyncStarted());
+        assertNull(asyncContext.getDispatchedPath());
+        assertEquals(0, interceptor.getQueued(EndpointClass.WRITE));
+        assertEquals(1, interceptor.getInFlight(EndpointClass.WRITE));
+    }
+
+    @Test
+    void preHandle_WithQueuedRequest_ShouldWaitWithoutThreadAndBeDispatchedWhenSlotIsReleased() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(1, 1, 10_000, 0, 0));
+        MockHttpServletRequest first = post("10.0.0.1");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+
+        MockHttpServletRequest queued = post("10.0.0.2");
+        assertFalse(interceptor.preHandle(queued, new MockHttpServletResponse(), null));
+        assertTrue(queued.isAsyncStarted());
+        assertEquals(1, interceptor.getQueued(EndpointClass.WRITE));
+        // The queue is full, so a third request is not kept waiting
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(post("10.0.0.3"), rejected, null));
+        assertEquals(503, rejected.getStatus());
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+
+        assertEquals("/add-record", ((MockAsyncContext) queued.getAsyncContext()).getDispatchedPath());
+        assertEquals(0, interceptor.getQueued(EndpointClass.WRITE));
+        assertEquals(1, interceptor.getInFlight(EndpointClass.WRITE));
+        // The dispatched request goes through without queueing again and frees the slot when done
+        queued.setDispatcherType(DispatcherType.ASYNC);
+        queued.setAsyncStarted(false);
+        assertTrue(interceptor.preHandle(queued, new MockHttpServletResponse(), null));
+        interceptor.afterCompletion(queued, new MockHttpServletResponse(), null, null);
+        assertEquals(0, interceptor.getInFlight(EndpointClass.WRITE));
+    }
+
+    @Test
+    void afterCompletion_CalledTwice_ShouldReleaseSlotOnce() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(2, 0, 0, 0, 0));
+        MockHttpServletRequest first = post("10.0.0.1");
+        interceptor.preHandle(first, new MockHttpServletResponse(), null);
+        interceptor.preHandle(post("10.0.0.2"), new MockHttpServletResponse(), null);
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+
+        assertEquals(1, interceptor.getInFlight(EndpointClass.WRITE));
+    }
+
+    @Test
+    void afterConcurrentHandlingStarted_ShouldHoldSlotUntilAsyncRequestCompletes() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(1, 0, 0, 0, 0));
+        MockHttpServletRequest request = post("10.0.0.1");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, null));
+
+        MockAsyncContext asyncContext = (MockAsyncContext) request.startAsync(request, response);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(1, interceptor.getInFlight(EndpointClass.WRITE));
+
+        asyncContext.complete();
+
+        assertEquals(0, interceptor.getInFlight(EndpointClass.WRITE));
+    }
+
+    @Test
+    void preHandle_WithReadAndOnlyWritesLimited_ShouldAlwaysAdmit() throws Exception {
+        AdmissionControlInterceptor interceptor = interceptor(new Policy(1, 0, 0, 1, 1));
+        interceptor.preHandle(post("10.0.0.1"), new MockHttpServletResponse(), null);
+
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest read = new MockHttpServletRequest("GET", "/home");
+            read.setRemoteAddr("10.0.0.1");
+            assertTrue(interceptor.preHandle(read, new MockHttpServletResponse(), null));
+        }
+        assertEquals(0, interceptor.getInFlight(EndpointClass.READ));
+    }
+}
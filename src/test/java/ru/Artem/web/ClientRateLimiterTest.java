@@ -0,0 +1,72 @@
+package ru.Artem.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void tryAcquire_AfterBurst_ShouldRefillAtRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("client"));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire("client"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+    }
+
+    @Test
+    void tryAcquire_WithManyIdleClients_ShouldDropTheirBuckets() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, clock::get);
+        for (int i = 0; i < ClientRateLimiter.MAX_CLIENTS; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.tryAcquire("newcomer");
+
+        assertEquals(1, limiter.getClientCount());
+    }
+
+    @Test
+    void tryAcquire_WithManyActiveClients_ShouldSweepAtMostOncePerRefillPeriod() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, clock::get);
+        for (int i = 0; i < ClientRateLimiter.MAX_CLIENTS; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+        // Swept on the first request over the limit: nothing is full yet, so every bucket stays
+        limiter.tryAcquire("newcomer-0");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.tryAcquire("newcomer-1");
+        assertEquals(ClientRateLimiter.MAX_CLIENTS + 2, limiter.getClientCount());
+
+        // A refill period after the last sweep the next one drops every bucket that is full again
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.tryAcquire("newcomer-2");
+
+        assertEquals(2, limiter.getClientCount());
+    }
+
+    @Test
+    void tryAcquire_WithMoreActiveClientsThanHardLimit_ShouldEvictTheOldest() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, clock::get);
+        for (int i = 0; i < ClientRateLimiter.HARD_MAX_CLIENTS + 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client-" + i));
+        }
+
+        assertEquals(ClientRateLimiter.HARD_MAX_CLIENTS, limiter.getClientCount());
+        // The newest clients kept their emptied buckets, the oldest start over
+        assertTrue(limiter.tryAcquire("client-" + (ClientRateLimiter.HARD_MAX_CLIENTS + 4)) > 0);
+        assertEquals(0, limiter.tryAcquire("client-0"));
+    }
+}
@@ -0,0 +1,120 @@
+package ru.Artem.web;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlCompressionFilterTest {
+
+    private static final String PAGE = "<html><body>" + "<p>Привет</p>".repeat(100) + "</body></html>";
+
+    private final HtmlCompressionFilter filter = new HtmlCompressionFilter();
+
+    private static FilterChain writing(String contentType, String body) {
+        return (request, response) -> {
+            response.setContentType(contentType);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(body);
+        };
+    }
+
+    @Test
+    void doFilter_HtmlWithGzipAccepted_ShouldCompressBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, writing("text/html", PAGE));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertTrue(response.getContentAsByteArray().length < PAGE.getBytes(StandardCharsets.UTF_8).length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(PAGE, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doFilter_HtmlWithoutAcceptEncoding_ShouldPassThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, writing("text/html", PAGE));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals(PAGE, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_Json_ShouldNotCompress() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/records");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, writing("application/json", "{\"records\":[]}"));
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("{\"records\":[]}", response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_AsyncRequest_ShouldFinishGzipInAsyncDispatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.addHeader("Accept-Encoding", "gzip");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // The controller returns a Callable: the first dispatch only starts async processing
+        filter.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        // The view is rendered in the async dispatch, through the response wrapped by the first pass
+        ServletResponse wrapped = request.getAsyncContext().getResponse();
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, (req, res) -> writing("text/html", PAGE).doFilter(req, wrapped));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(PAGE, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doFilter_ForwardToView_ShouldFinishGzipBeforeForwardReturns() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[][] afterForward = new byte[1][];
+
+        filter.doFilter(request, response, (req, res) -> {
+            // The container closes the response when the forward returns, so the trailer must be out by then
+            request.setDispatcherType(DispatcherType.FORWARD);
+            filter.doFilter(req, res, writing("text/html", PAGE));
+            request.setDispatcherType(DispatcherType.REQUEST);
+            afterForward[0] = response.getContentAsByteArray();
+        });
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(afterForward[0]))) {
+            assertEquals(PAGE, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertArrayEquals(afterForward[0], response.getContentAsByteArray());
+    }
+
+    @Test
+    void acceptsGzip_WithZeroQuality_ShouldBeFalse() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.addHeader("Accept-Encoding", "br, gzip;q=0");
+
+        assertFalse(HtmlCompressionFilter.acceptsGzip(request));
+    }
+}
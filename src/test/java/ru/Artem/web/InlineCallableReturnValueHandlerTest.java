@@ -0,0 +1,72 @@
+package ru.Artem.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.ViewNameMethodReturnValueHandler;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InlineCallableReturnValueHandlerTest {
+
+    private final InlineCallableReturnValueHandler handler = new InlineCallableReturnValueHandler(List.of(
+            new ViewNameMethodReturnValueHandler(),
+            new HttpEntityMethodProcessor(List.of(new StringHttpMessageConverter()))));
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final ServletWebRequest webRequest = new ServletWebRequest(request, response);
+    private final ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+
+    @SuppressWarnings("unused")
+    Callable<String> page() {
+        return () -> "main-page";
+    }
+
+    @SuppressWarnings("unused")
+    Callable<ResponseEntity<String>> entity() {
+        return () -> ResponseEntity.status(201).body("created");
+    }
+
+    private static MethodParameter returnType(String method) throws NoSuchMethodException {
+        return new MethodParameter(InlineCallableReturnValueHandlerTest.class.getDeclaredMethod(method), -1);
+    }
+
+    @Test
+    void callableViewName_ShouldBeHandledSynchronouslyAsViewName() throws Exception {
+        MethodParameter returnType = returnType("page");
+
+        assertTrue(handler.supportsReturnType(returnType));
+        handler.handleReturnValue(page(), returnType, mavContainer, webRequest);
+
+        assertEquals("main-page", mavContainer.getViewName());
+        assertFalse(request.isAsyncStarted());
+    }
+
+    @Test
+    void callableResponseEntity_ShouldBeWrittenSynchronously() throws Exception {
+        handler.handleReturnValue(entity(), returnType("entity"), mavContainer, webRequest);
+
+        assertTrue(mavContainer.isRequestHandled());
+        assertEquals(201, response.getStatus());
+        assertEquals("created", response.getContentAsString());
+    }
+
+    @Test
+    void failingCallable_ShouldPropagateException() throws Exception {
+        Callable<String> failing = () -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class,
+                () -> handler.handleReturnValue(failing, returnType("page"), mavContainer, webRequest));
+    }
+}
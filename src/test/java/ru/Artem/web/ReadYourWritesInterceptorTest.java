@@ -0,0 +1,82 @@
+package ru.Artem.web;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.Artem.datasource.ReplicaRouting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesInterceptorTest {
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(5000);
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRouting.clear();
+    }
+
+    @Test
+    void preHandle_WithPost_ShouldSetCookieAndPinPrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/make-record-done");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+
+        Cookie cookie = response.getCookie(ReadYourWritesInterceptor.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+        assertEquals(5, cookie.getMaxAge());
+        assertTrue(ReplicaRouting.isPrimaryPinned());
+    }
+
+    @Test
+    void preHandle_WithGetAfterRecentWrite_ShouldPinPrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, String.valueOf(System.currentTimeMillis() + 3000)));
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+        assertTrue(ReplicaRouting.isPrimaryPinned());
+    }
+
+    @Test
+    void preHandle_WithGetAfterExpiredWindow_ShouldNotPinPrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1)));
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+        assertFalse(ReplicaRouting.isPrimaryPinned());
+    }
+
+    @Test
+    void preHandle_WithMalformedCookie_ShouldNotPinPrimary() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        request.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, "garbage"));
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+        assertFalse(ReplicaRouting.isPrimaryPinned());
+    }
+
+    @Test
+    void afterCompletion_ShouldClearPin() {
+        ReplicaRouting.pinToPrimary();
+
+        interceptor.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null);
+
+        assertFalse(ReplicaRouting.isPrimaryPinned());
+    }
+
+    @Test
+    void afterConcurrentHandlingStarted_ShouldClearPinOnRequestThread() {
+        ReplicaRouting.pinToPrimary();
+
+        interceptor.afterConcurrentHandlingStarted(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+
+        assertFalse(ReplicaRouting.isPrimaryPinned());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.Artem.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.Artem.datasource.ReplicaRouting;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingPropagationTest {
+
+    private final ReplicaRoutingPropagation propagation = new ReplicaRoutingPropagation();
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    private final Callable<String> task = () -> "done";
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRouting.clear();
+    }
+
+    private boolean pinnedOnVirtualThread() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return executor.submit(() -> {
+                propagation.preProcess(request, task);
+                try {
+                    return ReplicaRouting.isPrimaryPinned();
+                } finally {
+                    propagation.postProcess(request, task, null);
+                    assertFalse(ReplicaRouting.isPrimaryPinned());
+                }
+            }).get();
+        }
+    }
+
+    @Test
+    void pinnedRequest_ShouldStayPinnedOnAsyncThread() throws Exception {
+        ReplicaRouting.pinToPrimary();
+        propagation.beforeConcurrentHandling(request, task);
+
+        assertTrue(pinnedOnVirtualThread());
+    }
+
+    @Test
+    void unpinnedRequest_ShouldNotPinAsyncThread() throws Exception {
+        propagation.beforeConcurrentHandling(request, task);
+
+        assertFalse(pinnedOnVirtualThread());
+    }
+}
@@ -0,0 +1,197 @@
+package ru.Artem.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.Artem.entity.Record;
+import ru.Artem.entity.RecordStatus;
+import ru.Artem.entity.TodoList;
+import ru.Artem.entity.dto.RecordView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordWriteQueueTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private RecordWriteQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstBatch.countDown();
+        queue.close();
+    }
+
+    /**
+     * Records every batch; the first one blocks until released, like a slow commit.
+     */
+    private List<RecordView> write(List<Record> records) {
+        List<String> titles = records.stream().map(Record::getTitle).toList();
+        batches.add(titles);
+        firstBatchStarted.countDown();
+        try {
+            assertTrue(releaseFirstBatch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        List<RecordView> saved = new ArrayList<>();
+        titles.forEach(title -> saved.add(new RecordView(ids.incrementAndGet(), TodoList.DEFAULT_ID, title, RecordStatus.ACTIVE, 0)));
+        return saved;
+    }
+
+    private RecordWriteQueue startedQueue(int capacity, int maxBatchSize) {
+        queue = new RecordWriteQueue(capacity, maxBatchSize, 50, 20, 5_000);
+        queue.start(this::write, saved -> { });
+        return queue;
+    }
+
+    @Test
+    void submit_WhileCommitIsRunning_ShouldGroupWaitingTitlesIntoNextBatches() throws Exception {
+        startedQueue(100, 4);
+        CompletableFuture<RecordView> first = queue.submit(TodoList.DEFAULT_ID, "first");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<RecordView>> waiting = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            waiting.add(queue.submit(TodoList.DEFAULT_ID, "t" + i));
+        }
+        assertFalse(first.isDone());
+
+        releaseFirstBatch.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getTitle());
+        for (int i = 0; i < waiting.size(); i++) {
+            assertEquals("t" + i, waiting.get(i).get(5, TimeUnit.SECONDS).getTitle());
+        }
+        assertEquals(List.of(List.of("first"), List.of("t0", "t1", "t2", "t3"), List.of("t4", "t5")), batches);
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectAfterOfferTimeout() throws Exception {
+        startedQueue(2, 10);
+        CompletableFuture<RecordView> first = queue.submit(TodoList.DEFAULT_ID, "first");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<RecordView> second = queue.submit(TodoList.DEFAULT_ID, "second");
+
+        CompletableFuture<RecordView> third = queue.submit(TodoList.DEFAULT_ID, "third");
+
+        CompletionException error = assertThrows(CompletionException.class, third::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        releaseFirstBatch.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertNotNull(queue.submit(TodoList.DEFAULT_ID, "fourth").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_WhenWriteFails_ShouldFailThatTitleAndKeepWriting() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database is down");
+        AtomicInteger calls = new AtomicInteger();
+        queue = new RecordWriteQueue(100, 10, 0, 20, 5_000);
+        queue.start(records -> {
+            if (calls.incrementAndGet() == 1) {
+                throw failure;
+            }
+            return List.of(new RecordView(1, TodoList.DEFAULT_ID, records.get(0).getTitle(), RecordStatus.ACTIVE, 0));
+        }, saved -> { });
+
+        CompletableFuture<RecordView> failed = queue.submit(TodoList.DEFAULT_ID, "lost");
+        CompletionException error = assertThrows(CompletionException.class, failed::join);
+
+        assertSame(failure, error.getCause());
+        assertEquals("kept", queue.submit(TodoList.DEFAULT_ID, "kept").get(5, TimeUnit.SECONDS).getTitle());
+    }
+
+    @Test
+    void submit_WhenOneTitleOfBatchFails_ShouldRetryInHalvesAndFailOnlyThatTitle() throws Exception {
+        IllegalStateException failure = new IllegalStateException("value too long");
+        queue = new RecordWriteQueue(100, 4, 50, 20, 5_000);
+        queue.start(records -> {
+            if (records.stream().anyMatch(record -> record.getTitle().equals("bad"))) {
+                batches.add(records.stream().map(Record::getTitle).toList());
+                throw failure;
+            }
+            return write(records);
+        }, saved -> { });
+        CompletableFuture<RecordView> first = queue.submit(TodoList.DEFAULT_ID, "first");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<RecordView>> waiting = new ArrayList<>();
+        for (String title : List.of("a", "bad", "c", "d")) {
+            waiting.add(queue.submit(TodoList.DEFAULT_ID, title));
+        }
+
+        releaseFirstBatch.countDown();
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        CompletionException error = assertThrows(CompletionException.class, waiting.get(1)::join);
+        assertSame(failure, error.getCause());
+        assertEquals("a", waiting.get(0).get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("c", waiting.get(2).get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("d", waiting.get(3).get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals(List.of(List.of("first"), List.of("a", "bad", "c", "d"), List.of("a", "bad"), List.of("a"),
+                List.of("bad"), List.of("c", "d")), batches);
+    }
+
+    @Test
+    void submit_WhenStepAfterCommitFails_ShouldNeitherInsertAgainNorFailTitles() throws Exception {
+        List<List<String>> applied = new CopyOnWriteArrayList<>();
+        releaseFirstBatch.countDown();
+        queue = new RecordWriteQueue(100, 4, 50, 20, 5_000);
+        queue.start(this::write, saved -> {
+            applied.add(saved.stream().map(RecordView::getTitle).toList());
+            throw new IllegalStateException("subscriber count query failed");
+        });
+
+        CompletableFuture<RecordView> first = queue.submit(TodoList.DEFAULT_ID, "a");
+        CompletableFuture<RecordView> second = queue.submit(TodoList.DEFAULT_ID, "b");
+
+        assertEquals("a", first.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("b", second.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals(List.of(List.of("a", "b")), batches);
+        assertEquals(2, ids.get());
+        assertEquals(List.of(List.of("a", "b")), applied);
+    }
+
+    @Test
+    void close_WhenFlusherMissesShutdownTimeout_ShouldFailUnwrittenTitles() throws Exception {
+        queue = new RecordWriteQueue(100, 1, 0, 20, 50);
+        queue.start(this::write, saved -> { });
+        CompletableFuture<RecordView> writing = queue.submit(TodoList.DEFAULT_ID, "writing");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<RecordView> queued = queue.submit(TodoList.DEFAULT_ID, "queued");
+
+        queue.close();
+
+        CompletionException writingError = assertThrows(CompletionException.class, writing::join);
+        assertInstanceOf(RejectedExecutionException.class, writingError.getCause());
+        CompletionException queuedError = assertThrows(CompletionException.class, queued::join);
+        assertInstanceOf(RejectedExecutionException.class, queuedError.getCause());
+        assertEquals(List.of(List.of("writing")), batches);
+    }
+
+    @Test
+    void close_ShouldWriteQueuedTitlesAndRejectLaterOnes() throws Exception {
+        startedQueue(100, 10);
+        CompletableFuture<RecordView> first = queue.submit(TodoList.DEFAULT_ID, "first");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<RecordView> queued = queue.submit(TodoList.DEFAULT_ID, "queued");
+
+        releaseFirstBatch.countDown();
+        queue.close();
+
+        assertTrue(first.isDone());
+        assertEquals("queued", queued.getNow(null).getTitle());
+        CompletionException error = assertThrows(CompletionException.class, () -> queue.submit(TodoList.DEFAULT_ID, "late").join());
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+    }
+}
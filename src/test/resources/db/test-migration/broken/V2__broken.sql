@@ -0,0 +1,2 @@
+INSERT INTO items VALUES (2, 'second');
+INSERT INTO missing_table VALUES (1);
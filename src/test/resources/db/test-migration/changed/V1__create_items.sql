@@ -0,0 +1,3 @@
+-- Creates the items table.
+CREATE TABLE items (id INTEGER PRIMARY KEY, name VARCHAR(100) NOT NULL);
+INSERT INTO items VALUES (1, 'first');
@@ -0,0 +1,2 @@
+-- migration:no-transaction
+ALTER TABLE items ADD COLUMN done BOOLEAN DEFAULT FALSE NOT NULL;
@@ -0,0 +1 @@
+CREATE INDEX idx_items_done ON items (done, id);